@@ -0,0 +1,81 @@
+package com.korber.inventoryservice.config;
+
+import com.korber.inventoryservice.InventoryServiceApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one deduction over HTTP as configured before the prod profile, with every statement logged by show-sql
+ * and web and H2 logging at DEBUG, and with the prod profile and the query profiler sampling every request.
+ * Sampled mode reports the p50 and p99 of each configuration.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class QueryLoggingBenchmark {
+
+    private static final int PRODUCTS = 20;
+
+    @Param({"logged", "profiled"})
+    private String configuration;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private ConfigurableApplicationContext context;
+    private URI uri;
+    private int nextProduct;
+
+    @Setup
+    public void setUp() {
+        List<String> arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:jmh-query-logging-" + configuration,
+                "--inventory.scheduling.enabled=false",
+                "--inventory.ledger.wal-dir=target/jmh-ledger/" + UUID.randomUUID(),
+                "--inventory.seed.products=" + PRODUCTS,
+                "--inventory.seed.batch-quantity=" + Integer.MAX_VALUE / 4,
+                "--management.tracing.enabled=false",
+                "--tracing.export.file="));
+        if ("profiled".equals(configuration)) {
+            arguments.addAll(Arrays.asList("--spring.profiles.active=prod", "--query.profiler.sample-rate=1.0"));
+        } else {
+            arguments.add("--query.profiler.enabled=false");
+        }
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class).run(arguments.toArray(String[]::new));
+        uri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                + "/inventory/update");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int deduct() throws Exception {
+        nextProduct = nextProduct % PRODUCTS + 1;
+        String body = "{\"productId\":" + nextProduct + ",\"quantity\":1,\"handlerType\":\"STANDARD\"}";
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Deduction failed with status " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
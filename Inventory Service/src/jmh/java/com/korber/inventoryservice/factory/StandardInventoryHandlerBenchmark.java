@@ -0,0 +1,77 @@
+package com.korber.inventoryservice.factory;
+
+import com.korber.inventoryservice.InventoryServiceApplication;
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one FEFO deduction against H2 as the number of live batches of the product grows.
+ * Batches hold enough stock that a run never exhausts them, so every invocation does the same work.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class StandardInventoryHandlerBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int batchCount;
+
+    private ConfigurableApplicationContext context;
+    private StandardInventoryHandler inventoryHandler;
+    private Long productId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:jmh-" + batchCount,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--inventory.ledger.wal-dir=target/jmh-ledger/" + UUID.randomUUID(),
+                "--inventory.ledger.wal-sync=false");
+        inventoryHandler = context.getBean(StandardInventoryHandler.class);
+
+        Product product = new Product();
+        product.setName("Benchmark Product");
+        product.setDescription("Benchmark Description");
+        product.setSku("JMH-" + batchCount);
+        product = context.getBean(ProductRepository.class).save(product);
+        productId = product.getId();
+
+        List<InventoryBatch> batches = new ArrayList<>(batchCount);
+        for (int i = 0; i < batchCount; i++) {
+            InventoryBatch batch = new InventoryBatch();
+            batch.setBatchNumber("BATCH-" + i);
+            batch.setQuantity(Integer.MAX_VALUE / 2);
+            batch.setExpiryDate(LocalDate.now().plusDays(i + 1));
+            batch.setProduct(product);
+            batches.add(batch);
+        }
+        context.getBean(InventoryBatchRepository.class).saveAll(batches);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DeductionResult updateInventory() {
+        return inventoryHandler.updateInventory(productId, 1);
+    }
+}
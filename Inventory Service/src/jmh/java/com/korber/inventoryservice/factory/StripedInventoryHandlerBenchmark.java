@@ -0,0 +1,75 @@
+package com.korber.inventoryservice.factory;
+
+import com.korber.inventoryservice.InventoryServiceApplication;
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.DeductionRetryExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the STANDARD and STRIPED handlers when every thread deducts from the same product.
+ * Deductions are retried the same way InventoryServiceImpl does, so STANDARD pays for its version conflicts.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(32)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class StripedInventoryHandlerBenchmark {
+
+    @Param({"STANDARD", "STRIPED"})
+    private String handlerType;
+
+    private ConfigurableApplicationContext context;
+    private InventoryHandler inventoryHandler;
+    private DeductionRetryExecutor deductionRetryExecutor;
+    private Long productId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(InventoryServiceApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:jmh-hot-" + handlerType,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--inventory.ledger.wal-dir=target/jmh-ledger/" + UUID.randomUUID(),
+                "--inventory.ledger.wal-sync=false");
+        inventoryHandler = context.getBean(InventoryHandlerFactory.class).getHandler(handlerType);
+        deductionRetryExecutor = context.getBean(DeductionRetryExecutor.class);
+
+        Product product = new Product();
+        product.setName("Hot Product");
+        product.setDescription("Hot Product Description");
+        product.setSku("JMH-HOT-" + handlerType);
+        product = context.getBean(ProductRepository.class).save(product);
+        productId = product.getId();
+
+        InventoryBatch batch = new InventoryBatch();
+        batch.setBatchNumber("BATCH-HOT");
+        batch.setQuantity(Integer.MAX_VALUE / 2);
+        batch.setExpiryDate(LocalDate.now().plusDays(1));
+        batch.setProduct(product);
+        context.getBean(InventoryBatchRepository.class).save(batch);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public DeductionResult updateInventory() {
+        return deductionRetryExecutor.execute(productId, () -> inventoryHandler.updateInventory(productId, 1));
+    }
+}
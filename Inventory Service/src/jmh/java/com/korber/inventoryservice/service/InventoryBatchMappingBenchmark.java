@@ -0,0 +1,47 @@
+package com.korber.inventoryservice.service;
+
+import com.korber.inventoryservice.dto.InventoryBatchDTO;
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of mapping a product's batches to the DTO list served by GET /inventory/{productId}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class InventoryBatchMappingBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int batchCount;
+
+    private InventoryServiceImpl inventoryService;
+    private List<InventoryBatch> batches;
+
+    @Setup
+    public void setUp() {
+        // Mapping touches none of the collaborators
+        inventoryService = new InventoryServiceImpl(null, null, null, null, null, null);
+
+        Product product = new Product();
+        product.setId(1L);
+        batches = new ArrayList<>(batchCount);
+        for (int i = 0; i < batchCount; i++) {
+            batches.add(new InventoryBatch((long) i, "BATCH-" + i, 100, LocalDate.now().plusDays(i), 0L, product));
+        }
+    }
+
+    @Benchmark
+    public List<InventoryBatchDTO> convertToDTOs() {
+        return inventoryService.convertToDTOs(batches);
+    }
+}
@@ -0,0 +1,19 @@
+package com.korber.inventoryservice.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Enables caching; the caches themselves are configured through spring.cache.* properties.
+ * The cache advice runs outside the transaction advice, so a cache hit never borrows a connection from the pool
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+    
+    /**
+     * Cache of live inventory batch DTO lists keyed by product ID
+     */
+    public static final String INVENTORY_BATCHES_CACHE = "inventoryBatches";
+}
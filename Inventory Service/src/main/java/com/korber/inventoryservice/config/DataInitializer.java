@@ -5,26 +5,48 @@ import com.korber.inventoryservice.model.Product;
 import com.korber.inventoryservice.repository.InventoryBatchRepository;
 import com.korber.inventoryservice.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
- * Configuration class to initialize sample data for testing
+ * Configuration class to initialize sample data for testing.
+ * With inventory.seed.products set, a generated catalogue of that size is seeded instead, e.g. for load tests
  */
 @Configuration
 @RequiredArgsConstructor
+@Slf4j
 public class DataInitializer {
     
+    private static final int SEED_CHUNK_SIZE = 500;
+    
     private final ProductRepository productRepository;
     private final InventoryBatchRepository inventoryBatchRepository;
     
+    @Value("${inventory.seed.products:0}")
+    private int seedProducts;
+    
+    @Value("${inventory.seed.batches-per-product:3}")
+    private int seedBatchesPerProduct;
+    
+    @Value("${inventory.seed.batch-quantity:100}")
+    private int seedBatchQuantity;
+    
     @Bean
     public CommandLineRunner initData() {
         return args -> {
+            if (seedProducts > 0) {
+                seedCatalogue();
+                return;
+            }
+            
             // Create products
             Product product1 = new Product();
             product1.setName("Paracetamol");
@@ -89,4 +111,39 @@ public class DataInitializer {
             System.out.println("Sample data initialized successfully!");
         };
     }
+    
+    /**
+     * Seed seedProducts products with seedBatchesPerProduct batches of seedBatchQuantity each.
+     * Products get consecutive IDs from 1 on an empty database, and are saved in chunks so inserts are batched
+     */
+    private void seedCatalogue() {
+        LocalDate today = LocalDate.now();
+        for (int first = 0; first < seedProducts; first += SEED_CHUNK_SIZE) {
+            int last = Math.min(first + SEED_CHUNK_SIZE, seedProducts);
+            List<Product> products = new ArrayList<>(last - first);
+            for (int i = first; i < last; i++) {
+                Product product = new Product();
+                product.setName("Product " + (i + 1));
+                product.setDescription("Seeded product");
+                product.setSku(String.format("SEED-%06d", i + 1));
+                products.add(product);
+            }
+            productRepository.saveAll(products);
+            
+            List<InventoryBatch> batches = new ArrayList<>(products.size() * seedBatchesPerProduct);
+            for (Product product : products) {
+                for (int b = 0; b < seedBatchesPerProduct; b++) {
+                    InventoryBatch batch = new InventoryBatch();
+                    batch.setBatchNumber(product.getSku() + "-" + (b + 1));
+                    batch.setQuantity(seedBatchQuantity);
+                    batch.setExpiryDate(today.plusMonths(b + 1));
+                    batch.setProduct(product);
+                    batches.add(batch);
+                }
+            }
+            inventoryBatchRepository.saveAll(batches);
+        }
+        log.info("Seeded {} products with {} batches of {} units each",
+                seedProducts, seedBatchesPerProduct, seedBatchQuantity);
+    }
 }
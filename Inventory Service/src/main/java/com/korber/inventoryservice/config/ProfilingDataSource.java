@@ -0,0 +1,140 @@
+package com.korber.inventoryservice.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * DataSource whose statements report to the {@link QueryProfiler} while the current request is sampled.
+ * A query is recorded when its result set is closed, so the rows it returned are known; other statements are
+ * recorded as soon as they execute. Connections obtained outside a sampled request are returned unwrapped, so their
+ * JDBC calls go straight to the pool; statements run on them are not profiled.
+ */
+public class ProfilingDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final QueryProfiler queryProfiler;
+
+    public ProfilingDataSource(DataSource targetDataSource, QueryProfiler queryProfiler) {
+        super(targetDataSource);
+        this.queryProfiler = queryProfiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return queryProfiler.isProfiling() ? profiled(connection) : connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Connection connection = super.getConnection(username, password);
+        return queryProfiler.isProfiling() ? profiled(connection) : connection;
+    }
+
+    /**
+     * Close the pool behind this DataSource when the application shuts down
+     */
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Connection profiled(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            if (result instanceof Statement statement && queryProfiler.isProfiling()) {
+                String sql = method.getName().startsWith("prepare") ? (String) args[0] : null;
+                return profiled(statement, sql);
+            }
+            return result;
+        });
+    }
+
+    private Statement profiled(Statement statement, String preparedSql) {
+        Class<? extends Statement> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+        return proxy(type, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : "batch";
+            long start = System.nanoTime();
+            Object result = invoke(statement, method, args);
+            long elapsedNanos = System.nanoTime() - start;
+
+            if (result instanceof ResultSet resultSet) {
+                return profiled(resultSet, sql, elapsedNanos);
+            }
+            queryProfiler.record(sql, elapsedNanos, rows(result));
+            return result;
+        });
+    }
+
+    private ResultSet profiled(ResultSet resultSet, String sql, long elapsedNanos) {
+        long[] rows = new long[1];
+        boolean[] recorded = new boolean[1];
+        return proxy(ResultSet.class, (proxy, method, args) -> {
+            Object result = invoke(resultSet, method, args);
+            if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+                rows[0]++;
+            } else if ("close".equals(method.getName()) && !recorded[0]) {
+                recorded[0] = true;
+                queryProfiler.record(sql, elapsedNanos, rows[0]);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Get the rows written by an execute call
+     * @param result The value returned by execute, executeUpdate or executeBatch
+     * @return The rows written, or -1 if not known
+     */
+    private static long rows(Object result) {
+        if (result instanceof Number count) {
+            return count.longValue();
+        }
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) {
+                // Drivers may report Statement.SUCCESS_NO_INFO instead of a count
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        if (result instanceof long[] counts) {
+            long total = 0;
+            for (long count : counts) {
+                total += Math.max(count, 0);
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.korber.inventoryservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Profiles the SQL statements run by a sample of requests: the latency and rows of each statement, the statements
+ * run per request, and statements repeated within one request, the usual sign of an N+1 query.
+ * Outside a sampled request, obtaining a connection costs one thread-local lookup and the connection is not wrapped.
+ */
+@Slf4j
+public class QueryProfiler {
+
+    public static final String LATENCY_METRIC = "db.query.latency";
+    public static final String ROWS_METRIC = "db.query.rows";
+    public static final String STATEMENTS_METRIC = "db.query.statements";
+    public static final String N_PLUS_ONE_METRIC = "db.query.n_plus_one";
+
+    private static final Pattern TABLE = Pattern.compile("\\b(?:from|into|update)\\s+([\\w.]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final ThreadLocal<Map<String, Integer>> statementCounts = new ThreadLocal<>();
+    private final MeterRegistry meterRegistry;
+    private final double sampleRate;
+    private final int nPlusOneThreshold;
+
+    public QueryProfiler(MeterRegistry meterRegistry, double sampleRate, int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.sampleRate = sampleRate;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    /**
+     * Start profiling the current request if it is sampled
+     * @return true if the request is sampled and {@link #end(String)} must be called when it completes
+     */
+    public boolean begin() {
+        if (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return false;
+        }
+        statementCounts.set(new HashMap<>());
+        return true;
+    }
+
+    /**
+     * Finish profiling the current request and record its statement count and any repeated statements
+     * @param endpoint The endpoint that served the request, such as "POST /inventory/update"
+     */
+    public void end(String endpoint) {
+        Map<String, Integer> counts = statementCounts.get();
+        statementCounts.remove();
+        if (counts == null) {
+            return;
+        }
+
+        DistributionSummary.builder(STATEMENTS_METRIC)
+                .description("SQL statements run by a sampled request")
+                .tag("endpoint", endpoint)
+                .register(meterRegistry)
+                .record(counts.values().stream().mapToInt(Integer::intValue).sum());
+
+        counts.forEach((sql, count) -> {
+            if (count >= nPlusOneThreshold) {
+                Counter.builder(N_PLUS_ONE_METRIC)
+                        .description("Sampled requests that ran the same statement repeatedly")
+                        .tag("endpoint", endpoint)
+                        .tag("table", table(sql))
+                        .register(meterRegistry)
+                        .increment();
+                log.warn("Possible N+1 query: {} ran {} times in one request: {}", endpoint, count, sql);
+            }
+        });
+    }
+
+    /**
+     * Whether statements on the current thread belong to a sampled request
+     * @return true if statements should be profiled
+     */
+    boolean isProfiling() {
+        return statementCounts.get() != null;
+    }
+
+    /**
+     * Record one statement of the current request
+     * @param sql The SQL of the statement, with parameter placeholders
+     * @param elapsedNanos Time taken to execute the statement
+     * @param rows Rows read or written, or -1 if unknown
+     */
+    void record(String sql, long elapsedNanos, long rows) {
+        Map<String, Integer> counts = statementCounts.get();
+        if (counts == null) {
+            return;
+        }
+        counts.merge(sql, 1, Integer::sum);
+
+        String operation = operation(sql);
+        String table = table(sql);
+        Timer.builder(LATENCY_METRIC)
+                .description("Time taken to execute a SQL statement in a sampled request")
+                .tag("operation", operation)
+                .tag("table", table)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            DistributionSummary.builder(ROWS_METRIC)
+                    .description("Rows read or written by a SQL statement in a sampled request")
+                    .tag("operation", operation)
+                    .tag("table", table)
+                    .register(meterRegistry)
+                    .record(rows);
+        }
+    }
+
+    private static String operation(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return end == 0 ? "other" : trimmed.substring(0, end).toLowerCase(Locale.ROOT);
+    }
+
+    private static String table(String sql) {
+        Matcher matcher = TABLE.matcher(sql);
+        return matcher.find() ? matcher.group(1).toLowerCase(Locale.ROOT) : "none";
+    }
+}
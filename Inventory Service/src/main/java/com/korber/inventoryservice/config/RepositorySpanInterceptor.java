@@ -0,0 +1,63 @@
+package com.korber.inventoryservice.config;
+
+import com.korber.inventoryservice.model.InventoryBatch;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.repository.core.RepositoryInformation;
+
+import java.lang.reflect.Parameter;
+import java.util.Collection;
+
+/**
+ * Opens a span around each call to a Spring Data repository, named after the repository and method.
+ * The span is tagged with the product ID when the method takes one, and with the number of batches returned by
+ * inventory batch queries. Calls made outside a trace, such as those of the ledger flusher, are not traced.
+ */
+class RepositorySpanInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<Tracer> tracerProvider;
+    private final String repositoryName;
+    private final boolean returnsBatches;
+
+    RepositorySpanInterceptor(ObjectProvider<Tracer> tracerProvider, RepositoryInformation repositoryInformation) {
+        this.tracerProvider = tracerProvider;
+        this.repositoryName = repositoryInformation.getRepositoryInterface().getSimpleName();
+        this.returnsBatches = InventoryBatch.class.equals(repositoryInformation.getDomainType());
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Tracer tracer = tracerProvider.getIfAvailable(() -> Tracer.NOOP);
+        if (tracer.currentSpan() == null) {
+            return invocation.proceed();
+        }
+
+        Span span = tracer.nextSpan().name(repositoryName + "." + invocation.getMethod().getName());
+        tagProductId(span, invocation);
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span.start())) {
+            Object result = invocation.proceed();
+            if (returnsBatches && result instanceof Collection<?> batches) {
+                span.tag("batch.count", batches.size());
+            }
+            return result;
+        } catch (Throwable e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    private void tagProductId(Span span, MethodInvocation invocation) {
+        Parameter[] parameters = invocation.getMethod().getParameters();
+        Object[] arguments = invocation.getArguments();
+        for (int i = 0; i < parameters.length; i++) {
+            if ("productId".equals(parameters[i].getName()) && arguments[i] != null) {
+                span.tag("product.id", String.valueOf(arguments[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.korber.inventoryservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled background jobs such as inventory batch archival
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "inventory.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,44 @@
+package com.korber.inventoryservice.config;
+
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.nio.file.Path;
+
+/**
+ * Tracing beyond what Spring Boot instruments by itself.
+ * Boot traces incoming requests and continues the trace context sent by the Order Service; deductions are traced
+ * by the inventory service, repository calls by {@link RepositorySpanInterceptor}, and finished spans are written to
+ * a local file so traces can be read offline.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean(destroyMethod = "")
+    @ConditionalOnExpression("!'${tracing.export.file:}'.isEmpty()")
+    public JsonLinesSpanExporter jsonLinesSpanExporter(@Value("${tracing.export.file}") Path file) {
+        // Closed by the span processor when the tracer provider shuts down
+        return new JsonLinesSpanExporter(file);
+    }
+
+    @Bean
+    public static BeanPostProcessor repositorySpanPostProcessor(ObjectProvider<Tracer> tracerProvider) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    new RepositorySpanInterceptor(tracerProvider, information))));
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -3,10 +3,13 @@ package com.korber.inventoryservice.controller;
 import com.korber.inventoryservice.dto.InventoryBatchDTO;
 import com.korber.inventoryservice.dto.InventoryUpdateRequest;
 import com.korber.inventoryservice.dto.InventoryUpdateResponse;
+import com.korber.inventoryservice.exception.ErrorResponse;
 import com.korber.inventoryservice.exception.ResourceNotFoundException;
+import com.korber.inventoryservice.service.IdempotencyStore;
 import com.korber.inventoryservice.service.InventoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -29,16 +32,17 @@ import java.util.List;
 public class InventoryController {
     
     private final InventoryService inventoryService;
+    private final IdempotencyStore idempotencyStore;
     
     /**
-     * Get inventory batches for a product sorted by expiry date
+     * Get the live inventory batches for a product sorted by expiry date
      * @param productId The product ID
-     * @return List of inventory batches sorted by expiry date
+     * @return List of live inventory batches sorted by expiry date
      */
     @GetMapping("/{productId}")
     @Operation(
         summary = "Get inventory batches by product ID",
-        description = "Returns a list of inventory batches for the specified product, sorted by expiry date"
+        description = "Returns the live inventory batches for the specified product, sorted by expiry date. Exhausted and expired batches are not returned."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Successfully retrieved inventory batches", 
@@ -50,36 +54,65 @@ public class InventoryController {
             @Parameter(description = "ID of the product to retrieve inventory for", required = true) 
             @PathVariable Long productId) {
         List<InventoryBatchDTO> batches = inventoryService.getInventoryBatchesByProductId(productId);
-        
-        if (batches.isEmpty()) {
-            throw new ResourceNotFoundException("Product", "id", productId);
-        }
-        
         return ResponseEntity.ok(batches);
     }
     
     /**
      * Update inventory after an order is placed
      * @param request The inventory update request
+     * @param idempotencyKey Optional key; a request sent again with the same key gets the original response
      * @return Response indicating success or failure
      */
     @PostMapping("/update")
     @Operation(
         summary = "Update inventory",
-        description = "Updates inventory after an order is placed"
+        description = "Updates inventory after an order is placed. A request repeated with the same Idempotency-Key is answered with the original response and is not deducted again."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "200", description = "Inventory updated successfully", 
                     content = @Content(schema = @Schema(implementation = InventoryUpdateResponse.class))),
         @ApiResponse(responseCode = "400", description = "Failed to update inventory", 
-                    content = @Content(schema = @Schema(implementation = InventoryUpdateResponse.class)))
+                    content = @Content(schema = @Schema(implementation = InventoryUpdateResponse.class))),
+        @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request", 
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     public ResponseEntity<InventoryUpdateResponse> updateInventory(
             @Parameter(description = "Inventory update request details", required = true) 
-            @RequestBody InventoryUpdateRequest request) {
-        InventoryUpdateResponse response = inventoryService.updateInventory(request);
+            @RequestBody InventoryUpdateRequest request,
+            @Parameter(description = "Key identifying this deduction across retries") 
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        InventoryUpdateResponse response = idempotencyStore.execute("update", idempotencyKey, request,
+                () -> inventoryService.updateInventory(request));
         
         HttpStatus status = response.isSuccess() ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
         return new ResponseEntity<>(response, status);
     }
+    
+    /**
+     * Update inventory for all lines of an order in a single transaction
+     * @param requests The inventory update requests, one per order line
+     * @param idempotencyKey Optional key; a request sent again with the same key gets the original response
+     * @return One response per request, in request order
+     */
+    @PostMapping("/update/batch")
+    @Operation(
+        summary = "Update inventory in batch",
+        description = "Updates inventory for several order lines in one transaction. Either all lines are deducted or none are. A request repeated with the same Idempotency-Key is answered with the original response and is not deducted again."
+    )
+    @ApiResponses({
+        @ApiResponse(responseCode = "200", description = "All lines updated successfully", 
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = InventoryUpdateResponse.class)))),
+        @ApiResponse(responseCode = "400", description = "At least one line failed, nothing was updated", 
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = InventoryUpdateResponse.class)))),
+        @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request", 
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    public ResponseEntity<List<InventoryUpdateResponse>> updateInventoryBatch(
+            @Parameter(description = "Inventory update requests, one per order line", required = true) 
+            @RequestBody List<InventoryUpdateRequest> requests,
+            @Parameter(description = "Key identifying this deduction across retries") 
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return ResponseEntity.ok(idempotencyStore.execute("update-batch", idempotencyKey, requests,
+                () -> inventoryService.updateInventoryBatch(requests)));
+    }
 }
@@ -15,4 +15,5 @@ public class InventoryUpdateResponse {
     private String message;
     private Long productId;
     private Integer updatedQuantity;
+    private Integer remainingQuantity;
 }
@@ -0,0 +1,16 @@
+package com.korber.inventoryservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when a deduction keeps conflicting with concurrent deductions
+ * and the retry budget is exhausted
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConcurrentInventoryUpdateException extends RuntimeException {
+    
+    public ConcurrentInventoryUpdateException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
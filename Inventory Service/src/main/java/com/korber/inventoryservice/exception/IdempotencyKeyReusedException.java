@@ -0,0 +1,11 @@
+package com.korber.inventoryservice.exception;
+
+/**
+ * Exception thrown when an Idempotency-Key is sent again with a different request body
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+    
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency-Key " + key + " was already used for a different request");
+    }
+}
@@ -0,0 +1,21 @@
+package com.korber.inventoryservice.exception;
+
+import com.korber.inventoryservice.dto.InventoryUpdateResponse;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Exception thrown when at least one line of a batch inventory update cannot be fulfilled.
+ * Carries the per-line responses so the caller can see which line was rejected.
+ */
+@Getter
+public class InventoryBatchUpdateException extends RuntimeException {
+    
+    private final List<InventoryUpdateResponse> responses;
+    
+    public InventoryBatchUpdateException(String message, List<InventoryUpdateResponse> responses) {
+        super(message);
+        this.responses = responses;
+    }
+}
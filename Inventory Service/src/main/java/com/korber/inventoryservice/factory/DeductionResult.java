@@ -0,0 +1,37 @@
+package com.korber.inventoryservice.factory;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Outcome of a conditional inventory deduction.
+ * A deduction is either granted in full or denied without touching any batch.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class DeductionResult {
+    
+    private final boolean granted;
+    private final int remainingQuantity;
+    private final int batchesTouched;
+    
+    /**
+     * The full quantity was deducted
+     * @param remainingQuantity Stock left for the product after the deduction
+     * @param batchesTouched Number of batches the quantity was taken from
+     * @return The deduction result
+     */
+    public static DeductionResult granted(int remainingQuantity, int batchesTouched) {
+        return new DeductionResult(true, remainingQuantity, batchesTouched);
+    }
+    
+    /**
+     * Nothing was deducted because the product is unknown or stock is insufficient
+     * @param remainingQuantity Stock currently available for the product
+     * @return The deduction result
+     */
+    public static DeductionResult denied(int remainingQuantity) {
+        return new DeductionResult(false, remainingQuantity, 0);
+    }
+}
@@ -0,0 +1,62 @@
+package com.korber.inventoryservice.factory;
+
+import com.korber.inventoryservice.model.InventoryBatch;
+
+import java.util.List;
+
+/**
+ * FEFO (First Expired First Out) allocation over the live batches of one product.
+ * Successive deductions continue from where the previous one stopped, so several
+ * requests can be applied to the same loaded batches without re-reading them.
+ */
+class FefoAllocation {
+    
+    private final List<InventoryBatch> batches;
+    private int availableQuantity;
+    private int cursor;
+    
+    /**
+     * @param liveBatches The live batches of the product sorted by expiry date
+     */
+    FefoAllocation(List<InventoryBatch> liveBatches) {
+        this.batches = liveBatches;
+        this.availableQuantity = liveBatches.stream()
+                .mapToInt(InventoryBatch::getQuantity)
+                .sum();
+    }
+    
+    /**
+     * Deduct the full quantity from the earliest-expiring batches, or nothing at all
+     * @param quantityToReduce The quantity to reduce from inventory
+     * @return Whether the deduction was granted, with the stock remaining afterwards
+     */
+    DeductionResult deduct(int quantityToReduce) {
+        // Deny without touching any batch if the full quantity cannot be fulfilled
+        if (availableQuantity < quantityToReduce) {
+            return DeductionResult.denied(availableQuantity);
+        }
+        
+        int remainingQuantity = quantityToReduce;
+        int batchesTouched = 0;
+        
+        while (remainingQuantity > 0) {
+            InventoryBatch batch = batches.get(cursor);
+            batchesTouched++;
+            int currentBatchQuantity = batch.getQuantity();
+            
+            if (currentBatchQuantity <= remainingQuantity) {
+                // Use up entire batch
+                remainingQuantity -= currentBatchQuantity;
+                batch.setQuantity(0);
+                cursor++;
+            } else {
+                // Use part of the batch
+                batch.setQuantity(currentBatchQuantity - remainingQuantity);
+                remainingQuantity = 0;
+            }
+        }
+        
+        availableQuantity -= quantityToReduce;
+        return DeductionResult.granted(availableQuantity, batchesTouched);
+    }
+}
@@ -11,19 +11,23 @@ import java.util.List;
 public interface InventoryHandler {
     
     /**
-     * Get inventory batches for a product sorted by expiry date
+     * Get the live inventory batches for a product sorted by expiry date.
+     * Exhausted and expired batches are not returned.
      * @param product The product to get batches for
-     * @return List of inventory batches sorted by expiry date
+     * @return List of live inventory batches sorted by expiry date
      */
     List<InventoryBatch> getInventoryBatchesByExpiryDate(Product product);
     
     /**
-     * Update inventory after an order is placed
+     * Deduct inventory after an order is placed if, and only if, enough stock is available.
+     * Availability check and deduction happen atomically, so a denied request leaves every batch untouched.
+     * A deduction that races with another one on the same batches fails on commit with an
+     * {@link org.springframework.dao.OptimisticLockingFailureException} and may be retried.
      * @param productId The product ID
      * @param quantity The quantity to reduce from inventory
-     * @return true if inventory was updated successfully, false otherwise
+     * @return Whether the deduction was granted, with the stock remaining for the product
      */
-    boolean updateInventory(Long productId, int quantity);
+    DeductionResult updateInventory(Long productId, int quantity);
     
     /**
      * Get the type of inventory handler
@@ -0,0 +1,419 @@
+package com.korber.inventoryservice.factory;
+
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.LedgerCheckpoint;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.LedgerCheckpointRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.InventoryBatchCacheEvictor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind inventory handler for high-volume products.
+ * Live batch quantities are kept in memory and deductions are answered from there without a
+ * database transaction. Every granted deduction is appended to a write-ahead log on local disk
+ * before it is acknowledged, and the accumulated changes are written to inventory_batches
+ * periodically. On startup, logged deductions not yet in the database are replayed into it.
+ * Products deducted through this handler must not be deducted through another handler as well,
+ * since the in-memory quantities would no longer match the database.
+ * Locks are ReentrantLocks rather than monitors because they are held across file and database I/O,
+ * which would pin the carrier thread of a virtual thread.
+ */
+@Component
+@Slf4j
+public class LedgerInventoryHandler implements InventoryHandler, SmartInitializingSingleton, DisposableBean {
+
+    private static final String APPLY_DELTA_SQL =
+            "update inventory_batches set quantity = quantity - ?, version = version + 1 where id = ?";
+
+    private final ProductRepository productRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final LedgerCheckpointRepository ledgerCheckpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryBatchCacheEvictor inventoryBatchCacheEvictor;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+    private final long flushIntervalMillis;
+    private final LedgerWriteAheadLog writeAheadLog;
+    private final Map<Long, ProductLedger> ledgers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Guards writeAheadLog, dirtyLedgers and the unflushed and retired fields of ledgers
+    private final ReentrantLock walLock = new ReentrantLock();
+    private final Set<ProductLedger> dirtyLedgers = new HashSet<>();
+
+    // Guards flushedSequence and serializes flushes with ledger retirement
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private long flushedSequence;
+
+    public LedgerInventoryHandler(
+            ProductRepository productRepository,
+            InventoryBatchRepository inventoryBatchRepository,
+            LedgerCheckpointRepository ledgerCheckpointRepository,
+            JdbcTemplate jdbcTemplate,
+            InventoryBatchCacheEvictor inventoryBatchCacheEvictor,
+            PlatformTransactionManager transactionManager,
+            @Value("${inventory.ledger.wal-dir:data/ledger}") Path walDirectory,
+            @Value("${inventory.ledger.wal-sync:true}") boolean syncWrites,
+            @Value("${inventory.ledger.instance-id:default}") String instanceId,
+            @Value("${inventory.ledger.flush-interval-ms:200}") long flushIntervalMillis) {
+        this.productRepository = productRepository;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.ledgerCheckpointRepository = ledgerCheckpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryBatchCacheEvictor = inventoryBatchCacheEvictor;
+        // Flushes must commit on their own, even when triggered from inside a caller's transaction
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.instanceId = instanceId;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.writeAheadLog = new LedgerWriteAheadLog(walDirectory, syncWrites);
+    }
+
+    /**
+     * Replay logged deductions missing from the database, then start the periodic flush
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            long checkpoint = ledgerCheckpointRepository.findById(instanceId)
+                    .map(LedgerCheckpoint::getLastSequence)
+                    .orElse(0L);
+
+            Map<Long, Integer> deltas = new LinkedHashMap<>();
+            long lastSequence = checkpoint;
+            int replayed = 0;
+            for (LedgerWriteAheadLog.Record record : writeAheadLog.readAll()) {
+                if (record.sequence() > checkpoint) {
+                    for (int i = 0; i < record.batchIds().length; i++) {
+                        deltas.merge(record.batchIds()[i], record.deltas()[i], Integer::sum);
+                    }
+                    replayed++;
+                }
+                lastSequence = Math.max(lastSequence, record.sequence());
+            }
+
+            List<Path> recoveredSegments = writeAheadLog.open(lastSequence);
+            if (lastSequence > checkpoint) {
+                write(deltas, lastSequence);
+                log.info("Replayed {} ledger records up to sequence {} into inventory_batches", replayed, lastSequence);
+            }
+            writeAheadLog.delete(recoveredSegments);
+            flushedSequence = lastSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not recover the inventory ledger", e);
+        }
+
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<InventoryBatch> getInventoryBatchesByExpiryDate(Product product) {
+        // Quantities in the database lag the ledger by at most one flush interval
+        return inventoryBatchRepository.findLiveByProductId(product.getId(), LocalDate.now());
+    }
+
+    @Override
+    public DeductionResult updateInventory(Long productId, int quantityToReduce) {
+        if (quantityToReduce <= 0) {
+            // A negative quantity would raise the available quantity with no batch behind it
+            throw new IllegalArgumentException("Quantity to deduct must be positive, was " + quantityToReduce);
+        }
+        while (true) {
+            ProductLedger ledger = ledgerFor(productId);
+            if (ledger == null) {
+                return DeductionResult.denied(0);
+            }
+
+            ProductLedger.Reservation reservation = ledger.reserve(quantityToReduce);
+            if (reservation == null) {
+                return DeductionResult.denied(ledger.available());
+            }
+
+            if (!append(ledger, reservation.taken(), false)) {
+                // The ledger was replaced while reserving; retry against the current one
+                ledger.release(reservation.taken());
+                continue;
+            }
+
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Keep multi-line batches all-or-nothing: give the stock back if the caller rolls back
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        if (status == STATUS_ROLLED_BACK) {
+                            compensate(ledger, reservation.taken());
+                        }
+                    }
+                });
+            }
+            return DeductionResult.granted(reservation.remainingQuantity(), reservation.batchesTouched());
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "LEDGER";
+    }
+
+    /**
+     * Write every acknowledged deduction to inventory_batches now
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Pending> pending = new ArrayList<>();
+            long sequence;
+            List<Path> segments;
+
+            walLock.lock();
+            try {
+                sequence = writeAheadLog.lastSequence();
+                if (sequence == flushedSequence) {
+                    return;
+                }
+                for (ProductLedger ledger : dirtyLedgers) {
+                    int[] unflushed = ledger.unflushed();
+                    for (int i = 0; i < unflushed.length; i++) {
+                        if (unflushed[i] != 0) {
+                            pending.add(new Pending(ledger, i, unflushed[i]));
+                            unflushed[i] = 0;
+                        }
+                    }
+                }
+                dirtyLedgers.clear();
+                try {
+                    segments = writeAheadLog.rotate();
+                } catch (IOException e) {
+                    restore(pending);
+                    throw new UncheckedIOException("Could not rotate the inventory ledger log", e);
+                }
+            } finally {
+                walLock.unlock();
+            }
+
+            Map<Long, Integer> deltas = new LinkedHashMap<>();
+            pending.forEach(entry -> deltas.merge(entry.ledger().batchIds()[entry.index()], entry.delta(), Integer::sum));
+            try {
+                write(deltas, sequence);
+            } catch (RuntimeException e) {
+                // Keep the changes in memory and the segments on disk for the next attempt
+                walLock.lock();
+                try {
+                    restore(pending);
+                } finally {
+                    walLock.unlock();
+                }
+                throw e;
+            }
+            writeAheadLog.delete(segments);
+            flushedSequence = sequence;
+            // Batch lists are read from the database, so they only change once the flush has committed
+            inventoryBatchCacheEvictor.evict(pending.stream()
+                    .map(entry -> entry.ledger().productId())
+                    .collect(Collectors.toSet()));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        flusher.shutdown();
+        try {
+            flush();
+        } finally {
+            walLock.lock();
+            try {
+                writeAheadLog.close();
+            } finally {
+                walLock.unlock();
+            }
+        }
+    }
+
+    private ProductLedger ledgerFor(Long productId) {
+        ProductLedger ledger = ledgers.get(productId);
+        if (ledger != null && ledger.loadedOn().isBefore(LocalDate.now())) {
+            retire(ledger);
+            ledger = null;
+        }
+        if (ledger == null) {
+            // Loaded outside computeIfAbsent, which would hold a map lock during the query;
+            // if another thread installs a ledger first, this one is discarded
+            ProductLedger loaded = load(productId);
+            if (loaded == null) {
+                return null;
+            }
+            ledger = ledgers.putIfAbsent(productId, loaded);
+            if (ledger == null) {
+                ledger = loaded;
+            }
+        }
+        return ledger;
+    }
+
+    private ProductLedger load(Long productId) {
+        if (!productRepository.existsById(productId)) {
+            return null;
+        }
+        LocalDate today = LocalDate.now();
+        return new ProductLedger(productId, inventoryBatchRepository.findLiveByProductId(productId, today), today);
+    }
+
+    /**
+     * Replace a ledger loaded on an earlier day, so batches that expired since are no longer used
+     */
+    private void retire(ProductLedger ledger) {
+        flushLock.lock();
+        try {
+            if (ledgers.get(ledger.productId()) != ledger) {
+                return;
+            }
+            walLock.lock();
+            try {
+                ledger.retire();
+            } finally {
+                walLock.unlock();
+            }
+            // Everything logged against the old ledger must be in the database before it is reloaded
+            flush();
+            ledgers.remove(ledger.productId(), ledger);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Append a change to the log and record it for the next flush, then wait until it is on disk.
+     * The wait happens outside walLock, so concurrent appends share one fsync (group commit).
+     * @return false if the ledger has been retired and the change was not logged
+     */
+    private boolean append(ProductLedger ledger, int[] taken, boolean reversal) {
+        int[] deltas = taken;
+        if (reversal) {
+            deltas = new int[taken.length];
+            for (int i = 0; i < taken.length; i++) {
+                deltas[i] = -taken[i];
+            }
+        }
+
+        long sequence;
+        walLock.lock();
+        try {
+            if (ledger.isRetired() && !reversal) {
+                return false;
+            }
+            try {
+                sequence = writeAheadLog.append(ledger.productId(), ledger.batchIds(), deltas);
+            } catch (IOException e) {
+                // A partial record ends its segment; continue in a new one
+                try {
+                    writeAheadLog.rotate();
+                } catch (IOException rotateFailure) {
+                    e.addSuppressed(rotateFailure);
+                }
+                if (!reversal) {
+                    ledger.release(taken);
+                }
+                throw new UncheckedIOException("Could not log inventory deduction for product ID " + ledger.productId(), e);
+            }
+            for (int i = 0; i < deltas.length; i++) {
+                ledger.unflushed()[i] += deltas[i];
+            }
+            dirtyLedgers.add(ledger);
+        } finally {
+            walLock.unlock();
+        }
+
+        try {
+            writeAheadLog.sync(sequence);
+        } catch (IOException e) {
+            // The change stays in the ledger and reaches the database with the next flush; failing the request
+            // can undersell, but giving the stock back could oversell if the record did reach the disk
+            throw new UncheckedIOException("Could not force inventory deduction for product ID "
+                    + ledger.productId() + " to disk", e);
+        }
+        return true;
+    }
+
+    private void compensate(ProductLedger ledger, int[] taken) {
+        try {
+            append(ledger, taken, true);
+            ledger.release(taken);
+        } catch (RuntimeException e) {
+            // Without the log record the stock stays deducted, which can undersell but never oversell
+            log.error("Could not give back rolled-back deduction for product ID {}: {}", ledger.productId(), e.getMessage());
+        }
+    }
+
+    private void restore(List<Pending> pending) {
+        for (Pending entry : pending) {
+            entry.ledger().unflushed()[entry.index()] += entry.delta();
+            dirtyLedgers.add(entry.ledger());
+        }
+    }
+
+    private void write(Map<Long, Integer> deltas, long sequence) {
+        List<Object[]> arguments = new ArrayList<>(deltas.size());
+        deltas.forEach((batchId, delta) -> {
+            if (delta != 0) {
+                arguments.add(new Object[]{delta, batchId});
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!arguments.isEmpty()) {
+                jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, arguments);
+            }
+            ledgerCheckpointRepository.save(new LedgerCheckpoint(instanceId, sequence));
+        });
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Inventory ledger flush failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * A change to one batch taken out of a ledger for a flush
+     */
+    private record Pending(ProductLedger ledger, int index, int delta) {
+    }
+}
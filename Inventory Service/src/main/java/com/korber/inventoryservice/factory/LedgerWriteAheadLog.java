@@ -0,0 +1,293 @@
+package com.korber.inventoryservice.factory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of ledger deductions on local disk, split into segments.
+ * Each record is length-prefixed and ends with a CRC32, so a record torn by a crash
+ * is detected and ignored on recovery. The handler serializes every call except {@link #sync(long)}.
+ * In sync mode appends are made durable by group commit: an append only writes its record, and
+ * {@link #sync(long)}, called outside the handler's lock, forces everything written so far with one
+ * fsync, so callers that queued behind a running fsync share the next one.
+ */
+class LedgerWriteAheadLog implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final Path directory;
+    private final boolean syncWrites;
+    // Held while forcing or closing the channel, so a force never runs against a closed segment
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private volatile FileChannel channel;
+    private Path currentSegment;
+    private volatile long lastSequence;
+    private volatile long durableSequence;
+    // Records of a segment that was closed without being forced; they cannot be reported durable.
+    // Written before durableSequence moves past them
+    private volatile long unsyncedFrom;
+    private volatile long unsyncedTo;
+
+    /**
+     * @param directory The directory holding the log segments
+     * @param syncWrites Whether {@link #sync(long)} forces appended records to disk
+     */
+    LedgerWriteAheadLog(Path directory, boolean syncWrites) {
+        this.directory = directory;
+        this.syncWrites = syncWrites;
+    }
+
+    /**
+     * Read every intact record of every segment, oldest first
+     * @return The records found on disk
+     */
+    List<Record> readAll() throws IOException {
+        List<Record> records = new ArrayList<>();
+        for (Path segment : segments()) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+            while (buffer.remaining() >= Integer.BYTES) {
+                int length = buffer.getInt();
+                if (length <= 0 || buffer.remaining() < length + Integer.BYTES) {
+                    break; // Torn tail of the last write before a crash
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                if (checksum(payload) != buffer.getInt()) {
+                    break;
+                }
+                records.add(Record.decode(ByteBuffer.wrap(payload)));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Start a new segment after recovery
+     * @param lastSequence The highest sequence already used
+     * @return The segments that existed before, to delete once their records are in the database
+     */
+    List<Path> open(long lastSequence) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> existing = segments();
+        this.lastSequence = lastSequence;
+        this.durableSequence = lastSequence;
+        startSegment();
+        existing.remove(currentSegment);
+        return existing;
+    }
+
+    /**
+     * Append one deduction, or the reversal of one.
+     * The record is written but not forced to disk; call {@link #sync(long)} before acknowledging it.
+     * @param productId The product ID
+     * @param batchIds The batch IDs of the product's ledger
+     * @param deltas The quantity taken from each batch; negative to give it back
+     * @return The sequence of the record
+     */
+    long append(long productId, long[] batchIds, int[] deltas) throws IOException {
+        int entries = 0;
+        for (int delta : deltas) {
+            if (delta != 0) {
+                entries++;
+            }
+        }
+
+        long sequence = lastSequence + 1;
+        ByteBuffer payload = ByteBuffer.allocate(Long.BYTES * 2 + Integer.BYTES
+                + entries * (Long.BYTES + Integer.BYTES));
+        payload.putLong(sequence).putLong(productId).putInt(entries);
+        for (int i = 0; i < deltas.length; i++) {
+            if (deltas[i] != 0) {
+                payload.putLong(batchIds[i]).putInt(deltas[i]);
+            }
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(payload.capacity() + Integer.BYTES * 2);
+        record.putInt(payload.capacity()).put(payload.array()).putInt(checksum(payload.array())).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    /**
+     * Wait until a record is on disk. One call forces every record written so far, so concurrent callers
+     * wait for a single fsync rather than one each. Does nothing unless sync writes are on.
+     * @param sequence The sequence returned by {@link #append}
+     * @throws IOException if the record may not have reached the disk
+     */
+    void sync(long sequence) throws IOException {
+        if (!syncWrites) {
+            return;
+        }
+        long durable = durableSequence;
+        checkNotLost(sequence);
+        if (durable >= sequence) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            checkNotLost(sequence);
+            if (durableSequence >= sequence) {
+                return; // Forced by the caller that held the lock before us
+            }
+            // Records are written before lastSequence moves, so everything up to it is in the channel
+            long upTo = lastSequence;
+            channel.force(false);
+            durableSequence = upTo;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * Close the current segment and continue in a new one
+     * @return Every segment before the new one
+     */
+    List<Path> rotate() throws IOException {
+        syncLock.lock();
+        try {
+            if (syncWrites && durableSequence < lastSequence) {
+                try {
+                    channel.force(false);
+                    durableSequence = lastSequence;
+                } catch (IOException e) {
+                    unsyncedFrom = durableSequence;
+                    unsyncedTo = lastSequence;
+                    durableSequence = lastSequence;
+                    closeAndStartSegment();
+                    throw e;
+                }
+            }
+            closeAndStartSegment();
+        } finally {
+            syncLock.unlock();
+        }
+        List<Path> previous = segments();
+        previous.remove(currentSegment);
+        return previous;
+    }
+
+    /**
+     * Delete segments whose records are all in the database
+     * @param segments The segments to delete
+     */
+    void delete(List<Path> segments) {
+        for (Path segment : segments) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Get the sequence of the last appended record
+     * @return The last sequence
+     */
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Get the sequence of the last record known to be on disk
+     * @return The last durable sequence
+     */
+    long durableSequence() {
+        return durableSequence;
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncLock.lock();
+        try {
+            if (channel != null) {
+                if (syncWrites) {
+                    channel.force(false);
+                }
+                channel.close();
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void checkNotLost(long sequence) throws IOException {
+        if (sequence > unsyncedFrom && sequence <= unsyncedTo) {
+            throw new IOException("Segment holding record " + sequence + " was closed before it was forced");
+        }
+    }
+
+    private void closeAndStartSegment() throws IOException {
+        try {
+            channel.close();
+        } finally {
+            // A torn record must end its segment, so continue in a new one even if closing failed
+            startSegment();
+        }
+    }
+
+    private void startSegment() throws IOException {
+        // Named after the first sequence it will hold; any file already there holds no intact record above lastSequence
+        currentSegment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, lastSequence + 1, SEGMENT_SUFFIX));
+        channel = FileChannel.open(currentSegment, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList());
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * One logged deduction
+     * @param sequence The position of the record in the log
+     * @param productId The product ID
+     * @param batchIds The batches touched
+     * @param deltas The quantity taken from each batch; negative when given back
+     */
+    record Record(long sequence, long productId, long[] batchIds, int[] deltas) {
+
+        private static Record decode(ByteBuffer payload) {
+            long sequence = payload.getLong();
+            long productId = payload.getLong();
+            int entries = payload.getInt();
+            long[] batchIds = new long[entries];
+            int[] deltas = new int[entries];
+            for (int i = 0; i < entries; i++) {
+                batchIds[i] = payload.getLong();
+                deltas[i] = payload.getInt();
+            }
+            return new Record(sequence, productId, batchIds, deltas);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.korber.inventoryservice.factory;
+
+import com.korber.inventoryservice.model.InventoryBatch;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * In-memory live batch quantities of one product, in FEFO order.
+ * Deductions are lock-free: the total is reserved with a compare-and-set first, and the reserved
+ * quantity is then taken from the batches, which always hold at least what has been reserved.
+ */
+class ProductLedger {
+
+    private final long productId;
+    private final long[] batchIds;
+    private final LocalDate loadedOn;
+    private final AtomicIntegerArray quantities;
+    private final AtomicInteger availableQuantity;
+
+    // Guarded by the owning handler's write-ahead log lock
+    private final int[] unflushed;
+    private boolean retired;
+
+    /**
+     * @param productId The product ID
+     * @param liveBatches The live batches of the product sorted by expiry date
+     * @param loadedOn The day the live batches were read; batches may expire after it
+     */
+    ProductLedger(long productId, List<InventoryBatch> liveBatches, LocalDate loadedOn) {
+        this.productId = productId;
+        this.loadedOn = loadedOn;
+        this.batchIds = new long[liveBatches.size()];
+        this.quantities = new AtomicIntegerArray(liveBatches.size());
+        this.unflushed = new int[liveBatches.size()];
+
+        int total = 0;
+        for (int i = 0; i < liveBatches.size(); i++) {
+            batchIds[i] = liveBatches.get(i).getId();
+            quantities.set(i, liveBatches.get(i).getQuantity());
+            total += liveBatches.get(i).getQuantity();
+        }
+        this.availableQuantity = new AtomicInteger(total);
+    }
+
+    /**
+     * Take the full quantity from the earliest-expiring batches, or nothing at all
+     * @param quantityToReduce The quantity to reduce; must be positive
+     * @return The quantity taken from each batch, or null if there is not enough stock
+     * @throws IllegalStateException if the batches hold less than the reserved quantity; nothing is taken
+     */
+    Reservation reserve(int quantityToReduce) {
+        if (quantityToReduce <= 0) {
+            throw new IllegalArgumentException("Quantity to reduce must be positive, was " + quantityToReduce);
+        }
+        int available;
+        do {
+            available = availableQuantity.get();
+            if (available < quantityToReduce) {
+                return null;
+            }
+        } while (!availableQuantity.compareAndSet(available, available - quantityToReduce));
+
+        int[] taken = new int[batchIds.length];
+        int remainingQuantity = quantityToReduce;
+        for (int i = 0; i < batchIds.length && remainingQuantity > 0; i++) {
+            int current = quantities.get(i);
+            while (current > 0 && remainingQuantity > 0) {
+                int take = Math.min(current, remainingQuantity);
+                if (quantities.compareAndSet(i, current, current - take)) {
+                    taken[i] += take;
+                    remainingQuantity -= take;
+                }
+                current = quantities.get(i);
+            }
+        }
+        if (remainingQuantity != 0) {
+            // Granting it would confirm units no batch holds
+            release(taken);
+            availableQuantity.addAndGet(remainingQuantity);
+            throw new IllegalStateException("Batches of product " + productId + " hold less than its available "
+                    + "quantity; " + remainingQuantity + " of " + quantityToReduce + " units could not be taken");
+        }
+        return new Reservation(taken, available - quantityToReduce);
+    }
+
+    /**
+     * Put a reservation back, for example when it could not be logged
+     * @param taken The quantity taken from each batch
+     */
+    void release(int[] taken) {
+        int total = 0;
+        for (int i = 0; i < taken.length; i++) {
+            if (taken[i] != 0) {
+                quantities.addAndGet(i, taken[i]);
+                total += taken[i];
+            }
+        }
+        availableQuantity.addAndGet(total);
+    }
+
+    /**
+     * Get the quantity not yet reserved
+     * @return The available quantity
+     */
+    int available() {
+        return availableQuantity.get();
+    }
+
+    /**
+     * Get the product ID
+     * @return The product ID
+     */
+    long productId() {
+        return productId;
+    }
+
+    /**
+     * Get the batch IDs, in FEFO order
+     * @return The batch IDs, indexed like the quantities of a reservation
+     */
+    long[] batchIds() {
+        return batchIds;
+    }
+
+    /**
+     * Get the day the live batches were read
+     * @return The day the ledger was loaded
+     */
+    LocalDate loadedOn() {
+        return loadedOn;
+    }
+
+    /**
+     * Get the quantity taken from each batch and not yet written to the database; guarded by the write-ahead log lock
+     * @return The unflushed quantities, indexed like the batch IDs
+     */
+    int[] unflushed() {
+        return unflushed;
+    }
+
+    /**
+     * Whether the ledger was replaced and must take no new deductions; guarded by the write-ahead log lock
+     * @return true once retired
+     */
+    boolean isRetired() {
+        return retired;
+    }
+
+    /**
+     * Stop the ledger taking new deductions; guarded by the write-ahead log lock
+     */
+    void retire() {
+        retired = true;
+    }
+
+    /**
+     * Quantity taken from each batch by one granted deduction
+     * @param taken The quantity taken from each batch, indexed like the ledger's batches
+     * @param remainingQuantity The stock remaining right after the deduction
+     */
+    record Reservation(int[] taken, int remainingQuantity) {
+
+        /**
+         * Get the number of batches the reservation took stock from
+         * @return The number of batches touched
+         */
+        int batchesTouched() {
+            int touched = 0;
+            for (int quantity : taken) {
+                if (quantity != 0) {
+                    touched++;
+                }
+            }
+            return touched;
+        }
+    }
+}
@@ -4,14 +4,13 @@ import com.korber.inventoryservice.model.InventoryBatch;
 import com.korber.inventoryservice.model.Product;
 import com.korber.inventoryservice.repository.InventoryBatchRepository;
 import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.InventoryBatchCacheEvictor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Standard implementation of the InventoryHandler interface
@@ -23,49 +22,35 @@ public class StandardInventoryHandler implements InventoryHandler {
     
     private final ProductRepository productRepository;
     private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryBatchCacheEvictor inventoryBatchCacheEvictor;
     
     @Override
     public List<InventoryBatch> getInventoryBatchesByExpiryDate(Product product) {
-        List<InventoryBatch> batches = inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(product.getId());
-        return batches;
+        return inventoryBatchRepository.findLiveByProductId(product.getId(), LocalDate.now());
     }
     
     @Override
     @Transactional
-    public boolean updateInventory(Long productId, int quantityToReduce) {
-        Optional<Product> productOpt = productRepository.findById(productId);
-        
-        if (productOpt.isEmpty()) {
-            return false;
+    public DeductionResult updateInventory(Long productId, int quantityToReduce) {
+        if (quantityToReduce <= 0) {
+            // FefoAllocation would grant it, and a negative quantity would report more stock than there is
+            throw new IllegalArgumentException("Quantity to deduct must be positive, was " + quantityToReduce);
+        }
+        if (!productRepository.existsById(productId)) {
+            return DeductionResult.denied(0);
         }
         
-        Product product = productOpt.get();
-        List<InventoryBatch> batches = inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId);
-        
-        int remainingQuantity = quantityToReduce;
+        // No row locks are taken: every deduction writes the earliest live batch, so two concurrent
+        // deductions always collide on its version and the loser fails on commit and is retried
+        List<InventoryBatch> batches = inventoryBatchRepository.findLiveByProductId(productId, LocalDate.now());
         
-        for (InventoryBatch batch : batches) {
-            if (remainingQuantity <= 0) {
-                break;
-            }
-            
-            int currentBatchQuantity = batch.getQuantity();
-            
-            if (currentBatchQuantity <= remainingQuantity) {
-                // Use up entire batch
-                remainingQuantity -= currentBatchQuantity;
-                batch.setQuantity(0);
-            } else {
-                // Use part of the batch
-                batch.setQuantity(currentBatchQuantity - remainingQuantity);
-                remainingQuantity = 0;
-            }
-            
-            inventoryBatchRepository.save(batch);
+        // The batches are managed entities, so only the ones changed here are written on commit,
+        // grouped into a single JDBC batch
+        DeductionResult result = new FefoAllocation(batches).deduct(quantityToReduce);
+        if (result.isGranted()) {
+            inventoryBatchCacheEvictor.evictAfterCommit(productId);
         }
-        
-        // If we couldn't fulfill the entire quantity, return false
-        return remainingQuantity == 0;
+        return result;
     }
     
     @Override
@@ -0,0 +1,276 @@
+package com.korber.inventoryservice.factory;
+
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.DeductionRetryExecutor;
+import com.korber.inventoryservice.service.InventoryBatchCacheEvictor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Inventory handler for hot products.
+ * Deductions are routed to a single writer thread per product stripe; the writer drains
+ * everything queued for a product and applies it with one read and one batched write,
+ * instead of one contended transaction per request.
+ * Uses the same FEFO strategy as {@link StandardInventoryHandler}.
+ * Writer threads start once the context is refreshed and stop with it.
+ */
+@Component
+@Slf4j
+public class StripedInventoryHandler implements InventoryHandler, SmartInitializingSingleton, DisposableBean {
+
+    private final ProductRepository productRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final DeductionRetryExecutor deductionRetryExecutor;
+    private final InventoryBatchCacheEvictor inventoryBatchCacheEvictor;
+    private final Stripe[] stripes;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final long resultTimeoutMillis;
+    private volatile boolean running;
+
+    public StripedInventoryHandler(
+            ProductRepository productRepository,
+            InventoryBatchRepository inventoryBatchRepository,
+            TransactionTemplate transactionTemplate,
+            DeductionRetryExecutor deductionRetryExecutor,
+            InventoryBatchCacheEvictor inventoryBatchCacheEvictor,
+            @Value("${inventory.striped.stripes:0}") int stripeCount,
+            @Value("${inventory.striped.batch-window-ms:0}") long batchWindowMillis,
+            @Value("${inventory.striped.max-batch-size:256}") int maxBatchSize,
+            @Value("${inventory.striped.result-timeout-ms:5000}") long resultTimeoutMillis) {
+        this.productRepository = productRepository;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.deductionRetryExecutor = deductionRetryExecutor;
+        this.inventoryBatchCacheEvictor = inventoryBatchCacheEvictor;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.resultTimeoutMillis = resultTimeoutMillis;
+
+        int count = stripeCount > 0 ? stripeCount : Runtime.getRuntime().availableProcessors();
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe(i);
+        }
+    }
+
+    @Override
+    public List<InventoryBatch> getInventoryBatchesByExpiryDate(Product product) {
+        return inventoryBatchRepository.findLiveByProductId(product.getId(), LocalDate.now());
+    }
+
+    @Override
+    public DeductionResult updateInventory(Long productId, int quantityToReduce) {
+        if (quantityToReduce <= 0) {
+            // Checked before queuing: once coalesced, it would be granted and offset the other deductions of its group
+            throw new IllegalArgumentException("Quantity to deduct must be positive, was " + quantityToReduce);
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // The caller needs the deduction inside its own transaction (for example all lines of
+            // an order), which a writer thread cannot join, so apply it directly
+            return deduct(productId, List.of(quantityToReduce)).get(0);
+        }
+
+        PendingDeduction pending = new PendingDeduction(productId, quantityToReduce);
+        stripes[Math.floorMod(productId.hashCode(), stripes.length)].submit(pending);
+
+        try {
+            // A writer stuck on the database must not hold the caller forever; the deduction may still be
+            // applied after the timeout, as with any request whose response is lost
+            return pending.result.orTimeout(resultTimeoutMillis, TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new IllegalStateException("No result for the deduction of product ID " + productId
+                        + " within " + resultTimeoutMillis + " ms");
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String getType() {
+        return "STRIPED";
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        running = true;
+        for (Stripe stripe : stripes) {
+            stripe.start();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        for (Stripe stripe : stripes) {
+            stripe.stop();
+        }
+    }
+
+    /**
+     * Apply several deductions for one product in the current transaction, in order
+     * @param productId The product ID
+     * @param quantities The quantities to reduce, one per request
+     * @return One result per quantity
+     */
+    private List<DeductionResult> deduct(Long productId, List<Integer> quantities) {
+        List<DeductionResult> results = new ArrayList<>(quantities.size());
+
+        if (!productRepository.existsById(productId)) {
+            quantities.forEach(quantity -> results.add(DeductionResult.denied(0)));
+            return results;
+        }
+
+        List<InventoryBatch> batches = inventoryBatchRepository.findLiveByProductId(productId, LocalDate.now());
+        FefoAllocation allocation = new FefoAllocation(batches);
+        for (Integer quantity : quantities) {
+            results.add(allocation.deduct(quantity));
+        }
+        if (results.stream().anyMatch(DeductionResult::isGranted)) {
+            inventoryBatchCacheEvictor.evictAfterCommit(productId);
+        }
+        return results;
+    }
+
+    /**
+     * Apply one drained window of deductions, with one transaction per product
+     * @param window The deductions drained from a stripe queue, in arrival order
+     */
+    private void flush(List<PendingDeduction> window) {
+        Map<Long, List<PendingDeduction>> byProduct = new LinkedHashMap<>();
+        for (PendingDeduction pending : window) {
+            byProduct.computeIfAbsent(pending.productId, id -> new ArrayList<>()).add(pending);
+        }
+
+        byProduct.forEach((productId, group) -> {
+            List<Integer> quantities = group.stream().map(pending -> pending.quantity).toList();
+            try {
+                // Another instance or handler may still write the same batches, so keep the version check
+                List<DeductionResult> results = deductionRetryExecutor.execute(productId,
+                        () -> transactionTemplate.execute(status -> deduct(productId, quantities)));
+                for (int i = 0; i < group.size(); i++) {
+                    group.get(i).result.complete(results.get(i));
+                }
+            } catch (RuntimeException e) {
+                log.error("Coalesced deduction of {} requests for product ID {} failed: {}",
+                        group.size(), productId, e.getMessage());
+                group.forEach(pending -> pending.result.completeExceptionally(e));
+            }
+        });
+    }
+
+    /**
+     * A deduction waiting for its stripe's writer thread
+     */
+    private static class PendingDeduction {
+        private final Long productId;
+        private final int quantity;
+        private final CompletableFuture<DeductionResult> result = new CompletableFuture<>();
+
+        private PendingDeduction(Long productId, int quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+    }
+
+    /**
+     * A queue of deductions with the single thread that writes them
+     */
+    private class Stripe implements Runnable {
+        private final BlockingQueue<PendingDeduction> queue = new LinkedBlockingQueue<>();
+        private final Thread writer;
+
+        private Stripe(int index) {
+            writer = new Thread(this, "striped-deduction-" + index);
+            writer.setDaemon(true);
+        }
+
+        private void start() {
+            writer.start();
+        }
+
+        /**
+         * Queue a deduction; holds the stripe lock so it cannot slip in after {@link #stop()} drained the queue
+         */
+        private synchronized void submit(PendingDeduction pending) {
+            if (!running) {
+                throw new IllegalStateException("Striped inventory handler is not running");
+            }
+            queue.add(pending);
+        }
+
+        @Override
+        public void run() {
+            List<PendingDeduction> window = new ArrayList<>(maxBatchSize);
+            while (running) {
+                try {
+                    PendingDeduction first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    window.add(first);
+                    collectWindow(window);
+                    flush(window);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } finally {
+                    window.clear();
+                }
+            }
+        }
+
+        /**
+         * Add everything already queued, and optionally what arrives within the batch window
+         */
+        private void collectWindow(List<PendingDeduction> window) throws InterruptedException {
+            queue.drainTo(window, maxBatchSize - window.size());
+            long deadline = System.nanoTime() + batchWindowNanos;
+            while (window.size() < maxBatchSize) {
+                long waitNanos = deadline - System.nanoTime();
+                if (waitNanos <= 0) {
+                    break;
+                }
+                PendingDeduction next = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                window.add(next);
+                queue.drainTo(window, maxBatchSize - window.size());
+            }
+        }
+
+        private synchronized void stop() {
+            writer.interrupt();
+            List<PendingDeduction> abandoned = new ArrayList<>();
+            queue.drainTo(abandoned);
+            abandoned.forEach(pending -> pending.result.completeExceptionally(
+                    new IllegalStateException("Striped inventory handler is shut down")));
+        }
+    }
+}
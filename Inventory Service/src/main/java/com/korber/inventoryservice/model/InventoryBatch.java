@@ -8,14 +8,18 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "inventory_batches")
+@Table(name = "inventory_batches", indexes = {
+        // Serves the live-batch lookups; quantity is included so the filter is answered from the index
+        @Index(name = "idx_inventory_batches_product_expiry", columnList = "product_id, expiry_date, quantity")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class InventoryBatch {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_batches_seq")
+    @SequenceGenerator(name = "inventory_batches_seq", sequenceName = "inventory_batches_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -24,9 +28,12 @@ public class InventoryBatch {
     @Column(nullable = false)
     private Integer quantity;
     
-    @Column(nullable = false)
+    @Column(name = "expiry_date", nullable = false)
     private LocalDate expiryDate;
     
+    @Version
+    private Long version;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
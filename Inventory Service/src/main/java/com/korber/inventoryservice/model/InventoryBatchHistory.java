@@ -0,0 +1,40 @@
+package com.korber.inventoryservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Exhausted or expired inventory batch moved out of inventory_batches by the archival job
+ */
+@Entity
+@Table(name = "inventory_batch_history", indexes = {
+        @Index(name = "idx_inventory_batch_history_product", columnList = "product_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryBatchHistory {
+    
+    @Id
+    private Long id;
+    
+    @Column(nullable = false)
+    private String batchNumber;
+    
+    @Column(nullable = false)
+    private Integer quantity;
+    
+    @Column(nullable = false)
+    private LocalDate expiryDate;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,23 @@
+package com.korber.inventoryservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Last write-ahead log sequence of a LEDGER handler instance that has been written to inventory_batches
+ */
+@Entity
+@Table(name = "inventory_ledger_checkpoint")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerCheckpoint {
+    
+    @Id
+    private String instanceId;
+    
+    @Column(nullable = false)
+    private Long lastSequence;
+}
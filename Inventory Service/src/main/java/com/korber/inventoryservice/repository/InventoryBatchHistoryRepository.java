@@ -0,0 +1,38 @@
+package com.korber.inventoryservice.repository;
+
+import com.korber.inventoryservice.model.InventoryBatchHistory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for InventoryBatchHistory entity
+ */
+@Repository
+public interface InventoryBatchHistoryRepository extends JpaRepository<InventoryBatchHistory, Long> {
+    
+    /**
+     * Find all archived batches for a product
+     * @param productId The product ID
+     * @return List of archived inventory batches
+     */
+    List<InventoryBatchHistory> findByProductId(Long productId);
+    
+    /**
+     * Copy inventory batches into the history table in one INSERT ... SELECT, without loading them
+     * @param batchIds IDs of the batches to copy; each keeps its ID in the history table
+     * @param archivedAt Time recorded as the archival time of every copied batch
+     * @return The number of history rows inserted
+     */
+    @Modifying
+    @Query("INSERT INTO InventoryBatchHistory (id, batchNumber, quantity, expiryDate, productId, archivedAt) "
+            + "SELECT b.id, b.batchNumber, b.quantity, b.expiryDate, b.product.id, :archivedAt "
+            + "FROM InventoryBatch b WHERE b.id IN :batchIds")
+    int copyFromBatches(@Param("batchIds") Collection<Long> batchIds, @Param("archivedAt") LocalDateTime archivedAt);
+}
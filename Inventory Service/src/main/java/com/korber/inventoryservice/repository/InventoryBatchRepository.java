@@ -1,9 +1,13 @@
 package com.korber.inventoryservice.repository;
 
 import com.korber.inventoryservice.model.InventoryBatch;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -13,9 +17,22 @@ import java.util.List;
 public interface InventoryBatchRepository extends JpaRepository<InventoryBatch, Long> {
     
     /**
-     * Find all inventory batches for a product sorted by expiry date in ascending order
+     * Find the live inventory batches of a product sorted by expiry date.
+     * Batches that are exhausted or already expired are skipped by the query.
      * @param productId The product ID
-     * @return List of inventory batches sorted by expiry date
+     * @param today The current date; batches expiring before it are excluded
+     * @return List of live inventory batches sorted by expiry date
      */
-    List<InventoryBatch> findByProductIdOrderByExpiryDateAsc(Long productId);
+    @Query("SELECT b FROM InventoryBatch b WHERE b.product.id = :productId AND b.quantity > 0 "
+            + "AND b.expiryDate >= :today ORDER BY b.expiryDate ASC")
+    List<InventoryBatch> findLiveByProductId(@Param("productId") Long productId, @Param("today") LocalDate today);
+    
+    /**
+     * Find the IDs of inventory batches that can no longer be sold, either because they are exhausted or expired
+     * @param today The current date; batches expiring before it are considered dead
+     * @param pageable The maximum number of batches to return
+     * @return List of dead inventory batch IDs, in ascending order
+     */
+    @Query("SELECT b.id FROM InventoryBatch b WHERE b.quantity = 0 OR b.expiryDate < :today ORDER BY b.id ASC")
+    List<Long> findDeadIds(@Param("today") LocalDate today, Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package com.korber.inventoryservice.repository;
+
+import com.korber.inventoryservice.model.LedgerCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for LedgerCheckpoint entity
+ */
+@Repository
+public interface LedgerCheckpointRepository extends JpaRepository<LedgerCheckpoint, String> {
+}
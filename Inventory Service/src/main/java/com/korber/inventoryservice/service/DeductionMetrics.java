@@ -0,0 +1,77 @@
+package com.korber.inventoryservice.service;
+
+import com.korber.inventoryservice.factory.DeductionResult;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the latency of each deduction by handler type, the number of batches a granted deduction touched,
+ * and the stock remaining per product after its latest granted deduction.
+ * SLO buckets of the latency and batch histograms are configured under management.metrics.distribution.slo.
+ * The remaining stock is what the handler reported, so it can briefly include deductions whose transaction
+ * is later rolled back.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeductionMetrics {
+
+    static final String LATENCY_METRIC = "inventory.deduction.latency";
+    static final String BATCHES_METRIC = "inventory.deduction.batches";
+    static final String REMAINING_METRIC = "inventory.stock.remaining";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Long, AtomicInteger> remainingByProduct = new ConcurrentHashMap<>();
+
+    /**
+     * Record one deduction made by a handler
+     * @param handlerType The type of the handler that made the deduction
+     * @param productId The product deducted
+     * @param result The outcome of the deduction
+     * @param elapsedNanos Time spent in the handler
+     */
+    public void record(String handlerType, Long productId, DeductionResult result, long elapsedNanos) {
+        Timer.builder(LATENCY_METRIC)
+                .description("Time taken by an inventory handler to deduct one product")
+                .tag("handler", handlerType)
+                .tag("outcome", result.isGranted() ? "granted" : "denied")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+        // Denials also cover unknown products, so only granted deductions create a per-product gauge
+        if (result.isGranted()) {
+            DistributionSummary.builder(BATCHES_METRIC)
+                    .description("Inventory batches touched by a granted deduction")
+                    .baseUnit("batches")
+                    .tag("handler", handlerType)
+                    .register(meterRegistry)
+                    .record(result.getBatchesTouched());
+            remaining(productId).set(result.getRemainingQuantity());
+        }
+    }
+
+    /**
+     * Get the holder of a product's remaining stock, registering its gauge on first use
+     * @param productId The product ID
+     * @return The remaining stock holder
+     */
+    private AtomicInteger remaining(Long productId) {
+        return remainingByProduct.computeIfAbsent(productId, id -> {
+            AtomicInteger remaining = new AtomicInteger();
+            Gauge.builder(REMAINING_METRIC, remaining, AtomicInteger::get)
+                    .description("Stock remaining for a product after its latest granted deduction")
+                    .tag("product", String.valueOf(id))
+                    .register(meterRegistry);
+            return remaining;
+        });
+    }
+}
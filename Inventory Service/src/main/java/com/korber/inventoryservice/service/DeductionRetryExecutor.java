@@ -0,0 +1,104 @@
+package com.korber.inventoryservice.service;
+
+import com.korber.inventoryservice.exception.ConcurrentInventoryUpdateException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs inventory deductions and retries them when they lose an optimistic-locking race
+ * against a concurrent deduction on the same batches.
+ * Each attempt must run in its own transaction so a retry starts from fresh batch versions.
+ */
+@Component
+@Slf4j
+public class DeductionRetryExecutor {
+    
+    static final String CONFLICTS_METRIC = "inventory.deduction.conflicts";
+    static final String RETRIES_METRIC = "inventory.deduction.retries";
+    static final String EXHAUSTED_METRIC = "inventory.deduction.retries.exhausted";
+    
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final double backoffMultiplier;
+    
+    public DeductionRetryExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${inventory.deduction.retry.max-attempts:5}") int maxAttempts,
+            @Value("${inventory.deduction.retry.initial-backoff-ms:5}") long initialBackoffMillis,
+            @Value("${inventory.deduction.retry.max-backoff-ms:100}") long maxBackoffMillis,
+            @Value("${inventory.deduction.retry.multiplier:2.0}") double backoffMultiplier) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.backoffMultiplier = backoffMultiplier;
+    }
+    
+    /**
+     * Run a deduction for a single product, retrying on optimistic-locking conflicts
+     * @param productId The product being deducted, used to tag the metrics
+     * @param deduction The deduction to run in its own transaction
+     * @return The result of the deduction
+     */
+    public <T> T execute(Long productId, Supplier<T> deduction) {
+        return execute(List.of(productId), deduction);
+    }
+    
+    /**
+     * Run a deduction spanning several products, retrying on optimistic-locking conflicts
+     * @param productIds The products being deducted, used to tag the metrics
+     * @param deduction The deduction to run in its own transaction
+     * @return The result of the deduction
+     */
+    public <T> T execute(Collection<Long> productIds, Supplier<T> deduction) {
+        long backoffMillis = initialBackoffMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return deduction.get();
+            } catch (OptimisticLockingFailureException e) {
+                increment(CONFLICTS_METRIC, productIds);
+                
+                if (attempt >= maxAttempts) {
+                    increment(EXHAUSTED_METRIC, productIds);
+                    log.warn("Giving up on deduction for products {} after {} conflicting attempts", productIds, attempt);
+                    throw new ConcurrentInventoryUpdateException(
+                            "Inventory is being updated concurrently for products " + productIds + ", please retry", e);
+                }
+                
+                increment(RETRIES_METRIC, productIds);
+                sleep(backoffMillis);
+                backoffMillis = Math.min(maxBackoffMillis, (long) (backoffMillis * backoffMultiplier));
+            }
+        }
+    }
+    
+    private void increment(String metric, Collection<Long> productIds) {
+        for (Long productId : productIds) {
+            meterRegistry.counter(metric, "product", String.valueOf(productId)).increment();
+        }
+    }
+    
+    private void sleep(long backoffMillis) {
+        if (backoffMillis <= 0) {
+            return;
+        }
+        // Full jitter keeps retrying writers from colliding again in lockstep
+        long jittered = ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+        try {
+            Thread.sleep(jittered);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentInventoryUpdateException("Interrupted while waiting to retry deduction", e);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.korber.inventoryservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.korber.inventoryservice.exception.IdempotencyKeyReusedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of deductions sent with an Idempotency-Key, so a retried request is answered with the
+ * original response instead of being deducted again. A duplicate that arrives while the original is still running
+ * waits for it. A request that fails with an exception committed nothing and is forgotten, so its retry runs again.
+ * Entries expire after inventory.idempotency.ttl-ms and the store is bounded by inventory.idempotency.maximum-size.
+ */
+@Component
+public class IdempotencyStore {
+    
+    public static final String HEADER = "Idempotency-Key";
+    static final String REPLAYS_METRIC = "inventory.idempotency.replays";
+    
+    private final Cache<String, Entry> entries;
+    private final Counter replays;
+    
+    public IdempotencyStore(
+            MeterRegistry meterRegistry,
+            @Value("${inventory.idempotency.ttl-ms:3600000}") long ttlMillis,
+            @Value("${inventory.idempotency.maximum-size:100000}") long maximumSize) {
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(maximumSize)
+                .build();
+        this.replays = Counter.builder(REPLAYS_METRIC)
+                .description("Requests answered with the response of an earlier request with the same Idempotency-Key")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Run a request at most once per idempotency key
+     * @param scope The endpoint the key belongs to; the same key may be used on different endpoints
+     * @param key The idempotency key, or null to always run the request
+     * @param request The request body; a key may only be sent again with an equal body
+     * @param action Runs the request
+     * @return The response of the first request with this key
+     * @throws IdempotencyKeyReusedException if the key was already used for a different request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object request, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String scopedKey = scope + ":" + key;
+        Entry entry = new Entry(request, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(scopedKey, entry);
+        if (existing != null) {
+            if (!existing.request().equals(request)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            replays.increment();
+            return (T) await(existing.response());
+        }
+        
+        try {
+            T response = action.get();
+            entry.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            entries.asMap().remove(scopedKey, entry);
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    private static Object await(CompletableFuture<Object> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private record Entry(Object request, CompletableFuture<Object> response) {
+    }
+}
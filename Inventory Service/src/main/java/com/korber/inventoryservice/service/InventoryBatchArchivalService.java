@@ -0,0 +1,72 @@
+package com.korber.inventoryservice.service;
+
+import com.korber.inventoryservice.repository.InventoryBatchHistoryRepository;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves exhausted and expired inventory batches to the history table so that
+ * live-batch lookups only ever scan stock that can still be sold
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryBatchArchivalService {
+    
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryBatchHistoryRepository inventoryBatchHistoryRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${inventory.archival.chunk-size:500}")
+    private int chunkSize;
+    
+    /**
+     * Scheduled entry point for the archival job
+     */
+    @Scheduled(cron = "${inventory.archival.cron:0 0 2 * * *}")
+    public void scheduledArchive() {
+        int archived = archiveDeadBatches();
+        log.info("Archived {} exhausted or expired inventory batches", archived);
+    }
+    
+    /**
+     * Archive every dead batch, one chunk per transaction so locks are held only briefly
+     * @return The number of batches archived
+     */
+    public int archiveDeadBatches() {
+        LocalDate today = LocalDate.now();
+        int total = 0;
+        int archived;
+        do {
+            Integer chunk = transactionTemplate.execute(status -> archiveChunk(today));
+            archived = chunk != null ? chunk : 0;
+            total += archived;
+        } while (archived == chunkSize);
+        return total;
+    }
+    
+    /**
+     * Move one chunk of dead batches with two set-based statements: an INSERT ... SELECT into the history table
+     * and a bulk DELETE, so no batch is loaded as an entity
+     */
+    private int archiveChunk(LocalDate today) {
+        List<Long> deadBatchIds = inventoryBatchRepository.findDeadIds(today, PageRequest.of(0, chunkSize));
+        if (deadBatchIds.isEmpty()) {
+            return 0;
+        }
+        
+        inventoryBatchHistoryRepository.copyFromBatches(deadBatchIds, LocalDateTime.now());
+        inventoryBatchRepository.deleteAllByIdInBatch(deadBatchIds);
+        return deadBatchIds.size();
+    }
+}
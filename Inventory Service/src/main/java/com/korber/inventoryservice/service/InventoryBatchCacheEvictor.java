@@ -0,0 +1,63 @@
+package com.korber.inventoryservice.service;
+
+import com.korber.inventoryservice.config.CacheConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Evicts cached batch lists of products whose batches have changed
+ */
+@Component
+public class InventoryBatchCacheEvictor {
+    
+    static final String INVALIDATIONS_METRIC = "inventory.cache.invalidations";
+    
+    private final Cache cache;
+    private final Counter invalidations;
+    
+    public InventoryBatchCacheEvictor(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cache = cacheManager.getCache(CacheConfig.INVENTORY_BATCHES_CACHE);
+        this.invalidations = Counter.builder(INVALIDATIONS_METRIC)
+                .description("Cached batch lists evicted because the product's batches changed")
+                .tag("cache", CacheConfig.INVENTORY_BATCHES_CACHE)
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Evict a product's batch list once the current transaction commits, or now if there is none.
+     * Evicting before the commit would let a concurrent read cache the batches as they were before the change.
+     * @param productId The product ID
+     */
+    public void evictAfterCommit(Long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(productId);
+            }
+        });
+    }
+    
+    /**
+     * Evict batch lists now, for changes that are already committed
+     * @param productIds The product IDs
+     */
+    public void evict(Collection<Long> productIds) {
+        productIds.forEach(this::evict);
+    }
+    
+    private void evict(Long productId) {
+        cache.evict(productId);
+        invalidations.increment();
+    }
+}
@@ -12,9 +12,10 @@ import java.util.List;
 public interface InventoryService {
     
     /**
-     * Get inventory batches for a product sorted by expiry date
+     * Get the live inventory batches for a product sorted by expiry date
      * @param productId The product ID
-     * @return List of inventory batches sorted by expiry date
+     * @return List of live inventory batches sorted by expiry date, empty if the product is out of stock
+     * @throws com.korber.inventoryservice.exception.ResourceNotFoundException if the product does not exist
      */
     List<InventoryBatchDTO> getInventoryBatchesByProductId(Long productId);
     
@@ -24,4 +25,13 @@ public interface InventoryService {
      * @return Response indicating success or failure
      */
     InventoryUpdateResponse updateInventory(InventoryUpdateRequest request);
+    
+    /**
+     * Update inventory for several order lines in a single transaction.
+     * Either every line is deducted or none of them is.
+     * @param requests The inventory update requests, one per order line
+     * @return One response per request, in request order
+     * @throws com.korber.inventoryservice.exception.InventoryBatchUpdateException if any line cannot be fulfilled
+     */
+    List<InventoryUpdateResponse> updateInventoryBatch(List<InventoryUpdateRequest> requests);
 }
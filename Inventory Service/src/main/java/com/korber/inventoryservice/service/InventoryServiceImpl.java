@@ -1,19 +1,27 @@
 package com.korber.inventoryservice.service;
 
+import com.korber.inventoryservice.config.CacheConfig;
 import com.korber.inventoryservice.dto.InventoryBatchDTO;
 import com.korber.inventoryservice.dto.InventoryUpdateRequest;
 import com.korber.inventoryservice.dto.InventoryUpdateResponse;
+import com.korber.inventoryservice.exception.InventoryBatchUpdateException;
+import com.korber.inventoryservice.exception.ResourceNotFoundException;
+import com.korber.inventoryservice.factory.DeductionResult;
 import com.korber.inventoryservice.factory.InventoryHandler;
 import com.korber.inventoryservice.factory.InventoryHandlerFactory;
 import com.korber.inventoryservice.model.InventoryBatch;
 import com.korber.inventoryservice.model.Product;
 import com.korber.inventoryservice.repository.ProductRepository;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -25,41 +33,93 @@ public class InventoryServiceImpl implements InventoryService {
     
     private final ProductRepository productRepository;
     private final InventoryHandlerFactory inventoryHandlerFactory;
+    private final DeductionRetryExecutor deductionRetryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final DeductionMetrics deductionMetrics;
+    private final Tracer tracer;
     
     @Override
+    @Cacheable(cacheNames = CacheConfig.INVENTORY_BATCHES_CACHE, key = "#productId")
+    @Transactional(readOnly = true)
     public List<InventoryBatchDTO> getInventoryBatchesByProductId(Long productId) {
-        Optional<Product> productOpt = productRepository.findById(productId);
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
         
-        if (productOpt.isEmpty()) {
-            return Collections.emptyList();
-        }
-        
-        Product product = productOpt.get();
         InventoryHandler handler = inventoryHandlerFactory.getDefaultHandler();
         
         List<InventoryBatch> batches = handler.getInventoryBatchesByExpiryDate(product);
         
-        // Convert to DTOs
-        return batches.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return convertToDTOs(batches);
     }
     
     @Override
     public InventoryUpdateResponse updateInventory(InventoryUpdateRequest request) {
+        validateQuantity(request);
+        return deductionRetryExecutor.execute(request.getProductId(), () -> deduct(request));
+    }
+    
+    @Override
+    public List<InventoryUpdateResponse> updateInventoryBatch(List<InventoryUpdateRequest> requests) {
+        requests.forEach(this::validateQuantity);
+        List<Long> productIds = requests.stream()
+                .map(InventoryUpdateRequest::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        
+        // The whole batch is one transaction, so a conflict on any line retries every line
+        return deductionRetryExecutor.execute(productIds,
+                () -> transactionTemplate.execute(status -> deductBatch(requests)));
+    }
+    
+    /**
+     * Reject a non-positive quantity before any handler sees it, so every handler type answers it the same way
+     * @param request The inventory update request
+     * @throws IllegalArgumentException if the quantity is missing or not positive
+     */
+    private void validateQuantity(InventoryUpdateRequest request) {
+        Integer quantity = request.getQuantity();
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity to deduct must be positive for product ID "
+                    + request.getProductId() + ", was " + quantity);
+        }
+    }
+    
+    /**
+     * Deduct inventory for one request without retrying
+     * @param request The inventory update request
+     * @return The inventory update response
+     */
+    private InventoryUpdateResponse deduct(InventoryUpdateRequest request) {
         String handlerType = request.getHandlerType();
         InventoryHandler handler = (handlerType != null && !handlerType.isEmpty()) 
                 ? inventoryHandlerFactory.getHandler(handlerType)
                 : inventoryHandlerFactory.getDefaultHandler();
         
-        boolean success = handler.updateInventory(request.getProductId(), request.getQuantity());
+        DeductionResult result;
+        Span span = tracer.nextSpan().name("inventory.deduction")
+                .tag("product.id", String.valueOf(request.getProductId()))
+                .tag("handler.type", handler.getType())
+                .tag("quantity", request.getQuantity());
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span.start())) {
+            long start = System.nanoTime();
+            result = handler.updateInventory(request.getProductId(), request.getQuantity());
+            deductionMetrics.record(handler.getType(), request.getProductId(), result, System.nanoTime() - start);
+            span.tag("granted", result.isGranted())
+                    .tag("batch.count", result.getBatchesTouched());
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
         
         InventoryUpdateResponse response = new InventoryUpdateResponse();
-        response.setSuccess(success);
+        response.setSuccess(result.isGranted());
         response.setProductId(request.getProductId());
         response.setUpdatedQuantity(request.getQuantity());
+        response.setRemainingQuantity(result.getRemainingQuantity());
         
-        if (success) {
+        if (result.isGranted()) {
             response.setMessage("Inventory updated successfully");
         } else {
             response.setMessage("Failed to update inventory. Insufficient stock or product not found.");
@@ -68,6 +128,62 @@ public class InventoryServiceImpl implements InventoryService {
         return response;
     }
     
+    /**
+     * Deduct inventory for every request in the current transaction without retrying
+     * @param requests The inventory update requests
+     * @return One response per request, in request order
+     */
+    private List<InventoryUpdateResponse> deductBatch(List<InventoryUpdateRequest> requests) {
+        List<InventoryUpdateResponse> responses = new ArrayList<>(requests.size());
+        boolean allSucceeded = true;
+        
+        for (InventoryUpdateRequest request : requests) {
+            if (!allSucceeded) {
+                // A previous line failed, so the whole batch will be rolled back
+                responses.add(rolledBackResponse(request));
+                continue;
+            }
+            
+            InventoryUpdateResponse response = deduct(request);
+            allSucceeded = response.isSuccess();
+            responses.add(response);
+        }
+        
+        if (!allSucceeded) {
+            // Lines deducted before the failing one are undone by the rollback
+            for (int i = 0; i < responses.size(); i++) {
+                if (responses.get(i).isSuccess()) {
+                    responses.set(i, rolledBackResponse(requests.get(i)));
+                }
+            }
+            // Throwing marks the transaction for rollback
+            throw new InventoryBatchUpdateException("Batch inventory update failed and was rolled back", responses);
+        }
+        
+        return responses;
+    }
+    
+    /**
+     * Build the response for a batch line that was not applied because another line failed
+     * @param request The inventory update request
+     * @return The inventory update response
+     */
+    private InventoryUpdateResponse rolledBackResponse(InventoryUpdateRequest request) {
+        return new InventoryUpdateResponse(false, "Not applied. Another line in the batch could not be fulfilled.",
+                request.getProductId(), request.getQuantity(), null);
+    }
+    
+    /**
+     * Convert InventoryBatch entities to DTOs. Package-private for the mapping benchmark
+     * @param batches The inventory batch entities
+     * @return Unmodifiable list of DTOs; the list is cached and shared between callers
+     */
+    List<InventoryBatchDTO> convertToDTOs(List<InventoryBatch> batches) {
+        return batches.stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+    
     /**
      * Convert InventoryBatch entity to DTO
      * @param batch The inventory batch entity
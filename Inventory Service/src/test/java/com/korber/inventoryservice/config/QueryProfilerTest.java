@@ -0,0 +1,158 @@
+package com.korber.inventoryservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryProfilerTest {
+
+    private static final int N_PLUS_ONE_THRESHOLD = 5;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcDataSource h2;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        meterRegistry = new SimpleMeterRegistry();
+        h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query-profiler-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE inventory_batches (id BIGINT PRIMARY KEY, product_id BIGINT, quantity INT)");
+            statement.execute("CREATE TABLE products (id BIGINT PRIMARY KEY)");
+            statement.execute("INSERT INTO inventory_batches VALUES (1, 1, 10), (2, 1, 20), (3, 2, 30)");
+            statement.execute("INSERT INTO products VALUES (1), (2)");
+        }
+    }
+
+    @Test
+    @DisplayName("Should time and count the statements of a sampled request and flag those repeated up to the threshold")
+    void sampledRequest_RepeatedStatements_FlaggedAtThreshold() throws Exception {
+        // Arrange
+        QueryProfiler profiler = new QueryProfiler(meterRegistry, 1.0, N_PLUS_ONE_THRESHOLD);
+        ProfilingDataSource dataSource = new ProfilingDataSource(h2, profiler);
+
+        // Act - batches queried once per product up to the threshold, products one fewer time
+        assertTrue(profiler.begin());
+        try (Connection connection = dataSource.getConnection()) {
+            query(connection, "select id from inventory_batches where product_id = ?", N_PLUS_ONE_THRESHOLD);
+            query(connection, "select id from products where id = ?", N_PLUS_ONE_THRESHOLD - 1);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "update inventory_batches set quantity = quantity - 1 where product_id = ?")) {
+                statement.setLong(1, 1);
+                statement.executeUpdate();
+            }
+        }
+        profiler.end("POST /inventory/update");
+
+        // Assert
+        assertEquals(N_PLUS_ONE_THRESHOLD, meterRegistry.get(QueryProfiler.LATENCY_METRIC)
+                .tags("operation", "select", "table", "inventory_batches").timer().count());
+        assertEquals(2, meterRegistry.get(QueryProfiler.ROWS_METRIC)
+                .tags("operation", "update", "table", "inventory_batches").summary().totalAmount());
+        assertEquals(2 * N_PLUS_ONE_THRESHOLD, meterRegistry.get(QueryProfiler.STATEMENTS_METRIC)
+                .tag("endpoint", "POST /inventory/update").summary().totalAmount());
+        assertEquals(1, meterRegistry.get(QueryProfiler.N_PLUS_ONE_METRIC)
+                .tags("endpoint", "POST /inventory/update", "table", "inventory_batches").counter().count());
+        assertNull(meterRegistry.find(QueryProfiler.N_PLUS_ONE_METRIC).tag("table", "products").counter());
+    }
+
+    @Test
+    @DisplayName("Should neither wrap nor record connections outside a sampled request")
+    void unsampledRequest_ConnectionsUnwrappedAndNothingRecorded() throws Exception {
+        // Arrange
+        QueryProfiler profiler = new QueryProfiler(meterRegistry, 0.0, N_PLUS_ONE_THRESHOLD);
+        ProfilingDataSource dataSource = new ProfilingDataSource(h2, profiler);
+
+        // Act
+        assertFalse(profiler.begin());
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select id from inventory_batches")) {
+            statement.executeQuery().close();
+
+            // Assert
+            assertFalse(Proxy.isProxyClass(connection.getClass()));
+            assertFalse(Proxy.isProxyClass(statement.getClass()));
+        }
+        profiler.end("GET /inventory/{productId}");
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should sample about the configured share of requests")
+    void begin_SampleRate_SamplesConfiguredShare() {
+        // Arrange
+        QueryProfiler profiler = new QueryProfiler(meterRegistry, 0.25, N_PLUS_ONE_THRESHOLD);
+        int requests = 10_000;
+
+        // Act
+        int sampled = 0;
+        for (int i = 0; i < requests; i++) {
+            if (profiler.begin()) {
+                sampled++;
+                profiler.end("GET /inventory/{productId}");
+            }
+        }
+
+        // Assert - well outside the binomial spread, so the test does not flake
+        assertTrue(sampled > requests * 0.2 && sampled < requests * 0.3, "Sampled " + sampled + " of " + requests);
+    }
+
+    @Test
+    @DisplayName("Should report the statements of a filtered request under its mapped path pattern")
+    void filter_SampledRequest_ReportsStatementsUnderPathPattern() throws Exception {
+        // Arrange
+        QueryProfiler profiler = new QueryProfiler(meterRegistry, 1.0, N_PLUS_ONE_THRESHOLD);
+        ProfilingDataSource dataSource = new ProfilingDataSource(h2, profiler);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/inventory/1");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/inventory/{productId}");
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                try (Connection connection = dataSource.getConnection()) {
+                    query(connection, "select id from inventory_batches where product_id = ?", 1);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        // Act
+        new QueryProfilingFilter(profiler).doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertEquals(1, meterRegistry.get(QueryProfiler.STATEMENTS_METRIC)
+                .tag("endpoint", "GET /inventory/{productId}").summary().totalAmount());
+        assertFalse(profiler.isProfiling());
+    }
+
+    private static void query(Connection connection, String sql, int times) throws SQLException {
+        for (long id = 1; id <= times; id++) {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, id);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        resultSet.getLong(1);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -4,23 +4,31 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.korber.inventoryservice.dto.InventoryBatchDTO;
 import com.korber.inventoryservice.dto.InventoryUpdateRequest;
 import com.korber.inventoryservice.dto.InventoryUpdateResponse;
+import com.korber.inventoryservice.exception.InventoryBatchUpdateException;
+import com.korber.inventoryservice.exception.ResourceNotFoundException;
+import com.korber.inventoryservice.service.IdempotencyStore;
 import com.korber.inventoryservice.service.InventoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -39,6 +47,15 @@ class InventoryControllerTest {
     @MockBean
     private InventoryService inventoryService;
 
+    @TestConfiguration
+    static class IdempotencyStoreConfig {
+
+        @Bean
+        IdempotencyStore idempotencyStore() {
+            return new IdempotencyStore(new SimpleMeterRegistry(), 60000, 100);
+        }
+    }
+
     @Test
     @DisplayName("Should return inventory batches when product exists")
     void getInventoryBatchesByProductId_WhenProductExists_ReturnsInventoryBatches() throws Exception {
@@ -81,7 +98,8 @@ class InventoryControllerTest {
     @DisplayName("Should return 404 when product not found")
     void getInventoryBatchesByProductId_WhenProductNotFound_Returns404() throws Exception {
         // Arrange
-        when(inventoryService.getInventoryBatchesByProductId(999L)).thenReturn(Collections.emptyList());
+        when(inventoryService.getInventoryBatchesByProductId(999L))
+                .thenThrow(new ResourceNotFoundException("Product", "id", 999L));
 
         // Act & Assert
         mockMvc.perform(get("/inventory/999")
@@ -144,4 +162,121 @@ class InventoryControllerTest {
                 .andExpect(jsonPath("$.productId", is(1)))
                 .andExpect(jsonPath("$.updatedQuantity", is(500)));
     }
+
+    @Test
+    @DisplayName("Should update inventory batch successfully")
+    void updateInventoryBatch_WhenAllLinesSucceed_ReturnsSuccessResponses() throws Exception {
+        // Arrange
+        List<InventoryUpdateRequest> requests = List.of(
+                new InventoryUpdateRequest(1L, 50, "STANDARD"),
+                new InventoryUpdateRequest(2L, 20, "STANDARD"));
+
+        List<InventoryUpdateResponse> responses = List.of(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 50, 200),
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 2L, 20, 80));
+
+        when(inventoryService.updateInventoryBatch(anyList())).thenReturn(responses);
+
+        // Act & Assert
+        mockMvc.perform(post("/inventory/update/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].success", is(true)))
+                .andExpect(jsonPath("$[1].productId", is(2)));
+    }
+
+    @Test
+    @DisplayName("Should return bad request with per-line responses when batch fails")
+    void updateInventoryBatch_WhenOneLineFails_ReturnsBadRequest() throws Exception {
+        // Arrange
+        List<InventoryUpdateRequest> requests = List.of(
+                new InventoryUpdateRequest(1L, 50, "STANDARD"),
+                new InventoryUpdateRequest(2L, 500, "STANDARD"));
+
+        List<InventoryUpdateResponse> responses = List.of(
+                new InventoryUpdateResponse(false, "Not applied. Another line in the batch could not be fulfilled.", 1L, 50, null),
+                new InventoryUpdateResponse(false, "Failed to update inventory. Insufficient stock or product not found.", 2L, 500, 250));
+
+        when(inventoryService.updateInventoryBatch(anyList()))
+                .thenThrow(new InventoryBatchUpdateException("Batch inventory update failed and was rolled back", responses));
+
+        // Act & Assert
+        mockMvc.perform(post("/inventory/update/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].success", is(false)))
+                .andExpect(jsonPath("$[1].success", is(false)))
+                .andExpect(jsonPath("$[1].productId", is(2)));
+    }
+
+    @Test
+    @DisplayName("Should replay the original response for a repeated Idempotency-Key without deducting again")
+    void updateInventory_WithRepeatedIdempotencyKey_ReplaysResponse() throws Exception {
+        // Arrange
+        InventoryUpdateRequest request = new InventoryUpdateRequest(1L, 50, "STANDARD");
+        when(inventoryService.updateInventory(any(InventoryUpdateRequest.class))).thenReturn(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 50, 200),
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 50, 150));
+
+        // Act & Assert
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/inventory/update")
+                    .header(IdempotencyStore.HEADER, "order-42")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.remainingQuantity", is(200)));
+        }
+        verify(inventoryService, times(1)).updateInventory(any(InventoryUpdateRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should reject an Idempotency-Key reused for a different request")
+    void updateInventory_WithReusedIdempotencyKey_ReturnsUnprocessableEntity() throws Exception {
+        // Arrange
+        when(inventoryService.updateInventory(any(InventoryUpdateRequest.class))).thenReturn(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 50, 200));
+        mockMvc.perform(post("/inventory/update")
+                .header(IdempotencyStore.HEADER, "order-43")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new InventoryUpdateRequest(1L, 50, "STANDARD"))))
+                .andExpect(status().isOk());
+
+        // Act & Assert
+        mockMvc.perform(post("/inventory/update")
+                .header(IdempotencyStore.HEADER, "order-43")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new InventoryUpdateRequest(1L, 60, "STANDARD"))))
+                .andExpect(status().isUnprocessableEntity());
+        verify(inventoryService, times(1)).updateInventory(any(InventoryUpdateRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should run a rejected batch again when it is retried with the same Idempotency-Key")
+    void updateInventoryBatch_RetriedAfterRejection_RunsAgain() throws Exception {
+        // Arrange - nothing was deducted by the rejected attempt, so the retry is not a replay
+        List<InventoryUpdateRequest> requests = List.of(new InventoryUpdateRequest(1L, 50, "STANDARD"));
+        when(inventoryService.updateInventoryBatch(anyList()))
+                .thenThrow(new InventoryBatchUpdateException("Batch inventory update rejected",
+                        List.of(new InventoryUpdateResponse(false, "Insufficient stock", 1L, 50, 10))))
+                .thenReturn(List.of(new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 50, 50)));
+
+        // Act & Assert
+        mockMvc.perform(post("/inventory/update/batch")
+                .header(IdempotencyStore.HEADER, "order-44")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/inventory/update/batch")
+                .header(IdempotencyStore.HEADER, "order-44")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].success", is(true)));
+        verify(inventoryService, times(2)).updateInventoryBatch(anyList());
+    }
 }
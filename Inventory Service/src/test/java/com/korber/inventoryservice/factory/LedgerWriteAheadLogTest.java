@@ -0,0 +1,126 @@
+package com.korber.inventoryservice.factory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerWriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read back appended records in order, skipping untouched batches")
+    void append_ThenReadAll_ReturnsRecords() throws IOException {
+        // Arrange
+        LedgerWriteAheadLog writeAheadLog = new LedgerWriteAheadLog(directory, true);
+        writeAheadLog.open(0);
+
+        // Act
+        writeAheadLog.append(1L, new long[]{10L, 11L, 12L}, new int[]{5, 3, 0});
+        writeAheadLog.append(2L, new long[]{20L}, new int[]{-4});
+        writeAheadLog.close();
+        List<LedgerWriteAheadLog.Record> records = new LedgerWriteAheadLog(directory, true).readAll();
+
+        // Assert
+        assertEquals(2, records.size());
+        assertEquals(1, records.get(0).sequence());
+        assertEquals(1L, records.get(0).productId());
+        assertArrayEquals(new long[]{10L, 11L}, records.get(0).batchIds());
+        assertArrayEquals(new int[]{5, 3}, records.get(0).deltas());
+        assertEquals(2, records.get(1).sequence());
+        assertArrayEquals(new int[]{-4}, records.get(1).deltas());
+    }
+
+    @Test
+    @DisplayName("Should force every record written so far with one sync")
+    void sync_AfterSeveralAppends_CoversAllOfThem() throws IOException {
+        // Arrange
+        LedgerWriteAheadLog writeAheadLog = new LedgerWriteAheadLog(directory, true);
+        writeAheadLog.open(0);
+        writeAheadLog.append(1L, new long[]{10L}, new int[]{1});
+        writeAheadLog.append(1L, new long[]{10L}, new int[]{1});
+        writeAheadLog.append(1L, new long[]{10L}, new int[]{1});
+
+        // Act - the caller of the first record syncs after the others were written
+        writeAheadLog.sync(1);
+
+        // Assert - the later callers find their records already on disk
+        assertEquals(3, writeAheadLog.durableSequence());
+        writeAheadLog.close();
+    }
+
+    @Test
+    @DisplayName("Should force a segment before closing it, and never in async mode")
+    void rotate_ForcesClosedSegmentOnlyWhenSyncing() throws IOException {
+        // Arrange
+        LedgerWriteAheadLog syncing = new LedgerWriteAheadLog(directory.resolve("sync"), true);
+        syncing.open(0);
+        syncing.append(1L, new long[]{10L}, new int[]{1});
+        LedgerWriteAheadLog async = new LedgerWriteAheadLog(directory.resolve("async"), false);
+        async.open(0);
+        async.append(1L, new long[]{10L}, new int[]{1});
+
+        // Act
+        syncing.rotate();
+        async.rotate();
+        async.sync(1);
+
+        // Assert
+        assertEquals(1, syncing.durableSequence());
+        assertEquals(0, async.durableSequence());
+        syncing.close();
+        async.close();
+    }
+
+    @Test
+    @DisplayName("Should ignore a record torn by a crash")
+    void readAll_WithTornTail_ReturnsIntactRecordsOnly() throws IOException {
+        // Arrange
+        LedgerWriteAheadLog writeAheadLog = new LedgerWriteAheadLog(directory, true);
+        writeAheadLog.open(0);
+        writeAheadLog.append(1L, new long[]{10L}, new int[]{5});
+        writeAheadLog.close();
+        try (var files = Files.list(directory)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        }
+
+        // Act
+        List<LedgerWriteAheadLog.Record> records = new LedgerWriteAheadLog(directory, true).readAll();
+
+        // Assert
+        assertEquals(1, records.size());
+        assertEquals(1, records.get(0).sequence());
+    }
+
+    @Test
+    @DisplayName("Should continue sequences across segments and hand back the closed ones")
+    void rotate_StartsNewSegmentAndReturnsPreviousOnes() throws IOException {
+        // Arrange
+        LedgerWriteAheadLog writeAheadLog = new LedgerWriteAheadLog(directory, false);
+        writeAheadLog.open(7);
+        writeAheadLog.append(1L, new long[]{10L}, new int[]{1});
+
+        // Act
+        List<Path> closed = writeAheadLog.rotate();
+        long sequence = writeAheadLog.append(1L, new long[]{10L}, new int[]{1});
+        writeAheadLog.delete(closed);
+        writeAheadLog.close();
+
+        // Assert
+        assertEquals(1, closed.size());
+        assertEquals(9, sequence);
+        List<LedgerWriteAheadLog.Record> records = new LedgerWriteAheadLog(directory, false).readAll();
+        assertEquals(1, records.size());
+        assertEquals(9, records.get(0).sequence());
+    }
+}
@@ -4,6 +4,7 @@ import com.korber.inventoryservice.model.InventoryBatch;
 import com.korber.inventoryservice.model.Product;
 import com.korber.inventoryservice.repository.InventoryBatchRepository;
 import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.InventoryBatchCacheEvictor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,7 +16,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,6 +29,9 @@ class StandardInventoryHandlerTest {
     @Mock
     private InventoryBatchRepository inventoryBatchRepository;
 
+    @Mock
+    private InventoryBatchCacheEvictor inventoryBatchCacheEvictor;
+
     @InjectMocks
     private StandardInventoryHandler inventoryHandler;
 
@@ -68,7 +71,7 @@ class StandardInventoryHandlerTest {
     @DisplayName("Should return inventory batches sorted by expiry date")
     void getInventoryBatchesByExpiryDate_ReturnsInventoryBatchesSortedByExpiryDate() {
         // Arrange
-        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1L)).thenReturn(inventoryBatches);
+        when(inventoryBatchRepository.findLiveByProductId(1L, LocalDate.now())).thenReturn(inventoryBatches);
 
         // Act
         List<InventoryBatch> result = inventoryHandler.getInventoryBatchesByExpiryDate(product);
@@ -77,84 +80,99 @@ class StandardInventoryHandlerTest {
         assertNotNull(result);
         assertEquals(2, result.size());
         assertEquals("BATCH-001", result.get(0).getBatchNumber()); // First batch has earlier expiry date
-        verify(inventoryBatchRepository, times(1)).findByProductIdOrderByExpiryDateAsc(1L);
+        verify(inventoryBatchRepository, times(1)).findLiveByProductId(1L, LocalDate.now());
     }
 
     @Test
     @DisplayName("Should update inventory successfully when sufficient stock")
-    void updateInventory_WhenSufficientStock_ReturnsTrue() {
+    void updateInventory_WhenSufficientStock_ReturnsGranted() {
         // Arrange
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1L)).thenReturn(inventoryBatches);
+        when(productRepository.existsById(1L)).thenReturn(true);
+        when(inventoryBatchRepository.findLiveByProductId(1L, LocalDate.now())).thenReturn(inventoryBatches);
 
         // Act
-        boolean result = inventoryHandler.updateInventory(1L, 50);
+        DeductionResult result = inventoryHandler.updateInventory(1L, 50);
 
         // Assert
-        assertTrue(result);
+        assertTrue(result.isGranted());
+        assertEquals(200, result.getRemainingQuantity());
+        assertEquals(1, result.getBatchesTouched());
         assertEquals(50, inventoryBatches.get(0).getQuantity()); // First batch reduced by 50
         assertEquals(150, inventoryBatches.get(1).getQuantity()); // Second batch unchanged
-        verify(productRepository, times(1)).findById(1L);
-        verify(inventoryBatchRepository, times(1)).findByProductIdOrderByExpiryDateAsc(1L);
-        verify(inventoryBatchRepository, times(1)).save(inventoryBatches.get(0));
+        verify(productRepository, times(1)).existsById(1L);
+        verify(inventoryBatchRepository, times(1)).findLiveByProductId(1L, LocalDate.now());
+        verify(inventoryBatchRepository, never()).save(any());
+        verify(inventoryBatchCacheEvictor, times(1)).evictAfterCommit(1L);
     }
 
     @Test
     @DisplayName("Should update inventory across multiple batches when needed")
-    void updateInventory_WhenQuantitySpansMultipleBatches_ReturnsTrue() {
+    void updateInventory_WhenQuantitySpansMultipleBatches_ReturnsGranted() {
         // Arrange
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1L)).thenReturn(inventoryBatches);
+        when(productRepository.existsById(1L)).thenReturn(true);
+        when(inventoryBatchRepository.findLiveByProductId(1L, LocalDate.now())).thenReturn(inventoryBatches);
 
         // Act
-        boolean result = inventoryHandler.updateInventory(1L, 120);
+        DeductionResult result = inventoryHandler.updateInventory(1L, 120);
 
         // Assert
-        assertTrue(result);
+        assertTrue(result.isGranted());
+        assertEquals(130, result.getRemainingQuantity());
+        assertEquals(2, result.getBatchesTouched());
         assertEquals(0, inventoryBatches.get(0).getQuantity()); // First batch fully used
         assertEquals(130, inventoryBatches.get(1).getQuantity()); // Second batch reduced by 20
-        verify(productRepository, times(1)).findById(1L);
-        verify(inventoryBatchRepository, times(1)).findByProductIdOrderByExpiryDateAsc(1L);
-        verify(inventoryBatchRepository, times(1)).save(inventoryBatches.get(0));
-        verify(inventoryBatchRepository, times(1)).save(inventoryBatches.get(1));
+        verify(productRepository, times(1)).existsById(1L);
+        verify(inventoryBatchRepository, times(1)).findLiveByProductId(1L, LocalDate.now());
+        verify(inventoryBatchRepository, never()).save(any());
     }
 
     @Test
-    @DisplayName("Should return false when insufficient stock")
-    void updateInventory_WhenInsufficientStock_ReturnsFalse() {
+    @DisplayName("Should deny and leave batches untouched when insufficient stock")
+    void updateInventory_WhenInsufficientStock_ReturnsDenied() {
         // Arrange
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
-        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(1L)).thenReturn(inventoryBatches);
+        when(productRepository.existsById(1L)).thenReturn(true);
+        when(inventoryBatchRepository.findLiveByProductId(1L, LocalDate.now())).thenReturn(inventoryBatches);
 
         // Act
-        boolean result = inventoryHandler.updateInventory(1L, 300); // Total stock is only 250
+        DeductionResult result = inventoryHandler.updateInventory(1L, 300); // Total stock is only 250
 
         // Assert
-        assertFalse(result);
-        assertEquals(0, inventoryBatches.get(0).getQuantity()); // First batch fully used
-        assertEquals(0, inventoryBatches.get(1).getQuantity()); // Second batch fully used
-        verify(productRepository, times(1)).findById(1L);
-        verify(inventoryBatchRepository, times(1)).findByProductIdOrderByExpiryDateAsc(1L);
-        verify(inventoryBatchRepository, times(1)).save(inventoryBatches.get(0));
-        verify(inventoryBatchRepository, times(1)).save(inventoryBatches.get(1));
+        assertFalse(result.isGranted());
+        assertEquals(250, result.getRemainingQuantity());
+        assertEquals(100, inventoryBatches.get(0).getQuantity()); // First batch unchanged
+        assertEquals(150, inventoryBatches.get(1).getQuantity()); // Second batch unchanged
+        verify(productRepository, times(1)).existsById(1L);
+        verify(inventoryBatchRepository, times(1)).findLiveByProductId(1L, LocalDate.now());
+        verify(inventoryBatchRepository, never()).save(any());
+        verify(inventoryBatchCacheEvictor, never()).evictAfterCommit(anyLong());
     }
 
     @Test
-    @DisplayName("Should return false when product not found")
-    void updateInventory_WhenProductNotFound_ReturnsFalse() {
+    @DisplayName("Should deny when product not found")
+    void updateInventory_WhenProductNotFound_ReturnsDenied() {
         // Arrange
-        when(productRepository.findById(999L)).thenReturn(Optional.empty());
+        when(productRepository.existsById(999L)).thenReturn(false);
 
         // Act
-        boolean result = inventoryHandler.updateInventory(999L, 50);
+        DeductionResult result = inventoryHandler.updateInventory(999L, 50);
 
         // Assert
-        assertFalse(result);
-        verify(productRepository, times(1)).findById(999L);
-        verify(inventoryBatchRepository, never()).findByProductIdOrderByExpiryDateAsc(anyLong());
+        assertFalse(result.isGranted());
+        assertEquals(0, result.getRemainingQuantity());
+        verify(productRepository, times(1)).existsById(999L);
+        verify(inventoryBatchRepository, never()).findLiveByProductId(anyLong(), any());
         verify(inventoryBatchRepository, never()).save(any());
     }
 
+    @Test
+    @DisplayName("Should reject a non-positive quantity without reading any batch")
+    void updateInventory_WhenQuantityNotPositive_Throws() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> inventoryHandler.updateInventory(1L, 0));
+        assertThrows(IllegalArgumentException.class, () -> inventoryHandler.updateInventory(1L, -5));
+        verifyNoInteractions(productRepository, inventoryBatchRepository);
+    }
+
     @Test
     @DisplayName("Should return handler type as STANDARD")
     void getType_ReturnsSTANDARD() {
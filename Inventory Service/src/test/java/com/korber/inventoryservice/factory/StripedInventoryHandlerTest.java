@@ -0,0 +1,172 @@
+package com.korber.inventoryservice.factory;
+
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.DeductionRetryExecutor;
+import com.korber.inventoryservice.service.InventoryBatchCacheEvictor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StripedInventoryHandlerTest {
+
+    private static final long RESULT_TIMEOUT_MS = 1000;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private InventoryBatchCacheEvictor inventoryBatchCacheEvictor;
+
+    private StripedInventoryHandler inventoryHandler;
+
+    @BeforeEach
+    void setUp() {
+        DeductionRetryExecutor deductionRetryExecutor = new DeductionRetryExecutor(new SimpleMeterRegistry(), 1, 0, 0, 1.0);
+        inventoryHandler = new StripedInventoryHandler(productRepository, inventoryBatchRepository, transactionTemplate,
+                deductionRetryExecutor, inventoryBatchCacheEvictor, 1, 0, 256, RESULT_TIMEOUT_MS);
+        inventoryHandler.afterSingletonsInstantiated();
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryHandler.destroy();
+    }
+
+    @Test
+    @DisplayName("Should apply requests queued behind a running write in one transaction, in arrival order")
+    void updateInventory_RequestsQueuedDuringWrite_CoalescedIntoOneTransaction() throws Exception {
+        // Arrange - 3 units of stock; the first write blocks until the other requests are queued
+        InventoryBatch batch = new InventoryBatch();
+        batch.setId(1L);
+        batch.setQuantity(3);
+        batch.setExpiryDate(LocalDate.now().plusDays(1));
+        when(productRepository.existsById(1L)).thenReturn(true);
+        when(inventoryBatchRepository.findLiveByProductId(eq(1L), any())).thenReturn(List.of(batch));
+
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger transactions = new AtomicInteger();
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            if (transactions.incrementAndGet() == 1) {
+                firstWriteStarted.countDown();
+                release.await();
+            }
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+
+        CompletableFuture<DeductionResult> first = CompletableFuture.supplyAsync(() -> inventoryHandler.updateInventory(1L, 1));
+        assertTrue(firstWriteStarted.await(5, TimeUnit.SECONDS));
+
+        // Act - queue four more requests one after another, then let the writer go
+        List<CompletableFuture<DeductionResult>> queued = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            CompletableFuture<DeductionResult> result = new CompletableFuture<>();
+            Thread caller = new Thread(() -> result.complete(inventoryHandler.updateInventory(1L, 1)));
+            caller.start();
+            awaitWaiting(caller);
+            queued.add(result);
+        }
+        release.countDown();
+
+        // Assert - the first write, then one write for all four queued requests
+        assertTrue(first.get(5, TimeUnit.SECONDS).isGranted());
+        List<Boolean> granted = new ArrayList<>();
+        for (CompletableFuture<DeductionResult> result : queued) {
+            granted.add(result.get(5, TimeUnit.SECONDS).isGranted());
+        }
+        assertEquals(List.of(true, true, false, false), granted);
+        assertEquals(2, transactions.get());
+        assertEquals(0, batch.getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should refuse deductions once shut down instead of queuing them")
+    void updateInventory_AfterShutdown_ThrowsIllegalStateException() {
+        // Arrange
+        inventoryHandler.destroy();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> inventoryHandler.updateInventory(1L, 1));
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("Should refuse deductions before its writer threads are started")
+    void updateInventory_BeforeStart_ThrowsIllegalStateException() {
+        // Arrange
+        StripedInventoryHandler notStarted = new StripedInventoryHandler(productRepository, inventoryBatchRepository,
+                transactionTemplate, mock(DeductionRetryExecutor.class), inventoryBatchCacheEvictor, 1, 0, 256,
+                RESULT_TIMEOUT_MS);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> notStarted.updateInventory(1L, 1));
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("Should give up waiting when the writer does not answer within the result timeout")
+    void updateInventory_WriterStuck_ThrowsIllegalStateExceptionAfterTimeout() throws Exception {
+        // Arrange - the writer blocks inside its transaction until the test releases it
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            release.await();
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+
+        try {
+            // Act
+            long startedAt = System.nanoTime();
+            IllegalStateException exception = assertThrows(IllegalStateException.class,
+                    () -> inventoryHandler.updateInventory(1L, 1));
+            long waitedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+
+            // Assert
+            assertTrue(exception.getMessage().contains("within " + RESULT_TIMEOUT_MS + " ms"));
+            assertTrue(waitedMillis < RESULT_TIMEOUT_MS * 5, "Waited " + waitedMillis + " ms");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Wait until the caller has queued its deduction and parked on the result
+     */
+    private static void awaitWaiting(Thread caller) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (caller.getState() != Thread.State.WAITING && caller.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline, "Caller never queued its deduction");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.korber.inventoryservice.integration;
+
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.InventoryBatchHistory;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchHistoryRepository;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.InventoryBatchArchivalService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "inventory.archival.chunk-size=2",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+class InventoryBatchArchivalServiceTest {
+
+    @Autowired
+    private InventoryBatchArchivalService archivalService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private InventoryBatchHistoryRepository inventoryBatchHistoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        inventoryBatchHistoryRepository.deleteAll();
+        inventoryBatchRepository.deleteAll();
+        productRepository.deleteAll();
+
+        Product newProduct = new Product();
+        newProduct.setName("Test Product");
+        newProduct.setDescription("Test Description");
+        newProduct.setSku("TEST-SKU-001");
+        product = productRepository.save(newProduct);
+    }
+
+    @Test
+    @DisplayName("Should move exhausted and expired batches to history and keep live ones")
+    void archiveDeadBatches_MovesDeadBatchesToHistory() {
+        // Arrange
+        inventoryBatchRepository.saveAll(List.of(
+                batch("BATCH-LIVE", 100, LocalDate.now().plusMonths(3)),
+                batch("BATCH-EXPIRES-TODAY", 10, LocalDate.now()),
+                batch("BATCH-EXHAUSTED-1", 0, LocalDate.now().plusMonths(1)),
+                batch("BATCH-EXHAUSTED-2", 0, LocalDate.now().plusMonths(2)),
+                batch("BATCH-EXPIRED", 25, LocalDate.now().minusDays(1))));
+
+        // Act - three dead batches with a chunk size of two
+        int archived = archivalService.archiveDeadBatches();
+
+        // Assert
+        assertEquals(3, archived);
+
+        List<InventoryBatch> remaining = inventoryBatchRepository.findLiveByProductId(product.getId(),
+                InventoryFixtures.BEFORE_ANY_EXPIRY);
+        assertEquals(2, remaining.size());
+        assertEquals("BATCH-EXPIRES-TODAY", remaining.get(0).getBatchNumber());
+        assertEquals("BATCH-LIVE", remaining.get(1).getBatchNumber());
+
+        List<InventoryBatchHistory> history = inventoryBatchHistoryRepository.findByProductId(product.getId());
+        assertEquals(3, history.size());
+        assertTrue(history.stream().allMatch(entry -> entry.getArchivedAt() != null));
+        assertTrue(history.stream().anyMatch(entry -> entry.getBatchNumber().equals("BATCH-EXPIRED")
+                && entry.getQuantity() == 25));
+    }
+
+    @Test
+    @DisplayName("Should move a chunk of dead batches without loading them")
+    void archiveDeadBatches_MovesChunkWithSetBasedStatements() {
+        // Arrange - one full chunk of dead batches
+        inventoryBatchRepository.saveAll(List.of(
+                batch("BATCH-EXHAUSTED-1", 0, LocalDate.now().plusMonths(1)),
+                batch("BATCH-EXHAUSTED-2", 0, LocalDate.now().plusMonths(2))));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // Act
+        int archived = archivalService.archiveDeadBatches();
+
+        // Assert - select the chunk's IDs, one INSERT ... SELECT, one DELETE, then the select that finds nothing left
+        assertEquals(2, archived);
+        assertEquals(4, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, inventoryBatchHistoryRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should archive nothing when every batch is live")
+    void archiveDeadBatches_WhenAllBatchesLive_ArchivesNothing() {
+        // Arrange
+        inventoryBatchRepository.save(batch("BATCH-LIVE", 100, LocalDate.now().plusMonths(3)));
+
+        // Act
+        int archived = archivalService.archiveDeadBatches();
+
+        // Assert
+        assertEquals(0, archived);
+        assertEquals(1, inventoryBatchRepository.count());
+        assertEquals(0, inventoryBatchHistoryRepository.count());
+    }
+
+    private InventoryBatch batch(String batchNumber, int quantity, LocalDate expiryDate) {
+        InventoryBatch batch = new InventoryBatch();
+        batch.setBatchNumber(batchNumber);
+        batch.setQuantity(quantity);
+        batch.setExpiryDate(expiryDate);
+        batch.setProduct(product);
+        return batch;
+    }
+}
@@ -0,0 +1,171 @@
+package com.korber.inventoryservice.integration;
+
+import com.korber.inventoryservice.config.CacheConfig;
+import com.korber.inventoryservice.dto.InventoryBatchDTO;
+import com.korber.inventoryservice.dto.InventoryUpdateRequest;
+import com.korber.inventoryservice.factory.LedgerInventoryHandler;
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.InventoryService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "inventory.ledger.flush-interval-ms=3600000")
+@ActiveProfiles("test")
+class InventoryBatchCacheTest {
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private LedgerInventoryHandler ledgerInventoryHandler;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Product product;
+    private InventoryBatch batch;
+
+    @BeforeEach
+    void setUp() {
+        inventoryBatchRepository.deleteAll();
+        productRepository.deleteAll();
+
+        product = new Product();
+        product.setName("Cached Product");
+        product.setDescription("Test Description");
+        product.setSku("CACHE-SKU-" + System.nanoTime());
+        product = productRepository.save(product);
+
+        batch = new InventoryBatch();
+        batch.setBatchNumber("BATCH-001");
+        batch.setQuantity(100);
+        batch.setExpiryDate(LocalDate.now().plusMonths(1));
+        batch.setProduct(product);
+        batch = inventoryBatchRepository.save(batch);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the cache and count hits and misses")
+    void getInventoryBatches_RepeatedReads_AreCached() {
+        // Arrange
+        double hitsBefore = cacheGets("hit");
+        double missesBefore = cacheGets("miss");
+        inventoryService.getInventoryBatchesByProductId(product.getId());
+
+        // Change the batch behind the service's back; a cached read does not see it
+        batch.setQuantity(1);
+        inventoryBatchRepository.save(batch);
+
+        // Act
+        List<InventoryBatchDTO> cached = inventoryService.getInventoryBatchesByProductId(product.getId());
+
+        // Assert
+        assertEquals(100, cached.get(0).getQuantity());
+        assertEquals(1, cacheGets("hit") - hitsBefore);
+        assertEquals(1, cacheGets("miss") - missesBefore);
+    }
+
+    @Test
+    @DisplayName("Should read a missed product on one pooled connection and serve hits without borrowing one")
+    void getInventoryBatches_BorrowsConnectionOnlyOnMiss() {
+        // Arrange
+        long acquiredBefore = connectionsAcquired();
+
+        // Act
+        inventoryService.getInventoryBatchesByProductId(product.getId());
+        long acquiredOnMiss = connectionsAcquired() - acquiredBefore;
+        inventoryService.getInventoryBatchesByProductId(product.getId());
+        long acquiredOnHit = connectionsAcquired() - acquiredBefore - acquiredOnMiss;
+
+        // Assert
+        assertEquals(1, acquiredOnMiss);
+        assertEquals(0, acquiredOnHit);
+        assertNotNull(meterRegistry.find("hikaricp.connections.pending").tag("pool", "inventory-db").gauge());
+    }
+
+    @Test
+    @DisplayName("Should evict the product's batches when a deduction commits")
+    void updateInventory_WhenGranted_EvictsProduct() {
+        // Arrange
+        inventoryService.getInventoryBatchesByProductId(product.getId());
+        double invalidationsBefore = invalidations();
+
+        // Act
+        inventoryService.updateInventory(new InventoryUpdateRequest(product.getId(), 30, "STANDARD"));
+        List<InventoryBatchDTO> afterDeduction = inventoryService.getInventoryBatchesByProductId(product.getId());
+
+        // Assert
+        assertEquals(70, afterDeduction.get(0).getQuantity());
+        assertEquals(1, invalidations() - invalidationsBefore);
+    }
+
+    @Test
+    @DisplayName("Should keep the cached batches when a deduction is denied or rolled back")
+    void updateInventory_WhenNothingCommitted_KeepsCache() {
+        // Arrange
+        inventoryService.getInventoryBatchesByProductId(product.getId());
+        double invalidationsBefore = invalidations();
+
+        // Act
+        inventoryService.updateInventory(new InventoryUpdateRequest(product.getId(), 500, "STANDARD"));
+        assertThrows(RuntimeException.class, () -> inventoryService.updateInventoryBatch(List.of(
+                new InventoryUpdateRequest(product.getId(), 60, "STANDARD"),
+                new InventoryUpdateRequest(product.getId(), 60, "STANDARD"))));
+
+        // Assert
+        assertEquals(0, invalidations() - invalidationsBefore);
+        assertEquals(100, inventoryService.getInventoryBatchesByProductId(product.getId()).get(0).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should evict LEDGER products once their deductions are flushed to the database")
+    void ledgerFlush_EvictsFlushedProducts() {
+        // Arrange
+        inventoryService.getInventoryBatchesByProductId(product.getId());
+        inventoryService.updateInventory(new InventoryUpdateRequest(product.getId(), 40, "LEDGER"));
+
+        // Act
+        List<InventoryBatchDTO> beforeFlush = inventoryService.getInventoryBatchesByProductId(product.getId());
+        ledgerInventoryHandler.flush();
+        List<InventoryBatchDTO> afterFlush = inventoryService.getInventoryBatchesByProductId(product.getId());
+
+        // Assert
+        assertEquals(100, beforeFlush.get(0).getQuantity());
+        assertEquals(60, afterFlush.get(0).getQuantity());
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", CacheConfig.INVENTORY_BATCHES_CACHE)
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+    private long connectionsAcquired() {
+        return meterRegistry.get("hikaricp.connections.acquire").tag("pool", "inventory-db").timer().count();
+    }
+
+    private double invalidations() {
+        return meterRegistry.get("inventory.cache.invalidations").counter().count();
+    }
+}
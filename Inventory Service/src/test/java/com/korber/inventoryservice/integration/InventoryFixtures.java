@@ -0,0 +1,53 @@
+package com.korber.inventoryservice.integration;
+
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Products and batches shared by the integration tests
+ */
+final class InventoryFixtures {
+
+    /**
+     * A date before every expiry date the tests use, so findLiveByProductId returns every batch that still has stock
+     */
+    static final LocalDate BEFORE_ANY_EXPIRY = LocalDate.of(2000, 1, 1);
+
+    private InventoryFixtures() {
+    }
+
+    /**
+     * Save a product with one batch per quantity; batch i expires i + 1 days from now, so the batches are in FEFO order
+     * @param productRepository The product repository
+     * @param inventoryBatchRepository The inventory batch repository
+     * @param name The product name; its SKU is made unique
+     * @param batchQuantities The quantity of each batch
+     * @return The saved product
+     */
+    static Product createProduct(ProductRepository productRepository, InventoryBatchRepository inventoryBatchRepository,
+                                 String name, int... batchQuantities) {
+        Product product = new Product();
+        product.setName(name);
+        product.setDescription("Test Description");
+        product.setSku("SKU-" + System.nanoTime());
+        Product savedProduct = productRepository.save(product);
+
+        List<InventoryBatch> batches = new ArrayList<>();
+        for (int i = 0; i < batchQuantities.length; i++) {
+            InventoryBatch batch = new InventoryBatch();
+            batch.setBatchNumber("BATCH-" + i);
+            batch.setQuantity(batchQuantities[i]);
+            batch.setExpiryDate(LocalDate.now().plusDays(i + 1));
+            batch.setProduct(savedProduct);
+            batches.add(batch);
+        }
+        inventoryBatchRepository.saveAll(batches);
+        return savedProduct;
+    }
+}
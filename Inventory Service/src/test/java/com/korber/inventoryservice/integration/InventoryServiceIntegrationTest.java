@@ -7,6 +7,9 @@ import com.korber.inventoryservice.model.InventoryBatch;
 import com.korber.inventoryservice.model.Product;
 import com.korber.inventoryservice.repository.InventoryBatchRepository;
 import com.korber.inventoryservice.repository.ProductRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -22,7 +25,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -42,6 +49,9 @@ class InventoryServiceIntegrationTest {
     @Autowired
     private InventoryBatchRepository inventoryBatchRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private String baseUrl;
 
     @BeforeEach
@@ -96,6 +106,42 @@ class InventoryServiceIntegrationTest {
         assertEquals(2, response.getBody().size());
     }
 
+    @Test
+    @DisplayName("Should return only live batches, skipping exhausted and expired ones")
+    void getInventoryBatchesByProductId_ReturnsOnlyLiveBatches() {
+        // Arrange
+        Product product = productRepository.findAll().get(0);
+        
+        InventoryBatch exhausted = new InventoryBatch();
+        exhausted.setBatchNumber("BATCH-EXHAUSTED");
+        exhausted.setQuantity(0);
+        exhausted.setExpiryDate(LocalDate.now().plusMonths(1));
+        exhausted.setProduct(product);
+        
+        InventoryBatch expired = new InventoryBatch();
+        expired.setBatchNumber("BATCH-EXPIRED");
+        expired.setQuantity(40);
+        expired.setExpiryDate(LocalDate.now().minusDays(1));
+        expired.setProduct(product);
+        
+        inventoryBatchRepository.saveAll(List.of(exhausted, expired));
+        
+        // Act
+        ResponseEntity<List<InventoryBatchDTO>> response = restTemplate.exchange(
+                baseUrl + "/inventory/" + product.getId(),
+                HttpMethod.GET,
+                null,
+                new ParameterizedTypeReference<List<InventoryBatchDTO>>() {}
+        );
+        
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().size());
+        assertEquals("BATCH-001", response.getBody().get(0).getBatchNumber());
+        assertEquals("BATCH-002", response.getBody().get(1).getBatchNumber());
+    }
+
     @Test
     @DisplayName("Should return 404 when product not found")
     void getInventoryBatchesByProductId_WhenProductNotFound_Returns404() {
@@ -132,14 +178,47 @@ class InventoryServiceIntegrationTest {
         assertNotNull(response.getBody());
         assertTrue(response.getBody().isSuccess());
         assertEquals("Inventory updated successfully", response.getBody().getMessage());
+        assertEquals(200, response.getBody().getRemainingQuantity());
         
         // Verify inventory was actually updated
-        List<InventoryBatch> batches = inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(product.getId());
+        List<InventoryBatch> batches = inventoryBatchRepository.findLiveByProductId(product.getId(),
+                InventoryFixtures.BEFORE_ANY_EXPIRY);
         assertEquals(2, batches.size());
         assertEquals(50, batches.get(0).getQuantity()); // First batch should be reduced by 50
         assertEquals(150, batches.get(1).getQuantity()); // Second batch should be unchanged
     }
 
+    @Test
+    @DisplayName("Should record deduction latency with SLO buckets, batches touched and remaining stock")
+    void updateInventory_WhenDeductionSpansBatches_RecordsDeductionMetrics() {
+        // Arrange
+        Product product = productRepository.findAll().get(0);
+        DistributionSummary batches = meterRegistry.summary("inventory.deduction.batches", "handler", "STANDARD");
+        double batchesBefore = batches.totalAmount();
+        
+        InventoryUpdateRequest request = new InventoryUpdateRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(120); // 100 from the first batch, 20 from the second
+        request.setHandlerType("STANDARD");
+        
+        // Act
+        ResponseEntity<InventoryUpdateResponse> response = restTemplate.postForEntity(
+                baseUrl + "/inventory/update",
+                new HttpEntity<>(request),
+                InventoryUpdateResponse.class
+        );
+        
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        Timer latency = meterRegistry.get("inventory.deduction.latency")
+                .tags("handler", "STANDARD", "outcome", "granted").timer();
+        assertTrue(latency.count() > 0);
+        assertEquals(8, latency.takeSnapshot().histogramCounts().length);
+        assertEquals(2, batches.totalAmount() - batchesBefore);
+        assertEquals(130, meterRegistry.get("inventory.stock.remaining")
+                .tag("product", String.valueOf(product.getId())).gauge().value());
+    }
+
     @Test
     @DisplayName("Should return bad request when inventory update fails due to insufficient stock")
     void updateInventory_WhenInsufficientStock_ReturnsBadRequest() {
@@ -162,5 +241,107 @@ class InventoryServiceIntegrationTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
         assertNotNull(response.getBody());
         assertFalse(response.getBody().isSuccess());
+        assertEquals(250, response.getBody().getRemainingQuantity());
+        
+        // Verify a denied request leaves every batch untouched
+        List<InventoryBatch> batches = inventoryBatchRepository.findLiveByProductId(product.getId(),
+                InventoryFixtures.BEFORE_ANY_EXPIRY);
+        assertEquals(100, batches.get(0).getQuantity());
+        assertEquals(150, batches.get(1).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should update all lines of a batch in one call")
+    void updateInventoryBatch_WhenAllLinesSucceed_UpdatesInventory() {
+        // Arrange
+        Product product = productRepository.findAll().get(0);
+        
+        List<InventoryUpdateRequest> requests = List.of(
+                new InventoryUpdateRequest(product.getId(), 50, "STANDARD"),
+                new InventoryUpdateRequest(product.getId(), 70, "STANDARD"));
+        
+        // Act
+        ResponseEntity<List<InventoryUpdateResponse>> response = restTemplate.exchange(
+                baseUrl + "/inventory/update/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(requests),
+                new ParameterizedTypeReference<List<InventoryUpdateResponse>>() {}
+        );
+        
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(2, response.getBody().size());
+        assertTrue(response.getBody().get(1).isSuccess());
+        
+        List<InventoryBatch> batches = inventoryBatchRepository.findLiveByProductId(product.getId(),
+                InventoryFixtures.BEFORE_ANY_EXPIRY);
+        assertEquals(1, batches.size()); // First batch of 100 consumed by both lines
+        assertEquals(130, batches.get(0).getQuantity()); // Remaining 20 taken from the second batch
+    }
+
+    @Test
+    @DisplayName("Should roll back every line when one line of a batch fails")
+    void updateInventoryBatch_WhenOneLineFails_RollsBackAllLines() {
+        // Arrange
+        Product product = productRepository.findAll().get(0);
+        
+        List<InventoryUpdateRequest> requests = List.of(
+                new InventoryUpdateRequest(product.getId(), 50, "STANDARD"),
+                new InventoryUpdateRequest(product.getId(), 300, "STANDARD"));
+        
+        // Act
+        ResponseEntity<List<InventoryUpdateResponse>> response = restTemplate.exchange(
+                baseUrl + "/inventory/update/batch",
+                HttpMethod.POST,
+                new HttpEntity<>(requests),
+                new ParameterizedTypeReference<List<InventoryUpdateResponse>>() {}
+        );
+        
+        // Assert
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertFalse(response.getBody().get(0).isSuccess());
+        assertFalse(response.getBody().get(1).isSuccess());
+        
+        // Verify nothing was deducted
+        List<InventoryBatch> batches = inventoryBatchRepository.findLiveByProductId(product.getId(),
+                InventoryFixtures.BEFORE_ANY_EXPIRY);
+        assertEquals(100, batches.get(0).getQuantity());
+        assertEquals(150, batches.get(1).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Should never oversell when deductions for the same product run concurrently")
+    void updateInventory_WhenConcurrentRequests_NeverOversells() throws Exception {
+        // Arrange
+        Product product = productRepository.findAll().get(0);
+        InventoryUpdateRequest request = new InventoryUpdateRequest(product.getId(), 10, "STANDARD");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        
+        // Act - 30 requests of 10 against a total stock of 250
+        List<Future<ResponseEntity<InventoryUpdateResponse>>> futures = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            futures.add(executor.submit(() -> restTemplate.postForEntity(
+                    baseUrl + "/inventory/update",
+                    new HttpEntity<>(request),
+                    InventoryUpdateResponse.class)));
+        }
+        
+        int granted = 0;
+        for (Future<ResponseEntity<InventoryUpdateResponse>> future : futures) {
+            if (future.get().getStatusCode() == HttpStatus.OK) {
+                granted++;
+            }
+        }
+        executor.shutdown();
+        
+        // Assert
+        assertEquals(25, granted);
+        int remaining = inventoryBatchRepository.findLiveByProductId(product.getId(),
+                InventoryFixtures.BEFORE_ANY_EXPIRY).stream()
+                .mapToInt(InventoryBatch::getQuantity)
+                .sum();
+        assertEquals(0, remaining);
     }
 }
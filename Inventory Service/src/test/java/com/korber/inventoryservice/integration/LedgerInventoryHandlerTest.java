@@ -0,0 +1,214 @@
+package com.korber.inventoryservice.integration;
+
+import com.korber.inventoryservice.dto.InventoryUpdateRequest;
+import com.korber.inventoryservice.exception.InventoryBatchUpdateException;
+import com.korber.inventoryservice.factory.DeductionResult;
+import com.korber.inventoryservice.factory.LedgerInventoryHandler;
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.LedgerCheckpointRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.InventoryBatchCacheEvictor;
+import com.korber.inventoryservice.service.InventoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Flush only when the tests ask for it
+@SpringBootTest(properties = "inventory.ledger.flush-interval-ms=3600000")
+@ActiveProfiles("test")
+class LedgerInventoryHandlerTest {
+
+    @Autowired
+    private LedgerInventoryHandler ledgerInventoryHandler;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private LedgerCheckpointRepository ledgerCheckpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private InventoryBatchCacheEvictor inventoryBatchCacheEvictor;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path walDirectory;
+
+    @BeforeEach
+    void setUp() {
+        inventoryBatchRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should answer deductions from memory and write them to the database on flush")
+    void updateInventory_WritesBehind() {
+        // Arrange
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository,
+                "Ledger Product", 10, 20);
+
+        // Act
+        DeductionResult first = ledgerInventoryHandler.updateInventory(product.getId(), 15);
+        DeductionResult second = ledgerInventoryHandler.updateInventory(product.getId(), 20);
+        List<Integer> beforeFlush = quantities(product.getId());
+        ledgerInventoryHandler.flush();
+
+        // Assert
+        assertTrue(first.isGranted());
+        assertEquals(15, first.getRemainingQuantity());
+        assertFalse(second.isGranted());
+        assertEquals(15, second.getRemainingQuantity());
+        assertEquals(List.of(10, 20), beforeFlush);
+        assertEquals(List.of(15), quantities(product.getId()));
+    }
+
+    @Test
+    @DisplayName("Should deny unknown products")
+    void updateInventory_UnknownProduct_Denied() {
+        // Act
+        DeductionResult result = ledgerInventoryHandler.updateInventory(999L, 1);
+
+        // Assert
+        assertFalse(result.isGranted());
+        assertEquals(0, result.getRemainingQuantity());
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive quantities without changing the available stock")
+    void updateInventory_NonPositiveQuantity_Rejected() {
+        // Arrange
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository,
+                "Ledger Product", 10);
+
+        // Act
+        assertThrows(IllegalArgumentException.class, () -> ledgerInventoryHandler.updateInventory(product.getId(), -5));
+        assertThrows(IllegalArgumentException.class, () -> ledgerInventoryHandler.updateInventory(product.getId(), 0));
+        DeductionResult overdraw = ledgerInventoryHandler.updateInventory(product.getId(), 15);
+        DeductionResult all = ledgerInventoryHandler.updateInventory(product.getId(), 10);
+
+        // Assert
+        assertFalse(overdraw.isGranted());
+        assertEquals(10, overdraw.getRemainingQuantity());
+        assertTrue(all.isGranted());
+        assertEquals(0, all.getRemainingQuantity());
+    }
+
+    @Test
+    @DisplayName("Should never oversell under concurrent deductions")
+    void updateInventory_ConcurrentRequests_NeverOversells() throws Exception {
+        // Arrange - 25 units of stock, 300 requests for 1 unit each
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository,
+                "Ledger Product", 10, 10, 5);
+        ExecutorService executor = Executors.newFixedThreadPool(30);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // Act
+        for (int t = 0; t < 30; t++) {
+            futures.add(executor.submit(() -> {
+                int granted = 0;
+                for (int i = 0; i < 10; i++) {
+                    if (ledgerInventoryHandler.updateInventory(product.getId(), 1).isGranted()) {
+                        granted++;
+                    }
+                }
+                return granted;
+            }));
+        }
+        int granted = 0;
+        for (Future<Integer> future : futures) {
+            granted += future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        ledgerInventoryHandler.flush();
+
+        // Assert
+        assertEquals(25, granted);
+        assertEquals(List.of(), quantities(product.getId()));
+    }
+
+    @Test
+    @DisplayName("Should give stock back when a multi-line batch is rolled back")
+    void updateInventoryBatch_WhenOneLineFails_ReleasesLedgerStock() {
+        // Arrange
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository,
+                "Ledger Product", 10);
+        List<InventoryUpdateRequest> requests = List.of(
+                new InventoryUpdateRequest(product.getId(), 6, "LEDGER"),
+                new InventoryUpdateRequest(product.getId(), 6, "LEDGER"));
+
+        // Act
+        assertThrows(InventoryBatchUpdateException.class, () -> inventoryService.updateInventoryBatch(requests));
+        DeductionResult afterRollback = ledgerInventoryHandler.updateInventory(product.getId(), 10);
+        ledgerInventoryHandler.flush();
+
+        // Assert
+        assertTrue(afterRollback.isGranted());
+        assertEquals(List.of(), quantities(product.getId()));
+    }
+
+    @Test
+    @DisplayName("Should replay acknowledged deductions into the database after a crash")
+    void startup_ReplaysLogNotYetFlushed() {
+        // Arrange - an instance that acknowledges deductions and then dies before flushing
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository,
+                "Ledger Product", 10, 20);
+        String instanceId = "crash-test-" + System.nanoTime();
+        LedgerInventoryHandler crashed = newHandler(instanceId);
+        crashed.afterSingletonsInstantiated();
+        assertTrue(crashed.updateInventory(product.getId(), 12).isGranted());
+        assertTrue(crashed.updateInventory(product.getId(), 3).isGranted());
+        assertEquals(List.of(10, 20), quantities(product.getId()));
+
+        // Act
+        LedgerInventoryHandler restarted = newHandler(instanceId);
+        restarted.afterSingletonsInstantiated();
+
+        // Assert
+        assertEquals(List.of(15), quantities(product.getId()));
+        assertEquals(2L, ledgerCheckpointRepository.findById(instanceId).orElseThrow().getLastSequence());
+        DeductionResult next = restarted.updateInventory(product.getId(), 15);
+        assertTrue(next.isGranted());
+        assertEquals(0, next.getRemainingQuantity());
+    }
+
+    private LedgerInventoryHandler newHandler(String instanceId) {
+        return new LedgerInventoryHandler(productRepository, inventoryBatchRepository, ledgerCheckpointRepository,
+                jdbcTemplate, inventoryBatchCacheEvictor, transactionManager, walDirectory, true, instanceId, 3600000);
+    }
+
+    private List<Integer> quantities(Long productId) {
+        return inventoryBatchRepository.findLiveByProductId(productId,
+                InventoryFixtures.BEFORE_ANY_EXPIRY).stream()
+                .map(InventoryBatch::getQuantity)
+                .toList();
+    }
+}
@@ -0,0 +1,99 @@
+package com.korber.inventoryservice.integration;
+
+import com.korber.inventoryservice.factory.DeductionResult;
+import com.korber.inventoryservice.factory.StandardInventoryHandler;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class StandardInventoryHandlerStatementCountTest {
+
+    @Autowired
+    private StandardInventoryHandler inventoryHandler;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        inventoryBatchRepository.deleteAll();
+        productRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Should issue the same number of statements regardless of how many batches a product has")
+    void updateInventory_StatementCountIsIndependentOfBatchCount() {
+        // Act - each deduction of 25 spans three batches of 10
+        long statementsWith5Batches = statementsForDeduction(5, 0);
+        long statementsWith50Batches = statementsForDeduction(50, 0);
+        long statementsWith500Batches = statementsForDeduction(500, 0);
+
+        // Assert - one existence check, one select, one batched update
+        assertEquals(3, statementsWith5Batches);
+        assertEquals(statementsWith5Batches, statementsWith50Batches);
+        assertEquals(statementsWith5Batches, statementsWith500Batches);
+    }
+
+    @Test
+    @DisplayName("Should not load exhausted batches when deducting")
+    void updateInventory_SkipsExhaustedBatchesAtQueryTime() {
+        // Arrange
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository, "Test Product",
+                batchQuantities(10, 200));
+        statistics.clear();
+
+        // Act
+        DeductionResult result = inventoryHandler.updateInventory(product.getId(), 25);
+
+        // Assert
+        assertTrue(result.isGranted());
+        assertEquals(75, result.getRemainingQuantity());
+        assertEquals(10, statistics.getEntityLoadCount()); // Only the live batches are loaded
+        assertEquals(3, statistics.getEntityUpdateCount()); // Only the batches actually consumed are written
+    }
+
+    private long statementsForDeduction(int liveBatches, int exhaustedBatches) {
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository, "Test Product",
+                batchQuantities(liveBatches, exhaustedBatches));
+        statistics.clear();
+
+        DeductionResult result = inventoryHandler.updateInventory(product.getId(), 25);
+
+        assertTrue(result.isGranted());
+        assertEquals(3, statistics.getEntityUpdateCount());
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Exhausted batches expire first, so a deduction has to skip them
+     */
+    private int[] batchQuantities(int liveBatches, int exhaustedBatches) {
+        int[] quantities = new int[exhaustedBatches + liveBatches];
+        Arrays.fill(quantities, exhaustedBatches, quantities.length, 10);
+        return quantities;
+    }
+}
@@ -0,0 +1,136 @@
+package com.korber.inventoryservice.integration;
+
+import com.korber.inventoryservice.factory.DeductionResult;
+import com.korber.inventoryservice.factory.InventoryHandler;
+import com.korber.inventoryservice.factory.StripedInventoryHandler;
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import com.korber.inventoryservice.service.DeductionRetryExecutor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the STRIPED handler against the database when every request targets the same product.
+ * Throughput against STANDARD is measured by StripedInventoryHandlerBenchmark in the jmh profile.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class StripedInventoryHandlerIntegrationTest {
+
+    @Autowired
+    private StripedInventoryHandler stripedInventoryHandler;
+
+    @Autowired
+    private DeductionRetryExecutor deductionRetryExecutor;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventoryBatchRepository.deleteAll();
+        productRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should never oversell a hot product when deductions are coalesced")
+    void stripedHandler_ConcurrentDeductions_GrantExactlyAvailableStock() throws Exception {
+        // Arrange - 25 units of stock spread over three batches, 300 requests for 1 unit each
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository,
+                "Hot Product", 10, 10, 5);
+
+        // Act
+        LoadResult result = run(stripedInventoryHandler, product.getId(), 30, 10);
+
+        // Assert
+        assertEquals(25, result.granted());
+        assertEquals(275, result.denied());
+        assertEquals(0, remainingStock(product.getId()));
+    }
+
+    @Test
+    @DisplayName("Should deny unknown products without touching other stock")
+    void stripedHandler_UnknownProduct_Denied() {
+        // Act
+        DeductionResult result = stripedInventoryHandler.updateInventory(999L, 1);
+
+        // Assert
+        assertFalse(result.isGranted());
+        assertEquals(0, result.getRemainingQuantity());
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive quantity instead of queuing it")
+    void stripedHandler_NonPositiveQuantity_Rejected() {
+        // Arrange
+        Product product = InventoryFixtures.createProduct(productRepository, inventoryBatchRepository,
+                "Hot Product", 10);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> stripedInventoryHandler.updateInventory(product.getId(), 0));
+        assertThrows(IllegalArgumentException.class, () -> stripedInventoryHandler.updateInventory(product.getId(), -5));
+        assertEquals(10, remainingStock(product.getId()));
+    }
+
+    private LoadResult run(InventoryHandler handler, Long productId, int threads, int requestsPerThread)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int granted = 0;
+                for (int i = 0; i < requestsPerThread; i++) {
+                    // Retried the same way InventoryServiceImpl does
+                    DeductionResult result = deductionRetryExecutor.execute(productId,
+                            () -> handler.updateInventory(productId, 1));
+                    if (result.isGranted()) {
+                        granted++;
+                    }
+                }
+                return granted;
+            }));
+        }
+
+        start.countDown();
+        int granted = 0;
+        for (Future<Integer> future : futures) {
+            granted += future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        int total = threads * requestsPerThread;
+        return new LoadResult(granted, total - granted);
+    }
+
+    private int remainingStock(Long productId) {
+        return inventoryBatchRepository.findLiveByProductId(productId,
+                InventoryFixtures.BEFORE_ANY_EXPIRY).stream()
+                .mapToInt(InventoryBatch::getQuantity)
+                .sum();
+    }
+
+    private record LoadResult(int granted, int denied) {
+    }
+}
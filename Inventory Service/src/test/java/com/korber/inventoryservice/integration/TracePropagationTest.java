@@ -0,0 +1,143 @@
+package com.korber.inventoryservice.integration;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.korber.inventoryservice.dto.InventoryUpdateRequest;
+import com.korber.inventoryservice.dto.InventoryUpdateResponse;
+import com.korber.inventoryservice.model.InventoryBatch;
+import com.korber.inventoryservice.model.Product;
+import com.korber.inventoryservice.repository.InventoryBatchRepository;
+import com.korber.inventoryservice.repository.ProductRepository;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability(metrics = false)
+@ActiveProfiles("test")
+class TracePropagationTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @Value("${tracing.export.file}")
+    private Path exportFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        inventoryBatchRepository.deleteAll();
+        productRepository.deleteAll();
+
+        product = new Product();
+        product.setName("Traced Product");
+        product.setDescription("Test Description");
+        product.setSku("TRACE-SKU-" + System.nanoTime());
+        product = productRepository.save(product);
+
+        for (int i = 1; i <= 2; i++) {
+            InventoryBatch batch = new InventoryBatch();
+            batch.setBatchNumber("BATCH-00" + i);
+            batch.setQuantity(100);
+            batch.setExpiryDate(LocalDate.now().plusMonths(i));
+            batch.setProduct(product);
+            inventoryBatchRepository.save(batch);
+        }
+    }
+
+    @Test
+    @DisplayName("Should continue the caller's trace and export request, deduction and repository spans")
+    void updateInventory_WithTraceparent_ExportsSpansInCallerTrace() throws Exception {
+        // Arrange
+        String traceId = randomHex(16);
+        String callerSpanId = randomHex(8);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("traceparent", "00-" + traceId + "-" + callerSpanId + "-01");
+
+        InventoryUpdateRequest request = new InventoryUpdateRequest();
+        request.setProductId(product.getId());
+        request.setQuantity(120);
+        request.setHandlerType("STANDARD");
+
+        // Act
+        ResponseEntity<InventoryUpdateResponse> response = restTemplate.postForEntity(
+                "/inventory/update", new HttpEntity<>(request, headers), InventoryUpdateResponse.class);
+        List<JsonNode> spans = exportedSpans(traceId);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        JsonNode server = span(spans, "http post /inventory/update");
+        assertEquals("SERVER", server.get("kind").asText());
+        assertEquals(callerSpanId, server.get("parentSpanId").asText());
+
+        JsonNode deduction = span(spans, "inventory.deduction");
+        assertEquals(String.valueOf(product.getId()), deduction.get("attributes").get("product.id").asText());
+        assertEquals("STANDARD", deduction.get("attributes").get("handler.type").asText());
+        assertEquals("2", deduction.get("attributes").get("batch.count").asText());
+
+        JsonNode query = span(spans, "InventoryBatchRepository.findLiveByProductId");
+        assertEquals(deduction.get("spanId").asText(), query.get("parentSpanId").asText());
+        assertEquals(String.valueOf(product.getId()), query.get("attributes").get("product.id").asText());
+        assertEquals("2", query.get("attributes").get("batch.count").asText());
+    }
+
+    private List<JsonNode> exportedSpans(String traceId) throws Exception {
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+        List<JsonNode> spans = new ArrayList<>();
+        for (String line : Files.readAllLines(exportFile)) {
+            JsonNode span = objectMapper.readTree(line);
+            if (traceId.equals(span.get("traceId").asText())) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    private static JsonNode span(List<JsonNode> spans, String name) {
+        return spans.stream()
+                .filter(span -> name.equals(span.get("name").asText()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No span named " + name + " in " + spans));
+    }
+
+    private static String randomHex(int bytes) {
+        byte[] random = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(random);
+        return HexFormat.of().formatHex(random);
+    }
+}
@@ -0,0 +1,52 @@
+package com.korber.inventoryservice.service;
+
+import com.korber.inventoryservice.factory.DeductionResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeductionMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeductionMetrics deductionMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deductionMetrics = new DeductionMetrics(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should record latency, batches touched and remaining stock of a granted deduction")
+    void record_WhenGranted_RecordsAllMetrics() {
+        // Act
+        deductionMetrics.record("STANDARD", 1L, DeductionResult.granted(130, 2), TimeUnit.MILLISECONDS.toNanos(3));
+        deductionMetrics.record("STANDARD", 1L, DeductionResult.granted(100, 1), TimeUnit.MILLISECONDS.toNanos(1));
+
+        // Assert
+        assertEquals(2, meterRegistry.get(DeductionMetrics.LATENCY_METRIC)
+                .tags("handler", "STANDARD", "outcome", "granted").timer().count());
+        assertEquals(3, meterRegistry.get(DeductionMetrics.BATCHES_METRIC)
+                .tag("handler", "STANDARD").summary().totalAmount());
+        assertEquals(100, meterRegistry.get(DeductionMetrics.REMAINING_METRIC)
+                .tag("product", "1").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should tag latency by handler type and not create a stock gauge for a denied deduction")
+    void record_WhenDenied_RecordsLatencyOnly() {
+        // Act
+        deductionMetrics.record("LEDGER", 999L, DeductionResult.denied(0), 1000);
+
+        // Assert
+        assertEquals(1, meterRegistry.get(DeductionMetrics.LATENCY_METRIC)
+                .tags("handler", "LEDGER", "outcome", "denied").timer().count());
+        assertNull(meterRegistry.find(DeductionMetrics.BATCHES_METRIC).summary());
+        assertNull(meterRegistry.find(DeductionMetrics.REMAINING_METRIC).gauge());
+    }
+}
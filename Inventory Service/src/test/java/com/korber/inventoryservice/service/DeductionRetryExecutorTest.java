@@ -0,0 +1,98 @@
+package com.korber.inventoryservice.service;
+
+import com.korber.inventoryservice.exception.ConcurrentInventoryUpdateException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeductionRetryExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DeductionRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new DeductionRetryExecutor(meterRegistry, 3, 0, 0, 2.0);
+    }
+
+    @Test
+    @DisplayName("Should return the result without retrying when there is no conflict")
+    void execute_WhenNoConflict_RunsOnce() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        String result = executor.execute(1L, () -> {
+            attempts.incrementAndGet();
+            return "done";
+        });
+
+        // Assert
+        assertEquals("done", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, meterRegistry.find(DeductionRetryExecutor.CONFLICTS_METRIC).counters().size());
+    }
+
+    @Test
+    @DisplayName("Should retry after a conflict and count it for the product")
+    void execute_WhenConflictThenSuccess_RetriesAndRecordsMetrics() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        String result = executor.execute(1L, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("InventoryBatch", 10L);
+            }
+            return "done";
+        });
+
+        // Assert
+        assertEquals("done", result);
+        assertEquals(2, attempts.get());
+        assertEquals(1.0, meterRegistry.counter(DeductionRetryExecutor.CONFLICTS_METRIC, "product", "1").count());
+        assertEquals(1.0, meterRegistry.counter(DeductionRetryExecutor.RETRIES_METRIC, "product", "1").count());
+    }
+
+    @Test
+    @DisplayName("Should give up after the maximum number of attempts")
+    void execute_WhenConflictPersists_ThrowsAfterMaxAttempts() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(ConcurrentInventoryUpdateException.class, () -> executor.execute(List.of(1L, 2L), () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("conflict");
+        }));
+
+        assertEquals(3, attempts.get());
+        assertEquals(3.0, meterRegistry.counter(DeductionRetryExecutor.CONFLICTS_METRIC, "product", "2").count());
+        assertEquals(2.0, meterRegistry.counter(DeductionRetryExecutor.RETRIES_METRIC, "product", "2").count());
+        assertEquals(1.0, meterRegistry.counter(DeductionRetryExecutor.EXHAUSTED_METRIC, "product", "1").count());
+    }
+
+    @Test
+    @DisplayName("Should not retry failures that are not optimistic-locking conflicts")
+    void execute_WhenOtherFailure_DoesNotRetry() {
+        // Arrange
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> executor.execute(1L, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+}
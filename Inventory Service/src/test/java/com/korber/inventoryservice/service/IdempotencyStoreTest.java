@@ -0,0 +1,100 @@
+package com.korber.inventoryservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyStoreTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyStore store;
+    private AtomicInteger runs;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        store = new IdempotencyStore(meterRegistry, 60000, 100);
+        runs = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Should always run requests without a key")
+    void execute_WithoutKey_RunsEveryTime() {
+        // Act
+        store.execute("update", null, "request", runs::incrementAndGet);
+        store.execute("update", null, "request", runs::incrementAndGet);
+
+        // Assert
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should keep keys of different endpoints apart")
+    void execute_SameKeyOnDifferentEndpoints_RunsBoth() {
+        // Act
+        store.execute("update", "key", "request", runs::incrementAndGet);
+        store.execute("update-batch", "key", "request", runs::incrementAndGet);
+
+        // Assert
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("Should make a duplicate wait for the original in flight and share its response")
+    void execute_DuplicateInFlight_WaitsForOriginal() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> original = CompletableFuture.supplyAsync(() ->
+                store.execute("update", "key", "request", () -> {
+                    started.countDown();
+                    await(release);
+                    return runs.incrementAndGet();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        CompletableFuture<Integer> duplicate = CompletableFuture.supplyAsync(() ->
+                store.execute("update", "key", "request", runs::incrementAndGet));
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        // Assert
+        assertEquals(1, original.get(5, TimeUnit.SECONDS));
+        assertEquals(1, duplicate.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+        assertEquals(1, meterRegistry.get(IdempotencyStore.REPLAYS_METRIC).counter().count());
+    }
+
+    @Test
+    @DisplayName("Should run the request again once the entry has expired")
+    void execute_AfterExpiry_RunsAgain() throws Exception {
+        // Arrange
+        store = new IdempotencyStore(meterRegistry, 20, 100);
+        store.execute("update", "key", "request", runs::incrementAndGet);
+
+        // Act
+        Thread.sleep(50);
+        int result = store.execute("update", "key", "request", runs::incrementAndGet);
+
+        // Assert
+        assertEquals(2, result);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,26 +3,36 @@ package com.korber.inventoryservice.service;
 import com.korber.inventoryservice.dto.InventoryBatchDTO;
 import com.korber.inventoryservice.dto.InventoryUpdateRequest;
 import com.korber.inventoryservice.dto.InventoryUpdateResponse;
+import com.korber.inventoryservice.exception.InventoryBatchUpdateException;
+import com.korber.inventoryservice.exception.ResourceNotFoundException;
+import com.korber.inventoryservice.factory.DeductionResult;
 import com.korber.inventoryservice.factory.InventoryHandler;
 import com.korber.inventoryservice.factory.InventoryHandlerFactory;
 import com.korber.inventoryservice.model.InventoryBatch;
 import com.korber.inventoryservice.model.Product;
 import com.korber.inventoryservice.repository.ProductRepository;
+import io.micrometer.tracing.Tracer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +47,18 @@ class InventoryServiceImplTest {
     @Mock
     private InventoryHandler inventoryHandler;
 
+    @Mock
+    private DeductionRetryExecutor deductionRetryExecutor;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DeductionMetrics deductionMetrics;
+
+    @Spy
+    private Tracer tracer = Tracer.NOOP;
+
     @InjectMocks
     private InventoryServiceImpl inventoryService;
 
@@ -45,6 +67,14 @@ class InventoryServiceImplTest {
 
     @BeforeEach
     void setUp() {
+        // Run deductions directly, as if there were no conflicts and a transaction was open
+        lenient().when(deductionRetryExecutor.execute(anyLong(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        lenient().when(deductionRetryExecutor.execute(anyCollection(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+        lenient().when(transactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
         // Set up test data
         product = new Product();
         product.setId(1L);
@@ -92,17 +122,13 @@ class InventoryServiceImplTest {
     }
 
     @Test
-    @DisplayName("Should return empty list when product does not exist")
-    void getInventoryBatchesByProductId_WhenProductDoesNotExist_ReturnsEmptyList() {
+    @DisplayName("Should throw when product does not exist")
+    void getInventoryBatchesByProductId_WhenProductDoesNotExist_ThrowsResourceNotFound() {
         // Arrange
         when(productRepository.findById(999L)).thenReturn(Optional.empty());
 
-        // Act
-        List<InventoryBatchDTO> result = inventoryService.getInventoryBatchesByProductId(999L);
-
-        // Assert
-        assertNotNull(result);
-        assertTrue(result.isEmpty());
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> inventoryService.getInventoryBatchesByProductId(999L));
         verify(productRepository, times(1)).findById(999L);
         verify(inventoryHandlerFactory, never()).getDefaultHandler();
         verify(inventoryHandler, never()).getInventoryBatchesByExpiryDate(any());
@@ -118,7 +144,7 @@ class InventoryServiceImplTest {
         request.setHandlerType("STANDARD");
 
         when(inventoryHandlerFactory.getHandler("STANDARD")).thenReturn(inventoryHandler);
-        when(inventoryHandler.updateInventory(1L, 50)).thenReturn(true);
+        when(inventoryHandler.updateInventory(1L, 50)).thenReturn(DeductionResult.granted(200, 1));
 
         // Act
         InventoryUpdateResponse response = inventoryService.updateInventory(request);
@@ -129,6 +155,7 @@ class InventoryServiceImplTest {
         assertEquals("Inventory updated successfully", response.getMessage());
         assertEquals(1L, response.getProductId());
         assertEquals(50, response.getUpdatedQuantity());
+        assertEquals(200, response.getRemainingQuantity());
         verify(inventoryHandlerFactory, times(1)).getHandler("STANDARD");
         verify(inventoryHandler, times(1)).updateInventory(1L, 50);
     }
@@ -143,7 +170,7 @@ class InventoryServiceImplTest {
         request.setHandlerType("STANDARD");
 
         when(inventoryHandlerFactory.getHandler("STANDARD")).thenReturn(inventoryHandler);
-        when(inventoryHandler.updateInventory(1L, 500)).thenReturn(false);
+        when(inventoryHandler.updateInventory(1L, 500)).thenReturn(DeductionResult.denied(250));
 
         // Act
         InventoryUpdateResponse response = inventoryService.updateInventory(request);
@@ -154,6 +181,7 @@ class InventoryServiceImplTest {
         assertEquals("Failed to update inventory. Insufficient stock or product not found.", response.getMessage());
         assertEquals(1L, response.getProductId());
         assertEquals(500, response.getUpdatedQuantity());
+        assertEquals(250, response.getRemainingQuantity());
         verify(inventoryHandlerFactory, times(1)).getHandler("STANDARD");
         verify(inventoryHandler, times(1)).updateInventory(1L, 500);
     }
@@ -168,7 +196,7 @@ class InventoryServiceImplTest {
         request.setHandlerType(null);
 
         when(inventoryHandlerFactory.getDefaultHandler()).thenReturn(inventoryHandler);
-        when(inventoryHandler.updateInventory(1L, 50)).thenReturn(true);
+        when(inventoryHandler.updateInventory(1L, 50)).thenReturn(DeductionResult.granted(200, 1));
 
         // Act
         InventoryUpdateResponse response = inventoryService.updateInventory(request);
@@ -179,4 +207,70 @@ class InventoryServiceImplTest {
         verify(inventoryHandlerFactory, times(1)).getDefaultHandler();
         verify(inventoryHandler, times(1)).updateInventory(1L, 50);
     }
+
+    @Test
+    @DisplayName("Should update all lines of a batch successfully")
+    void updateInventoryBatch_WhenAllLinesSucceed_ReturnsSuccessResponses() {
+        // Arrange
+        InventoryUpdateRequest request1 = new InventoryUpdateRequest(1L, 50, "STANDARD");
+        InventoryUpdateRequest request2 = new InventoryUpdateRequest(2L, 20, "STANDARD");
+
+        when(inventoryHandlerFactory.getHandler("STANDARD")).thenReturn(inventoryHandler);
+        when(inventoryHandler.updateInventory(1L, 50)).thenReturn(DeductionResult.granted(200, 1));
+        when(inventoryHandler.updateInventory(2L, 20)).thenReturn(DeductionResult.granted(80, 1));
+
+        // Act
+        List<InventoryUpdateResponse> responses = inventoryService.updateInventoryBatch(List.of(request1, request2));
+
+        // Assert
+        assertEquals(2, responses.size());
+        assertTrue(responses.get(0).isSuccess());
+        assertTrue(responses.get(1).isSuccess());
+        assertEquals(2L, responses.get(1).getProductId());
+        verify(inventoryHandler, times(1)).updateInventory(1L, 50);
+        verify(inventoryHandler, times(1)).updateInventory(2L, 20);
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive quantity before any handler is called, whatever the handler type")
+    void updateInventory_WhenQuantityNotPositive_ThrowsForEveryHandlerType() {
+        // Arrange
+        List<InventoryUpdateRequest> batch = List.of(
+                new InventoryUpdateRequest(1L, 50, "STANDARD"),
+                new InventoryUpdateRequest(2L, -5, "LEDGER"));
+
+        // Act & Assert
+        for (String handlerType : List.of("STANDARD", "STRIPED", "LEDGER")) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> inventoryService.updateInventory(new InventoryUpdateRequest(1L, 0, handlerType)));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> inventoryService.updateInventory(new InventoryUpdateRequest(1L, null, "STANDARD")));
+        assertThrows(IllegalArgumentException.class, () -> inventoryService.updateInventoryBatch(batch));
+        verifyNoInteractions(inventoryHandlerFactory, deductionRetryExecutor, transactionTemplate);
+    }
+
+    @Test
+    @DisplayName("Should fail the whole batch and skip remaining lines when one line fails")
+    void updateInventoryBatch_WhenOneLineFails_ThrowsAndStopsProcessing() {
+        // Arrange
+        InventoryUpdateRequest request1 = new InventoryUpdateRequest(1L, 50, "STANDARD");
+        InventoryUpdateRequest request2 = new InventoryUpdateRequest(2L, 500, "STANDARD");
+        InventoryUpdateRequest request3 = new InventoryUpdateRequest(3L, 10, "STANDARD");
+
+        when(inventoryHandlerFactory.getHandler("STANDARD")).thenReturn(inventoryHandler);
+        when(inventoryHandler.updateInventory(1L, 50)).thenReturn(DeductionResult.granted(200, 1));
+        when(inventoryHandler.updateInventory(2L, 500)).thenReturn(DeductionResult.denied(250));
+
+        // Act
+        InventoryBatchUpdateException exception = assertThrows(InventoryBatchUpdateException.class,
+                () -> inventoryService.updateInventoryBatch(List.of(request1, request2, request3)));
+
+        // Assert
+        List<InventoryUpdateResponse> responses = exception.getResponses();
+        assertEquals(3, responses.size());
+        assertTrue(responses.stream().noneMatch(InventoryUpdateResponse::isSuccess));
+        assertEquals("Failed to update inventory. Insufficient stock or product not found.", responses.get(1).getMessage());
+        verify(inventoryHandler, never()).updateInventory(3L, 10);
+    }
 }
@@ -0,0 +1,53 @@
+package com.korber.loadtest;
+
+import java.util.Random;
+
+/**
+ * Weighted choice of the number of lines in an order, parsed from count:weight pairs such as "1:60,2:25,5:10,20:5"
+ */
+public class LineCountDistribution {
+
+    private final int[] counts;
+    private final double[] cumulative;
+
+    public LineCountDistribution(String spec) {
+        String[] pairs = spec.split(",");
+        counts = new int[pairs.length];
+        cumulative = new double[pairs.length];
+        double total = 0;
+        for (int i = 0; i < pairs.length; i++) {
+            String[] pair = pairs[i].trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected count:weight but got " + pairs[i]);
+            }
+            counts[i] = Integer.parseInt(pair[0].trim());
+            double weight = Double.parseDouble(pair[1].trim());
+            if (counts[i] < 1 || weight < 0) {
+                throw new IllegalArgumentException("Line counts must be positive and weights non-negative: " + pairs[i]);
+            }
+            total += weight;
+            cumulative[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one line count needs a positive weight");
+        }
+        for (int i = 0; i < cumulative.length; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    /**
+     * Pick a line count
+     * @param random Source of randomness
+     * @return Number of lines for the next order
+     */
+    public int next(Random random) {
+        double value = random.nextDouble();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i]) {
+                return counts[i];
+            }
+        }
+        return counts[counts.length - 1];
+    }
+}
@@ -0,0 +1,147 @@
+package com.korber.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+/**
+ * Boots the Inventory and Order Services from their jars on H2, seeds a catalogue, places orders and reports
+ * throughput, latency percentiles and oversold stock. A run that oversells, or misses a configured throughput or
+ * p99 threshold, fails with a non-zero exit status so it can gate performance changes.
+ */
+@Slf4j
+public class LoadTestApplication {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /** Final stock reads taken before giving up on the stock settling */
+    private static final int SETTLE_ATTEMPTS = 10;
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        LoadTestReport report = run(config);
+
+        Files.createDirectories(config.getReport().toAbsolutePath().getParent());
+        objectMapper.writeValue(config.getReport().toFile(), report);
+        log.info("{} orders from {} clients: {} placed, {} rejected, {} failed", report.orders(), config.getClients(),
+                report.placed(), report.rejected(), report.failed());
+        log.info("{} orders/s, p50 {} ms, p99 {} ms, p99.9 {} ms", String.format("%.1f", report.ordersPerSecond()),
+                String.format("%.1f", report.p50Millis()), String.format("%.1f", report.p99Millis()),
+                String.format("%.1f", report.p999Millis()));
+        log.info("{} units oversold, {} units deducted without a placed order; report written to {}",
+                report.oversoldUnits(), report.leakedUnits(), config.getReport().toAbsolutePath());
+        if (!report.passed()) {
+            throw new IllegalStateException("Load test failed: " + String.join("; ", report.gateFailures()));
+        }
+    }
+
+    static LoadTestReport run(LoadTestConfig config) throws Exception {
+        // A fresh write-ahead log and span files for each run, kept out of the source tree
+        String runDir = "target/load-test/run-" + System.currentTimeMillis();
+        List<String> inventoryArgs = new ArrayList<>(List.of(
+                "--inventory.seed.products=" + config.getProducts(),
+                "--inventory.seed.batches-per-product=" + config.getBatchesPerProduct(),
+                "--inventory.seed.batch-quantity=" + config.getBatchQuantity(),
+                "--inventory.ledger.wal-dir=" + runDir + "/ledger",
+                "--inventory.ledger.flush-interval-ms=" + config.getLedgerFlushIntervalMillis(),
+                "--tracing.export.file=" + runDir + "/traces/inventory-service.jsonl"));
+        inventoryArgs.addAll(config.getInventoryArgs());
+
+        try (ServiceProcess inventoryService = ServiceProcess.start("inventory-service", config.getInventoryJar(),
+                inventoryArgs)) {
+            List<String> orderArgs = new ArrayList<>(List.of(
+                    "--inventory.service.url=" + inventoryService.baseUrl(),
+                    "--tracing.export.file=" + runDir + "/traces/order-service.jsonl"));
+            orderArgs.addAll(config.getOrderArgs());
+
+            try (ServiceProcess orderService = ServiceProcess.start("order-service", config.getOrderJar(), orderArgs)) {
+                List<Long> productIds = seededProductIds(config);
+                Map<Long, Long> initialStock = readStock(inventoryService, productIds);
+
+                OrderLoadGenerator generator = new OrderLoadGenerator(config, orderService.baseUrl(), productIds);
+                log.info("Warming up with {} orders", config.getWarmUpOrders());
+                generator.run(config.getWarmUpOrders(), config.getSeed() * 1_000_003);
+                log.info("Placing {} orders", config.getOrders());
+                OrderLoadGenerator.Run run = generator.run(config.getOrders(), config.getSeed());
+
+                Map<Long, Long> finalStock = readSettledStock(inventoryService, productIds,
+                        config.getLedgerFlushIntervalMillis());
+                long oversoldUnits = 0;
+                long leakedUnits = 0;
+                for (Long productId : productIds) {
+                    long deducted = initialStock.get(productId) - finalStock.get(productId);
+                    long sold = generator.soldUnits(productId);
+                    oversoldUnits += Math.max(0, sold - deducted);
+                    leakedUnits += Math.max(0, deducted - sold);
+                }
+                return LoadTestReport.of(config, run, oversoldUnits, leakedUnits);
+            }
+        }
+    }
+
+    /**
+     * IDs of the seeded products. They are not read from the Inventory Service, which has no endpoint listing
+     * products: it seeds a fresh database on every run, so they are assumed to run from 1 to the number of products.
+     * The stock read before the run fails if one is missing. Everything downstream is keyed by this list, so only
+     * this method changes if the IDs ever come from elsewhere
+     */
+    private static List<Long> seededProductIds(LoadTestConfig config) {
+        return LongStream.rangeClosed(1, config.getProducts()).boxed().toList();
+    }
+
+    /**
+     * Read the stock once it no longer changes. The LEDGER handler writes deductions to the database up to one flush
+     * interval after granting them, so reads are taken two flush intervals apart until two in a row agree
+     * @return Stock by product ID
+     */
+    private static Map<Long, Long> readSettledStock(ServiceProcess inventoryService, List<Long> productIds,
+                                                    long flushIntervalMillis) throws Exception {
+        Thread.sleep(2 * flushIntervalMillis);
+        Map<Long, Long> stock = readStock(inventoryService, productIds);
+        for (int attempt = 1; attempt < SETTLE_ATTEMPTS; attempt++) {
+            Thread.sleep(2 * flushIntervalMillis);
+            Map<Long, Long> next = readStock(inventoryService, productIds);
+            if (next.equals(stock)) {
+                return next;
+            }
+            stock = next;
+        }
+        throw new IllegalStateException("Stock still changed after " + SETTLE_ATTEMPTS + " reads");
+    }
+
+    /**
+     * Read the stock of every product from GET /inventory/{productId}
+     * @return Stock by product ID
+     */
+    private static Map<Long, Long> readStock(ServiceProcess inventoryService, List<Long> productIds) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        Map<Long, Long> stock = new LinkedHashMap<>();
+        for (Long productId : productIds) {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create(inventoryService.baseUrl() + "/inventory/" + productId)).build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Could not read the stock of product " + productId
+                        + ": HTTP " + response.statusCode());
+            }
+            long quantity = 0;
+            for (JsonNode batch : objectMapper.readTree(response.body())) {
+                quantity += batch.get("quantity").asLong();
+            }
+            stock.put(productId, quantity);
+        }
+        return stock;
+    }
+}
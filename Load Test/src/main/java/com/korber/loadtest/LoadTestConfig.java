@@ -0,0 +1,126 @@
+package com.korber.loadtest;
+
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Settings of one load test run, read from --name=value command-line arguments
+ */
+@Value
+@Builder
+public class LoadTestConfig {
+
+    /** Built jar of the Inventory Service */
+    @Builder.Default
+    Path inventoryJar = Path.of("../Inventory Service/target/inventory-service-0.0.1-SNAPSHOT.jar");
+
+    /** Built jar of the Order Service */
+    @Builder.Default
+    Path orderJar = Path.of("../Order Service/target/order-service-0.0.1-SNAPSHOT.jar");
+
+    /** Extra --name=value arguments for the Inventory Service, e.g. to try another configuration */
+    @Singular
+    List<String> inventoryArgs;
+
+    /** Extra --name=value arguments for the Order Service */
+    @Singular
+    List<String> orderArgs;
+
+    /** Products seeded into the catalogue, with IDs 1 to products */
+    @Builder.Default
+    int products = 1000;
+
+    @Builder.Default
+    int batchesPerProduct = 3;
+
+    @Builder.Default
+    int batchQuantity = 100;
+
+    /** Zipf exponent of product popularity; 0 picks every product equally often */
+    @Builder.Default
+    double skew = 1.0;
+
+    /** Weighted line counts per order, as count:weight pairs */
+    @Builder.Default
+    String lineCounts = "1:60,2:25,5:10,20:5";
+
+    /** Each line orders between 1 and this many units */
+    @Builder.Default
+    int maxQuantity = 3;
+
+    @Builder.Default
+    String handlerType = "STANDARD";
+
+    /** How often the LEDGER handler writes deductions to the database; final stock is read after they settle */
+    @Builder.Default
+    long ledgerFlushIntervalMillis = 200;
+
+    /** Concurrent clients, each placing one order at a time */
+    @Builder.Default
+    int clients = 32;
+
+    /** Orders placed before measuring; they still count towards stock accounting */
+    @Builder.Default
+    int warmUpOrders = 500;
+
+    @Builder.Default
+    int orders = 5000;
+
+    @Builder.Default
+    long seed = 42;
+
+    /** Gate: fail when fewer orders per second are placed; 0 disables */
+    @Builder.Default
+    double minThroughput = 0;
+
+    /** Gate: fail when p99 latency exceeds this many milliseconds; 0 disables */
+    @Builder.Default
+    double maxP99Millis = 0;
+
+    @Builder.Default
+    Path report = Path.of("target/load-test-report.json");
+
+    /**
+     * Parse --name=value arguments; unknown names are rejected so typos do not go unnoticed
+     * @param args Command-line arguments
+     * @return The configuration
+     */
+    public static LoadTestConfig parse(String... args) {
+        LoadTestConfigBuilder builder = builder();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "inventory-jar" -> builder.inventoryJar(Path.of(value));
+                case "order-jar" -> builder.orderJar(Path.of(value));
+                case "inventory-arg" -> builder.inventoryArg(value);
+                case "order-arg" -> builder.orderArg(value);
+                case "products" -> builder.products(Integer.parseInt(value));
+                case "batches-per-product" -> builder.batchesPerProduct(Integer.parseInt(value));
+                case "batch-quantity" -> builder.batchQuantity(Integer.parseInt(value));
+                case "skew" -> builder.skew(Double.parseDouble(value));
+                case "line-counts" -> builder.lineCounts(value);
+                case "max-quantity" -> builder.maxQuantity(Integer.parseInt(value));
+                case "handler-type" -> builder.handlerType(value);
+                case "ledger-flush-interval-ms" -> builder.ledgerFlushIntervalMillis(Long.parseLong(value));
+                case "clients" -> builder.clients(Integer.parseInt(value));
+                case "warm-up-orders" -> builder.warmUpOrders(Integer.parseInt(value));
+                case "orders" -> builder.orders(Integer.parseInt(value));
+                case "seed" -> builder.seed(Long.parseLong(value));
+                case "min-throughput" -> builder.minThroughput(Double.parseDouble(value));
+                case "max-p99-ms" -> builder.maxP99Millis(Double.parseDouble(value));
+                case "report" -> builder.report(Path.of(value));
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.korber.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result of a load test run, as written to the JSON report
+ * @param orders Measured orders
+ * @param placed Measured orders answered with 201
+ * @param rejected Measured orders answered with 400
+ * @param failed Measured orders answered with any other status or not answered
+ * @param ordersPerSecond Placed orders per second over the measured run
+ * @param p50Millis Median order latency
+ * @param p99Millis 99th percentile order latency
+ * @param p999Millis 99.9th percentile order latency
+ * @param oversoldUnits Units in placed orders beyond what the Inventory Service deducted, summed over products
+ * @param leakedUnits Units the Inventory Service deducted beyond what placed orders contain, summed over products
+ * @param gateFailures Reasons the run failed its gate; empty if it passed
+ */
+public record LoadTestReport(
+        int orders,
+        int placed,
+        int rejected,
+        int failed,
+        double ordersPerSecond,
+        double p50Millis,
+        double p99Millis,
+        double p999Millis,
+        long oversoldUnits,
+        long leakedUnits,
+        List<String> gateFailures) {
+
+    /**
+     * Build the report of a measured run and check it against the gate.
+     * Any oversold unit fails the run; throughput and p99 latency fail it only when thresholds are configured
+     */
+    public static LoadTestReport of(LoadTestConfig config, OrderLoadGenerator.Run run,
+                                    long oversoldUnits, long leakedUnits) {
+        long[] sorted = run.latencyNanos().clone();
+        Arrays.sort(sorted);
+        double p99Millis = percentileMillis(sorted, 0.99);
+
+        List<String> gateFailures = new ArrayList<>();
+        if (oversoldUnits > 0) {
+            gateFailures.add(oversoldUnits + " units oversold");
+        }
+        if (config.getMinThroughput() > 0 && run.ordersPerSecond() < config.getMinThroughput()) {
+            gateFailures.add(String.format("%.1f orders/s is below the minimum of %.1f",
+                    run.ordersPerSecond(), config.getMinThroughput()));
+        }
+        if (config.getMaxP99Millis() > 0 && p99Millis > config.getMaxP99Millis()) {
+            gateFailures.add(String.format("p99 of %.1f ms is above the maximum of %.1f ms",
+                    p99Millis, config.getMaxP99Millis()));
+        }
+        return new LoadTestReport(sorted.length, run.placed(), run.rejected(), run.failed(), run.ordersPerSecond(),
+                percentileMillis(sorted, 0.5), p99Millis, percentileMillis(sorted, 0.999),
+                oversoldUnits, leakedUnits, gateFailures);
+    }
+
+    public boolean passed() {
+        return gateFailures.isEmpty();
+    }
+
+    /**
+     * Nearest-rank percentile of sorted latencies
+     */
+    static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(sortedNanos.length * percentile);
+        long nanos = sortedNanos[Math.max(0, Math.min(rank, sortedNanos.length) - 1)];
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
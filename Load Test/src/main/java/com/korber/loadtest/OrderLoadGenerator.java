@@ -0,0 +1,156 @@
+package com.korber.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Places orders on POST /order from a fixed number of closed-loop clients. Every client has its own seeded
+ * random source, so a run with the same settings sends the same orders.
+ */
+public class OrderLoadGenerator {
+
+    private final LoadTestConfig config;
+    private final URI orderUri;
+    private final ProductSampler productSampler;
+    private final LineCountDistribution lineCounts;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    /** Units of each product in placed orders, over warm-up and measured orders, by product ID */
+    private final Map<Long, AtomicLong> soldUnits;
+
+    public OrderLoadGenerator(LoadTestConfig config, String orderServiceUrl, List<Long> productIds) {
+        this.config = config;
+        this.orderUri = URI.create(orderServiceUrl + "/order");
+        this.productSampler = new ProductSampler(productIds, config.getSkew());
+        this.lineCounts = new LineCountDistribution(config.getLineCounts());
+        this.soldUnits = productIds.stream()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), productId -> new AtomicLong()));
+    }
+
+    /**
+     * Place a number of orders
+     * @param orders Number of orders
+     * @param seed Seed of the first client's random source
+     * @return Outcome counts and the latency of every order
+     */
+    public Run run(int orders, long seed) throws Exception {
+        AtomicInteger remaining = new AtomicInteger(orders);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        long[] latencies = new long[orders];
+        AtomicInteger recorded = new AtomicInteger();
+
+        ExecutorService clients = Executors.newFixedThreadPool(config.getClients());
+        List<Future<?>> futures = new ArrayList<>(config.getClients());
+        long started = System.nanoTime();
+        for (int c = 0; c < config.getClients(); c++) {
+            Random random = new Random(seed + c);
+            futures.add(clients.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    long[][] lines = nextOrder(random);
+                    HttpRequest request = HttpRequest.newBuilder(orderUri)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(orderBody(lines)))
+                            .build();
+                    long start = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (IOException e) {
+                        status = -1;
+                    }
+                    latencies[recorded.getAndIncrement()] = System.nanoTime() - start;
+                    if (status == 201) {
+                        placed.incrementAndGet();
+                        for (long[] line : lines) {
+                            soldUnits.get(line[0]).addAndGet(line[1]);
+                        }
+                    } else if (status == 400) {
+                        rejected.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        return new Run(placed.get(), rejected.get(), failed.get(), latencies, elapsedNanos);
+    }
+
+    /**
+     * Units of a product in placed orders so far
+     */
+    public long soldUnits(long productId) {
+        AtomicLong sold = soldUnits.get(productId);
+        return sold == null ? 0 : sold.get();
+    }
+
+    private long[][] nextOrder(Random random) {
+        long[][] lines = new long[lineCounts.next(random)][];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = new long[] {productSampler.next(random), 1 + random.nextInt(config.getMaxQuantity())};
+        }
+        return lines;
+    }
+
+    private String orderBody(long[][] lines) throws Exception {
+        ObjectNode order = objectMapper.createObjectNode()
+                .put("customerName", "Load Test")
+                .put("customerEmail", "load-test@example.com");
+        ArrayNode items = order.putArray("orderItems");
+        for (long[] line : lines) {
+            items.addObject()
+                    .put("productId", line[0])
+                    .put("quantity", line[1])
+                    .put("price", 10.0)
+                    .put("handlerType", config.getHandlerType());
+        }
+        return objectMapper.writeValueAsString(order);
+    }
+
+    /**
+     * Outcome of placing a number of orders
+     * @param placed Orders answered with 201
+     * @param rejected Orders answered with 400, e.g. for insufficient stock
+     * @param failed Orders answered with any other status or not answered
+     * @param latencyNanos Latency of every order, in completion order
+     * @param elapsedNanos Wall-clock time of the run
+     */
+    public record Run(int placed, int rejected, int failed, long[] latencyNanos, long elapsedNanos) {
+
+        public double ordersPerSecond() {
+            return placed * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.korber.loadtest;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Picks product IDs with Zipf-distributed popularity: the k-th product ID is chosen with probability
+ * proportional to 1 / k^skew, so the first one is the hottest. A skew of 0 picks every product equally often.
+ */
+public class ProductSampler {
+
+    private final List<Long> productIds;
+    private final double[] cumulative;
+
+    public ProductSampler(List<Long> productIds, double skew) {
+        if (productIds.isEmpty()) {
+            throw new IllegalArgumentException("At least one product is required");
+        }
+        this.productIds = List.copyOf(productIds);
+        int products = productIds.size();
+        cumulative = new double[products];
+        double total = 0;
+        for (int k = 1; k <= products; k++) {
+            total += 1 / Math.pow(k, skew);
+            cumulative[k - 1] = total;
+        }
+        for (int i = 0; i < products; i++) {
+            cumulative[i] /= total;
+        }
+    }
+
+    /**
+     * Pick a product
+     * @param random Source of randomness
+     * @return One of the product IDs
+     */
+    public long next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int product = index >= 0 ? index : -index - 1;
+        return productIds.get(Math.min(product, cumulative.length - 1));
+    }
+}
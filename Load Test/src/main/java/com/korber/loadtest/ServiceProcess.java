@@ -0,0 +1,117 @@
+package com.korber.loadtest;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One service started from its jar as a local process on a free port, with its output written to a log file
+ */
+@Slf4j
+public class ServiceProcess implements AutoCloseable {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+
+    private final String name;
+    private final Process process;
+    private final Path logFile;
+    @Getter
+    private final int port;
+
+    private ServiceProcess(String name, Process process, Path logFile, int port) {
+        this.name = name;
+        this.process = process;
+        this.logFile = logFile;
+        this.port = port;
+    }
+
+    /**
+     * Start a service and wait until its health endpoint reports UP
+     * @param name Name used for the log file
+     * @param jar Executable Spring Boot jar
+     * @param args Extra --name=value arguments
+     * @return The running service
+     */
+    public static ServiceProcess start(String name, Path jar, List<String> args) throws IOException, InterruptedException {
+        if (!Files.isRegularFile(jar)) {
+            throw new IllegalStateException(jar.toAbsolutePath() + " not found; build it with mvn package first");
+        }
+        int port = freePort();
+        Path logFile = Path.of("target", "load-test", name + ".log");
+        Files.createDirectories(logFile.getParent());
+
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-jar");
+        command.add(jar.toAbsolutePath().toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.jpa.show-sql=false");
+        command.addAll(args);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(logFile.toFile())
+                .start();
+
+        ServiceProcess service = new ServiceProcess(name, process, logFile, port);
+        try {
+            service.awaitHealthy();
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            service.close();
+            throw e;
+        }
+        log.info("{} is up on port {}", name, port);
+        return service;
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    private void awaitHealthy() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl() + "/actuator/health")).build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited during startup; see " + logFile.toAbsolutePath());
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException(name + " did not start within " + STARTUP_TIMEOUT
+                + "; see " + logFile.toAbsolutePath());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.korber.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadTestReportTest {
+
+    @Test
+    @DisplayName("Should report nearest-rank latency percentiles")
+    void of_ReportsPercentiles() {
+        // Given - latencies of 1 to 1000 ms
+        long[] latencies = LongStream.rangeClosed(1, 1000).map(TimeUnit.MILLISECONDS::toNanos).toArray();
+        OrderLoadGenerator.Run run = new OrderLoadGenerator.Run(1000, 0, 0, latencies, TimeUnit.SECONDS.toNanos(10));
+
+        // When
+        LoadTestReport report = LoadTestReport.of(LoadTestConfig.builder().build(), run, 0, 0);
+
+        // Then
+        assertEquals(500, report.p50Millis());
+        assertEquals(990, report.p99Millis());
+        assertEquals(999, report.p999Millis());
+        assertEquals(100, report.ordersPerSecond());
+        assertTrue(report.passed());
+    }
+
+    @Test
+    @DisplayName("Should fail the gate on oversold stock and on configured thresholds")
+    void of_FailsGate() {
+        // Given
+        long[] latencies = new Random(1).longs(100, 1, TimeUnit.MILLISECONDS.toNanos(50)).toArray();
+        OrderLoadGenerator.Run run = new OrderLoadGenerator.Run(100, 0, 0, latencies, TimeUnit.SECONDS.toNanos(10));
+        LoadTestConfig config = LoadTestConfig.parse("--min-throughput=20", "--max-p99-ms=10");
+
+        // When
+        LoadTestReport report = LoadTestReport.of(config, run, 3, 0);
+
+        // Then
+        assertFalse(report.passed());
+        assertEquals(3, report.gateFailures().size());
+        assertEquals("3 units oversold", report.gateFailures().get(0));
+    }
+
+    @Test
+    @DisplayName("Should reject unknown options")
+    void parse_UnknownOption_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> LoadTestConfig.parse("--order=10"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.korber.loadtest;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductSamplerTest {
+
+    private static final int SAMPLES = 100_000;
+
+    @Test
+    @DisplayName("Should pick every product about equally often without skew")
+    void next_WithoutSkew_IsUniform() {
+        // Given
+        ProductSampler sampler = new ProductSampler(productIds(10), 0);
+
+        // When
+        int[] picks = sample(sampler, 10);
+
+        // Then
+        for (int productId = 1; productId <= 10; productId++) {
+            assertEquals(SAMPLES / 10.0, picks[productId], SAMPLES * 0.01);
+        }
+    }
+
+    @Test
+    @DisplayName("Should pick product k in proportion to 1/k with a skew of 1")
+    void next_WithSkew_FollowsZipf() {
+        // Given
+        ProductSampler sampler = new ProductSampler(productIds(100), 1.0);
+
+        // When
+        int[] picks = sample(sampler, 100);
+
+        // Then
+        assertEquals(2.0, picks[1] / (double) picks[2], 0.1);
+        assertEquals(10.0, picks[1] / (double) picks[10], 1.0);
+        assertTrue(picks[100] > 0);
+    }
+
+    @Test
+    @DisplayName("Should pick only the given product IDs, the first one most often")
+    void next_WithGivenIds_PicksThoseIds() {
+        // Given
+        ProductSampler sampler = new ProductSampler(List.of(42L, 7L, 1001L), 1.0);
+        Random random = new Random(1);
+
+        // When
+        int[] picks = new int[3];
+        for (int i = 0; i < SAMPLES; i++) {
+            picks[List.of(42L, 7L, 1001L).indexOf(sampler.next(random))]++;
+        }
+
+        // Then
+        assertTrue(picks[0] > picks[1]);
+        assertTrue(picks[1] > picks[2]);
+        assertEquals(SAMPLES, picks[0] + picks[1] + picks[2]);
+    }
+
+    private List<Long> productIds(int products) {
+        return LongStream.rangeClosed(1, products).boxed().toList();
+    }
+
+    private int[] sample(ProductSampler sampler, int products) {
+        Random random = new Random(1);
+        int[] picks = new int[products + 1];
+        for (int i = 0; i < SAMPLES; i++) {
+            long productId = sampler.next(random);
+            assertTrue(productId >= 1 && productId <= products);
+            picks[(int) productId]++;
+        }
+        return picks;
+    }
+}
@@ -0,0 +1,47 @@
+package com.korber.orderservice.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing an OrderResponse as JSON, as the number of order lines grows.
+ * The ObjectMapper is configured the way Spring Boot configures the one used by the controllers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class OrderResponseSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int lineCount;
+
+    private ObjectMapper objectMapper;
+    private OrderResponse orderResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        List<OrderItemResponse> orderItems = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            orderItems.add(new OrderItemResponse((long) i, (long) i + 1, 1, 10.0, "FIFO"));
+        }
+        orderResponse = new OrderResponse(1L, "John Doe", "john@example.com", LocalDateTime.now(), "PLACED",
+                orderItems, 10.0 * lineCount);
+    }
+
+    @Benchmark
+    public byte[] writeOrderResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orderResponse);
+    }
+}
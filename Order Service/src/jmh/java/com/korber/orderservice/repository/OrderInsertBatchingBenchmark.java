@@ -0,0 +1,70 @@
+package com.korber.orderservice.repository;
+
+import com.korber.orderservice.OrderServiceApplication;
+import com.korber.orderservice.model.Order;
+import com.korber.orderservice.model.OrderItem;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of saving a 50-line order against H2 with JDBC batching off and on.
+ * With batching off every row is its own INSERT round trip, which is what IDENTITY IDs forced before orders and
+ * items moved to pooled sequences.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class OrderInsertBatchingBenchmark {
+
+    private static final int LINES_PER_ORDER = 50;
+
+    @Param({"0", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(OrderServiceApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--order.scheduling.enabled=false",
+                "--spring.datasource.url=jdbc:h2:mem:jmh-insert-" + batchSize,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        orderRepository = context.getBean(OrderRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Order saveOrder() {
+        Order order = new Order();
+        order.setCustomerName("John Doe");
+        order.setCustomerEmail("john@example.com");
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus("PLACED");
+        order.setTotalAmount(10.0 * LINES_PER_ORDER);
+        for (int line = 0; line < LINES_PER_ORDER; line++) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProductId((long) line + 1);
+            orderItem.setQuantity(1);
+            orderItem.setPrice(10.0);
+            orderItem.setHandlerType("FIFO");
+            order.addOrderItem(orderItem);
+        }
+        return orderRepository.save(order);
+    }
+}
@@ -0,0 +1,65 @@
+package com.korber.orderservice.service.impl;
+
+import com.korber.orderservice.dto.OrderResponse;
+import com.korber.orderservice.dto.OrderRow;
+import com.korber.orderservice.model.Order;
+import com.korber.orderservice.model.OrderItem;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building an OrderResponse, from a saved entity and from the rows read by the order queries,
+ * as the number of order lines grows
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@State(Scope.Benchmark)
+public class OrderResponseMappingBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int lineCount;
+
+    private OrderServiceImpl orderService;
+    private Order order;
+    private List<OrderRow> rows;
+
+    @Setup
+    public void setUp() {
+        // Mapping touches none of the collaborators
+        orderService = new OrderServiceImpl(null, null, null, null, null, null, null, null);
+
+        LocalDateTime now = LocalDateTime.now();
+        order = new Order();
+        order.setId(1L);
+        order.setCustomerName("John Doe");
+        order.setCustomerEmail("john@example.com");
+        order.setOrderDate(now);
+        order.setStatus("PLACED");
+        order.setTotalAmount(10.0 * lineCount);
+        rows = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            OrderItem orderItem = new OrderItem((long) i, (long) i + 1, 1, 10.0, "FIFO", null);
+            order.addOrderItem(orderItem);
+            rows.add(new OrderRow(1L, "John Doe", "john@example.com", now, "PLACED", 10.0 * lineCount,
+                    (long) i, (long) i + 1, 1, 10.0, "FIFO"));
+        }
+    }
+
+    @Benchmark
+    public OrderResponse mapToOrderResponse() {
+        return orderService.mapToOrderResponse(order);
+    }
+
+    @Benchmark
+    public void assembleOrders(Blackhole blackhole) {
+        orderService.assembleOrders(rows.iterator(), blackhole::consume);
+    }
+}
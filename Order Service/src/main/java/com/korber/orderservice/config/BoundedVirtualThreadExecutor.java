@@ -0,0 +1,45 @@
+package com.korber.orderservice.config;
+
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Executor that runs each task on a new virtual thread, with at most a fixed number running at once.
+ * Submitting waits while the limit is reached. A Semaphore is used for the wait because waiting on a monitor
+ * would pin the submitting virtual thread to its carrier.
+ */
+class BoundedVirtualThreadExecutor implements Executor {
+
+    private final VirtualThreadTaskExecutor delegate;
+    private final Semaphore permits;
+
+    BoundedVirtualThreadExecutor(String threadNamePrefix, int maxConcurrency) {
+        this.delegate = new VirtualThreadTaskExecutor(threadNamePrefix);
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting to run a task", e);
+        }
+        try {
+            delegate.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.korber.orderservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP client and executor used to call the Inventory Service.
+ * Connections are pooled and kept alive, every phase of a call is bounded by a timeout so a slow
+ * Inventory Service cannot hold request threads indefinitely, and idle connections are evicted.
+ */
+@Configuration
+public class InventoryClientConfig {
+
+    public static final String POOL_NAME = "inventory-service";
+    public static final String LEASE_WAIT_METRIC = "inventory.client.pool.lease.wait";
+    public static final String CHECK_EXECUTOR_NAME = "inventory-check";
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager inventoryConnectionManager(
+            MeterRegistry meterRegistry,
+            @Value("${inventory.client.max-connections:200}") int maxConnections,
+            @Value("${inventory.client.max-connections-per-route:50}") int maxConnectionsPerRoute,
+            @Value("${inventory.client.connect-timeout-ms:1000}") long connectTimeoutMillis,
+            @Value("${inventory.client.read-timeout-ms:3000}") long readTimeoutMillis,
+            @Value("${inventory.client.time-to-live-ms:300000}") long timeToLiveMillis) {
+        Timer leaseWait = Timer.builder(LEASE_WAIT_METRIC)
+                .description("Time spent waiting for a pooled connection to the Inventory Service")
+                .tag("pool", POOL_NAME)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        PoolingHttpClientConnectionManager connectionManager = new LeaseTimingConnectionManager(leaseWait);
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMillis))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                .setTimeToLive(TimeValue.ofMilliseconds(timeToLiveMillis))
+                .build());
+
+        // Leased, available, pending and maximum connections as gauges
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, POOL_NAME).bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient inventoryHttpClient(
+            PoolingHttpClientConnectionManager inventoryConnectionManager,
+            @Value("${inventory.client.connection-request-timeout-ms:500}") long connectionRequestTimeoutMillis,
+            @Value("${inventory.client.read-timeout-ms:3000}") long readTimeoutMillis,
+            @Value("${inventory.client.idle-eviction-ms:30000}") long idleEvictionMillis) {
+        return HttpClients.custom()
+                .setConnectionManager(inventoryConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMillis))
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMillis))
+                        .build())
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleEvictionMillis))
+                .evictExpiredConnections()
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient inventoryHttpClient) {
+        // Built from Boot's builder so calls are also recorded as http.client.requests
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(inventoryHttpClient))
+                .build();
+    }
+
+    /**
+     * Bounded executor on which the per-line availability checks of an order are fanned out.
+     * When every thread is busy and the queue is full, the calling request thread runs the check itself,
+     * so a burst of orders degrades to sequential checks instead of failing.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ExecutorService inventoryCheckExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${order.inventory.precheck.parallelism:16}") int parallelism,
+            @Value("${order.inventory.precheck.queue-capacity:256}") int queueCapacity) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, CHECK_EXECUTOR_NAME + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return TracingConfig.propagatingContext(
+                ExecutorServiceMetrics.monitor(meterRegistry, executor, CHECK_EXECUTOR_NAME));
+    }
+
+    /**
+     * Virtual-thread variant of the availability check executor, used when spring.threads.virtual.enabled is set.
+     * Each check gets its own virtual thread; at most the configured parallelism run at once.
+     */
+    @Bean("inventoryCheckExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public Executor virtualInventoryCheckExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${order.inventory.precheck.parallelism:16}") int parallelism) {
+        Executor executor = new BoundedVirtualThreadExecutor(CHECK_EXECUTOR_NAME + "-", parallelism);
+        return TracingConfig.propagatingContext(
+                ExecutorServiceMetrics.monitor(meterRegistry, executor, CHECK_EXECUTOR_NAME));
+    }
+}
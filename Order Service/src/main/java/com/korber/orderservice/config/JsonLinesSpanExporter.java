@@ -0,0 +1,103 @@
+package com.korber.orderservice.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes finished spans to a local file, one JSON object per line, so traces can be inspected without a collector.
+ * Spans reach it in batches from the span processor's own thread, never from a request thread.
+ */
+@Slf4j
+public class JsonLinesSpanExporter implements SpanExporter {
+
+    private static final AttributeKey<String> SERVICE_NAME = AttributeKey.stringKey("service.name");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path file;
+    private BufferedWriter writer;
+
+    public JsonLinesSpanExporter(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans) {
+        try {
+            BufferedWriter writer = writer();
+            for (SpanData span : spans) {
+                writer.write(objectMapper.writeValueAsString(toJson(span)));
+                writer.newLine();
+            }
+            writer.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            log.warn("Could not export {} spans", spans.size(), e);
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        if (writer == null) {
+            return CompletableResultCode.ofSuccess();
+        }
+        try {
+            writer.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    /**
+     * Get the writer of the export file, opening it on the first export so no file is created until there are spans
+     * @return The writer, appending to the file
+     */
+    private BufferedWriter writer() throws IOException {
+        if (writer == null) {
+            Path directory = file.toAbsolutePath().getParent();
+            if (directory != null) {
+                Files.createDirectories(directory);
+            }
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        return writer;
+    }
+
+    private ObjectNode toJson(SpanData span) {
+        ObjectNode json = objectMapper.createObjectNode()
+                .put("traceId", span.getTraceId())
+                .put("spanId", span.getSpanId())
+                .put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null)
+                .put("service", span.getResource().getAttribute(SERVICE_NAME))
+                .put("name", span.getName())
+                .put("kind", span.getKind().name())
+                .put("start", Instant.ofEpochSecond(0, span.getStartEpochNanos()).toString())
+                .put("durationMicros", TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()))
+                .put("status", span.getStatus().getStatusCode().name());
+        ObjectNode attributes = json.putObject("attributes");
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        return json;
+    }
+}
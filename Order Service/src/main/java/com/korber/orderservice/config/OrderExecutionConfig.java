@@ -0,0 +1,82 @@
+package com.korber.orderservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors for order placement work that runs off the request thread.
+ * <ul>
+ *   <li>Once the inventory calls of an asynchronous order complete, the order is saved on the persistence executor,
+ *   so JPA never runs on an HTTP client event-loop thread. It is sized like the JDBC connection pool, since every
+ *   task holds a connection. A place in it is reserved from the persistence permits before any inventory is
+ *   deducted; when none is left, orders are rejected with 503 while nothing has been deducted yet.</li>
+ *   <li>In async acceptance mode, the outbox dispatcher sends the orders of one drained batch to the Inventory
+ *   Service concurrently on the outbox executor.</li>
+ * </ul>
+ * Tasks run in the trace context of the thread that submitted them.
+ */
+@Configuration
+public class OrderExecutionConfig {
+
+    public static final String PERSISTENCE_EXECUTOR_NAME = "order-persistence";
+    public static final String OUTBOX_EXECUTOR_NAME = "order-outbox";
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService orderPersistenceExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${order.async.persistence-threads:10}") int threads,
+            @Value("${order.async.queue-capacity:1000}") int queueCapacity) {
+        return boundedExecutor(meterRegistry, PERSISTENCE_EXECUTOR_NAME, threads, queueCapacity,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Get the places of the persistence executor, its threads and queue, that asynchronous orders reserve
+     * before their inventory is deducted, so the executor never rejects an order whose stock is already taken
+     * @return One permit per place
+     */
+    @Bean
+    public Semaphore orderPersistencePermits(
+            @Value("${order.async.persistence-threads:10}") int threads,
+            @Value("${order.async.queue-capacity:1000}") int queueCapacity) {
+        return new Semaphore(threads + queueCapacity);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "order.acceptance.mode", havingValue = "async")
+    public ExecutorService orderOutboxExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${order.outbox.parallelism:8}") int parallelism,
+            @Value("${order.outbox.batch-size:50}") int batchSize) {
+        // Holds one drained batch; the dispatcher waits for it before draining the next
+        return boundedExecutor(meterRegistry, OUTBOX_EXECUTOR_NAME, parallelism, batchSize,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private static ExecutorService boundedExecutor(MeterRegistry meterRegistry, String name, int threads,
+                                                   int queueCapacity, RejectedExecutionHandler rejectionPolicy) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), threadFactory, rejectionPolicy);
+        executor.allowCoreThreadTimeOut(true);
+        return TracingConfig.propagatingContext(ExecutorServiceMetrics.monitor(meterRegistry, executor, name));
+    }
+}
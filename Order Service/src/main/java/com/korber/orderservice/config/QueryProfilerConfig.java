@@ -0,0 +1,46 @@
+package com.korber.orderservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Sampling SQL profiler, in place of logging every statement with spring.jpa.show-sql.
+ * The DataSource is wrapped so the statements of sampled requests report to the {@link QueryProfiler}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "query.profiler.enabled", havingValue = "true")
+public class QueryProfilerConfig {
+
+    @Bean
+    public QueryProfiler queryProfiler(
+            MeterRegistry meterRegistry,
+            @Value("${query.profiler.sample-rate:0.1}") double sampleRate,
+            @Value("${query.profiler.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        return new QueryProfiler(meterRegistry, sampleRate, nPlusOneThreshold);
+    }
+
+    @Bean
+    public QueryProfilingFilter queryProfilingFilter(QueryProfiler queryProfiler) {
+        return new QueryProfilingFilter(queryProfiler);
+    }
+
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor(ObjectProvider<QueryProfiler> queryProfiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource(dataSource, queryProfiler.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,43 @@
+package com.korber.orderservice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Decides whether a request is profiled by the {@link QueryProfiler}, and reports its statements when it completes.
+ * Statements run on other threads, such as the persistence executor of POST /order/async, are not attributed to it.
+ */
+@RequiredArgsConstructor
+public class QueryProfilingFilter extends OncePerRequestFilter {
+
+    private final QueryProfiler queryProfiler;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!queryProfiler.begin()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            queryProfiler.end(endpoint(request));
+        }
+    }
+
+    /**
+     * Get the endpoint of a request from its mapped path pattern, so IDs in the path do not become metric tags
+     */
+    private static String endpoint(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED");
+    }
+}
@@ -0,0 +1,56 @@
+package com.korber.orderservice.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking HTTP client used to call the Inventory Service when order.inventory.client is "reactive".
+ * Uses the same pool limits and timeouts as the blocking client, so the two can be compared like for like.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.inventory.client", havingValue = "reactive")
+public class ReactiveInventoryClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider inventoryConnectionProvider(
+            @Value("${inventory.client.max-connections-per-route:50}") int maxConnections,
+            @Value("${inventory.client.connection-request-timeout-ms:500}") long connectionRequestTimeoutMillis,
+            @Value("${inventory.client.idle-eviction-ms:30000}") long idleEvictionMillis,
+            @Value("${inventory.client.time-to-live-ms:300000}") long timeToLiveMillis) {
+        return ConnectionProvider.builder(InventoryClientConfig.POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeoutMillis))
+                .maxIdleTime(Duration.ofMillis(idleEvictionMillis))
+                .maxLifeTime(Duration.ofMillis(timeToLiveMillis))
+                .evictInBackground(Duration.ofMillis(idleEvictionMillis))
+                // Active, idle and pending connections as reactor.netty.connection.provider.* gauges
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient inventoryWebClient(
+            WebClient.Builder webClientBuilder,
+            ConnectionProvider inventoryConnectionProvider,
+            @Value("${inventory.service.url}") String inventoryServiceUrl,
+            @Value("${inventory.client.connect-timeout-ms:1000}") int connectTimeoutMillis,
+            @Value("${inventory.client.read-timeout-ms:3000}") long readTimeoutMillis) {
+        HttpClient httpClient = HttpClient.create(inventoryConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+                .responseTimeout(Duration.ofMillis(readTimeoutMillis));
+        // Built from Boot's builder so calls are also recorded as http.client.requests
+        return webClientBuilder
+                .baseUrl(inventoryServiceUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+}
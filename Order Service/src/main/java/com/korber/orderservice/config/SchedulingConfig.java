@@ -0,0 +1,14 @@
+package com.korber.orderservice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled background jobs such as the order outbox dispatcher
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "order.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
@@ -0,0 +1,49 @@
+package com.korber.orderservice.config;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Tracing beyond what Spring Boot instruments by itself.
+ * Boot traces incoming requests and sends the trace context on every call made through the RestTemplate and
+ * WebClient builders; the executors that make inventory calls off the request thread carry the context over, and
+ * finished spans are written to a local file so traces can be read offline.
+ */
+@Configuration
+public class TracingConfig {
+
+    private static final ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+
+    @Bean(destroyMethod = "")
+    @ConditionalOnExpression("!'${tracing.export.file:}'.isEmpty()")
+    public JsonLinesSpanExporter jsonLinesSpanExporter(@Value("${tracing.export.file}") Path file) {
+        // Closed by the span processor when the tracer provider shuts down
+        return new JsonLinesSpanExporter(file);
+    }
+
+    /**
+     * Wrap an executor so each task runs in the trace context of the thread that submitted it
+     * @param executor The executor
+     * @return The wrapped executor
+     */
+    static ExecutorService propagatingContext(ExecutorService executor) {
+        return ContextExecutorService.wrap(executor, snapshotFactory::captureAll);
+    }
+
+    /**
+     * Wrap an executor so each task runs in the trace context of the thread that submitted it
+     * @param executor The executor
+     * @return The wrapped executor
+     */
+    static Executor propagatingContext(Executor executor) {
+        return task -> executor.execute(snapshotFactory.captureAll().wrap(task));
+    }
+}
@@ -1,19 +1,30 @@
 package com.korber.orderservice.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.korber.orderservice.dto.OrderPageResponse;
 import com.korber.orderservice.dto.OrderRequest;
 import com.korber.orderservice.dto.OrderResponse;
+import com.korber.orderservice.dto.OrderSearchCriteria;
 import com.korber.orderservice.service.OrderService;
+import com.korber.orderservice.service.impl.IdempotencyStore;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/order")
@@ -21,25 +32,68 @@ import java.util.List;
 @Tag(name = "Order Controller", description = "API for order management")
 public class OrderController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final OrderService orderService;
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @Operation(
         summary = "Place a new order",
-        description = "Places a new order and updates inventory accordingly",
+        description = "Places a new order and updates inventory accordingly. In async acceptance mode the order is "
+                + "accepted as PENDING and the inventory is updated in the background. A request repeated with the same "
+                + "Idempotency-Key is answered with the original order and is not placed again",
         responses = {
             @ApiResponse(
                 responseCode = "201", 
                 description = "Order created successfully",
                 content = @Content(schema = @Schema(implementation = OrderResponse.class))
             ),
+            @ApiResponse(
+                responseCode = "202", 
+                description = "Order accepted as PENDING; poll GET /order/{id} for PLACED or REJECTED",
+                content = @Content(schema = @Schema(implementation = OrderResponse.class))
+            ),
             @ApiResponse(responseCode = "400", description = "Invalid request or insufficient inventory"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different order"),
             @ApiResponse(responseCode = "503", description = "Inventory service unavailable")
         }
     )
-    public ResponseEntity<OrderResponse> createOrder(@RequestBody OrderRequest orderRequest) {
-        OrderResponse orderResponse = orderService.createOrder(orderRequest);
-        return new ResponseEntity<>(orderResponse, HttpStatus.CREATED);
+    public ResponseEntity<OrderResponse> createOrder(
+            @RequestBody OrderRequest orderRequest,
+            @Parameter(description = "Key identifying this order across client retries")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        OrderResponse orderResponse = idempotencyStore.execute("order", idempotencyKey, orderRequest,
+                () -> orderService.createOrder(orderRequest, idempotencyKey));
+        HttpStatus status = "PENDING".equals(orderResponse.getStatus()) ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+        return new ResponseEntity<>(orderResponse, status);
+    }
+
+    @PostMapping("/async")
+    @Operation(
+        summary = "Place a new order without blocking a request thread",
+        description = "Places a new order like POST /order, but releases the request thread while the Inventory Service is called. "
+                + "A request repeated with the same Idempotency-Key is answered with the original order and is not placed again",
+        responses = {
+            @ApiResponse(
+                responseCode = "201", 
+                description = "Order created successfully",
+                content = @Content(schema = @Schema(implementation = OrderResponse.class))
+            ),
+            @ApiResponse(responseCode = "400", description = "Invalid request or insufficient inventory"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different order"),
+            @ApiResponse(responseCode = "500", description = "Inventory deducted but the order could not be saved"),
+            @ApiResponse(responseCode = "503", description = "Inventory service unavailable or Order Service overloaded")
+        }
+    )
+    public CompletableFuture<ResponseEntity<OrderResponse>> createOrderAsync(
+            @RequestBody OrderRequest orderRequest,
+            @Parameter(description = "Key identifying this order across client retries")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        return idempotencyStore.executeAsync("order-async", idempotencyKey, orderRequest,
+                        () -> orderService.createOrderAsync(orderRequest, idempotencyKey))
+                .thenApply(orderResponse -> new ResponseEntity<>(orderResponse, HttpStatus.CREATED));
     }
 
     @GetMapping("/{id}")
@@ -62,17 +116,58 @@ public class OrderController {
 
     @GetMapping
     @Operation(
-        summary = "Get all orders",
-        description = "Retrieves all orders in the system",
+        summary = "List orders",
+        description = "Retrieves one page of orders, newest first, optionally filtered by status, customer email and "
+                + "order date. Pass the returned nextCursor as cursor to get the next page",
         responses = {
             @ApiResponse(
                 responseCode = "200", 
-                description = "Orders retrieved successfully"
+                description = "Orders retrieved successfully",
+                content = @Content(schema = @Schema(implementation = OrderPageResponse.class))
             )
         }
     )
-    public ResponseEntity<List<OrderResponse>> getAllOrders() {
-        List<OrderResponse> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+    public ResponseEntity<OrderPageResponse> getOrders(
+            @Parameter(description = "Order status") @RequestParam(required = false) String status,
+            @Parameter(description = "Customer email") @RequestParam(required = false) String customerEmail,
+            @Parameter(description = "Earliest order date, inclusive (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Latest order date, exclusive (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) Long cursor,
+            @Parameter(description = "Page size") @RequestParam(defaultValue = "50") int limit) {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(status, customerEmail, from, to);
+        return ResponseEntity.ok(orderService.getOrders(criteria, cursor, limit));
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    @Operation(
+        summary = "Export orders",
+        description = "Streams every order matching the filters as newline-delimited JSON, newest first. "
+                + "Orders are written as they are read, so memory use does not grow with the number of orders",
+        responses = {
+            @ApiResponse(responseCode = "200", description = "Orders streamed successfully")
+        }
+    )
+    public void exportOrders(
+            @Parameter(description = "Order status") @RequestParam(required = false) String status,
+            @Parameter(description = "Customer email") @RequestParam(required = false) String customerEmail,
+            @Parameter(description = "Earliest order date, inclusive (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Latest order date, exclusive (ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) throws IOException {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(status, customerEmail, from, to);
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        orderService.exportOrders(criteria, order -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(order));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        out.flush();
     }
 }
@@ -0,0 +1,18 @@
+package com.korber.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryUpdateResponse {
+    private boolean success;
+    private String message;
+    private Long productId;
+    private Integer updatedQuantity;
+    private Integer remainingQuantity;
+}
@@ -0,0 +1,16 @@
+package com.korber.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderPageResponse {
+    private List<OrderResponse> orders;
+    // Pass as the cursor parameter to get the next page; null on the last page
+    private Long nextCursor;
+}
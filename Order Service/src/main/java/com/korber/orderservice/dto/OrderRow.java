@@ -0,0 +1,20 @@
+package com.korber.orderservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One order line as read by the order queries, without loading entities; orders without items have null item fields
+ */
+public record OrderRow(
+        Long orderId,
+        String customerName,
+        String customerEmail,
+        LocalDateTime orderDate,
+        String status,
+        Double totalAmount,
+        Long itemId,
+        Long productId,
+        Integer quantity,
+        Double price,
+        String handlerType) {
+}
@@ -0,0 +1,24 @@
+package com.korber.orderservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters for listing and exporting orders; null fields do not filter
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSearchCriteria {
+    private String status;
+    private String customerEmail;
+    // Inclusive
+    private LocalDateTime from;
+    // Exclusive
+    private LocalDateTime to;
+}
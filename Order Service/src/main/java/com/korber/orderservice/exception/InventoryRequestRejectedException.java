@@ -0,0 +1,12 @@
+package com.korber.orderservice.exception;
+
+/**
+ * The Inventory Service was reached but refused the request with a 4xx response that carries no per-line result,
+ * such as an unknown product or a reused Idempotency-Key. Sending the same request again gets the same answer
+ */
+public class InventoryRequestRejectedException extends InventoryServiceException {
+    
+    public InventoryRequestRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
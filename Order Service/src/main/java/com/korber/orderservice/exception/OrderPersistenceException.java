@@ -0,0 +1,27 @@
+package com.korber.orderservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * The inventory of an order was deducted but the order could not be saved
+ */
+@ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+public class OrderPersistenceException extends RuntimeException {
+    
+    private final boolean retryable;
+    
+    public OrderPersistenceException(String message, boolean retryable, Throwable cause) {
+        super(message, cause);
+        this.retryable = retryable;
+    }
+    
+    /**
+     * Get whether the order may be sent again; true only when it carried an Idempotency-Key, so the
+     * Inventory Service does not deduct its inventory a second time
+     * @return Whether a retry is safe
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+}
@@ -10,14 +10,22 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+// Keyset listing filters on these columns and walks them in ID order
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_email_id", columnList = "customer_email, id"),
+        @Index(name = "idx_orders_status_id", columnList = "status, id"),
+        @Index(name = "idx_orders_order_date", columnList = "order_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // IDs are reserved 50 at a time, so an order and its items are inserted in JDBC batches;
+    // IDENTITY would force one INSERT round trip per row to read back the generated key
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     private String customerName;
@@ -0,0 +1,40 @@
+package com.korber.orderservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Accepted order whose inventory deduction has not yet been sent to the Inventory Service.
+ * Written in the same transaction as the PENDING order, and deleted in the same transaction that settles it.
+ * While a dispatcher is sending it, the entry carries that dispatcher's claim
+ */
+@Entity
+@Table(name = "order_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutboxEntry {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(nullable = false, unique = true)
+    private Long orderId;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(nullable = false)
+    private Integer attempts;
+    
+    // Set by the dispatcher instance sending the entry; other instances skip it until claimedUntil has passed
+    private String claimToken;
+    
+    private LocalDateTime claimedUntil;
+}
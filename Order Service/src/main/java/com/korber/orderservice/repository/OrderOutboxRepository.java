@@ -0,0 +1,60 @@
+package com.korber.orderservice.repository;
+
+import com.korber.orderservice.model.OrderOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutboxEntry, Long> {
+    
+    /**
+     * Get the IDs of the oldest entries no dispatcher holds a live claim on, in the order they were accepted
+     * @param now The current time; claims that expired before it are ignored
+     * @param pageable Number of IDs to return
+     * @return List of outbox entry IDs
+     */
+    @Query("SELECT e.id FROM OrderOutboxEntry e WHERE e.claimedUntil IS NULL OR e.claimedUntil < :now ORDER BY e.id ASC")
+    List<Long> findClaimableIds(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    /**
+     * Claim entries for one dispatch, skipping any that another dispatcher claimed since they were read.
+     * The condition is checked again on each row as it is updated, so two dispatchers never both claim an entry
+     * @param ids The entry IDs to claim
+     * @param claimToken Identifies this claim
+     * @param claimedUntil When the claim expires if the entry has not been settled by then
+     * @param now The current time
+     * @return The number of entries claimed
+     */
+    @Modifying
+    @Query("UPDATE OrderOutboxEntry e SET e.claimToken = :claimToken, e.claimedUntil = :claimedUntil "
+            + "WHERE e.id IN :ids AND (e.claimedUntil IS NULL OR e.claimedUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken,
+              @Param("claimedUntil") LocalDateTime claimedUntil, @Param("now") LocalDateTime now);
+    
+    /**
+     * Get the entries of one claim, in the order they were accepted
+     * @param claimToken The claim token
+     * @return List of outbox entries
+     */
+    @Query("SELECT e FROM OrderOutboxEntry e WHERE e.claimToken = :claimToken ORDER BY e.id ASC")
+    List<OrderOutboxEntry> findClaimed(@Param("claimToken") String claimToken);
+    
+    /**
+     * Record a failed attempt to send an outbox entry and release its claim, so the next poll of any
+     * dispatcher can retry it
+     * @param id The outbox entry ID
+     * @return The number of entries updated
+     */
+    @Modifying
+    @Query("UPDATE OrderOutboxEntry e SET e.attempts = e.attempts + 1, e.claimToken = NULL, e.claimedUntil = NULL "
+            + "WHERE e.id = :id")
+    int incrementAttempts(@Param("id") Long id);
+}
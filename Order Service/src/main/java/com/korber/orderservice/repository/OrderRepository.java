@@ -1,9 +1,51 @@
 package com.korber.orderservice.repository;
 
+import com.korber.orderservice.dto.OrderRow;
 import com.korber.orderservice.model.Order;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository {
+
+    /**
+     * Get an order with its items loaded in the same query, for callers that modify or walk the entity
+     * @param id Order ID
+     * @return The order, if it exists
+     */
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findWithItemsById(Long id);
+
+    /**
+     * Get the lines of one order in a single query, as projections rather than entities
+     * @param id Order ID
+     * @return One row per order item, in item order; a single row with null item fields for an order without items,
+     * and no rows if the order does not exist
+     */
+    @Query("SELECT new com.korber.orderservice.dto.OrderRow(o.id, o.customerName, o.customerEmail, o.orderDate, "
+            + "o.status, o.totalAmount, i.id, i.productId, i.quantity, i.price, i.handlerType) "
+            + "FROM Order o LEFT JOIN o.orderItems i "
+            + "WHERE o.id = :id "
+            + "ORDER BY i.id ASC")
+    List<OrderRow> findRowsById(@Param("id") Long id);
+
+    /**
+     * Get the lines of several orders in a single query, newest order first
+     * @param ids Order IDs, such as a page from findPageIds
+     * @return One row per order item, with the rows of an order adjacent; a single row with null item fields
+     * for an order without items
+     */
+    @Query("SELECT new com.korber.orderservice.dto.OrderRow(o.id, o.customerName, o.customerEmail, o.orderDate, "
+            + "o.status, o.totalAmount, i.id, i.productId, i.quantity, i.price, i.handlerType) "
+            + "FROM Order o LEFT JOIN o.orderItems i "
+            + "WHERE o.id IN :ids "
+            + "ORDER BY o.id DESC, i.id ASC")
+    List<OrderRow> findRowsByIdIn(@Param("ids") Collection<Long> ids);
 }
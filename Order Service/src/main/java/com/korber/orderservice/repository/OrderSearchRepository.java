@@ -0,0 +1,32 @@
+package com.korber.orderservice.repository;
+
+import com.korber.orderservice.dto.OrderRow;
+import com.korber.orderservice.dto.OrderSearchCriteria;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Order queries whose WHERE clause is built from the filters that are set, so each filter can use its index
+ */
+public interface OrderSearchRepository {
+
+    /**
+     * Get the IDs of one page of orders, newest order first.
+     * The page is chosen by keyset on the order ID, so the cost of a page does not grow with its depth
+     * @param criteria Filters; null fields do not filter
+     * @param beforeId Only orders with a lower ID are returned; null for the first page
+     * @param limit Maximum number of IDs to return
+     * @return Order IDs in descending order
+     */
+    List<Long> findPageIds(OrderSearchCriteria criteria, Long beforeId, int limit);
+
+    /**
+     * Stream every order line matching the filters, newest order first, from a forward-only cursor.
+     * Rows are projections rather than entities, so nothing accumulates in the persistence context.
+     * Must be consumed inside a transaction and closed
+     * @param criteria Filters; null fields do not filter
+     * @return Stream of rows, one per order item, with the rows of an order adjacent
+     */
+    Stream<OrderRow> streamForExport(OrderSearchCriteria criteria);
+}
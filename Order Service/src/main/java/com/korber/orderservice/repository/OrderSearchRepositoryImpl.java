@@ -0,0 +1,88 @@
+package com.korber.orderservice.repository;
+
+import com.korber.orderservice.dto.OrderRow;
+import com.korber.orderservice.dto.OrderSearchCriteria;
+import com.korber.orderservice.model.Order;
+import com.korber.orderservice.model.OrderItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+/**
+ * Criteria implementation of OrderSearchRepository. A filter that is not set adds no predicate, rather than
+ * a catch-all "IS NULL OR" that keeps the optimizer from using the (status, id) and (customer_email, id) indexes
+ */
+public class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Long> findPageIds(OrderSearchCriteria criteria, Long beforeId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Order> order = query.from(Order.class);
+
+        List<Predicate> predicates = filters(cb, order, criteria);
+        if (beforeId != null) {
+            predicates.add(cb.lessThan(order.get("id"), beforeId));
+        }
+        query.select(order.get("id"))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(order.get("id")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Stream<OrderRow> streamForExport(OrderSearchCriteria criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderRow> query = cb.createQuery(OrderRow.class);
+        Root<Order> order = query.from(Order.class);
+        Join<Order, OrderItem> item = order.join("orderItems", JoinType.LEFT);
+
+        query.select(cb.construct(OrderRow.class,
+                        order.get("id"), order.get("customerName"), order.get("customerEmail"),
+                        order.get("orderDate"), order.get("status"), order.get("totalAmount"),
+                        item.get("id"), item.get("productId"), item.get("quantity"), item.get("price"),
+                        item.get("handlerType")))
+                .where(filters(cb, order, criteria).toArray(Predicate[]::new))
+                .orderBy(cb.desc(order.get("id")), cb.asc(item.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HINT_FETCH_SIZE, 500)
+                .setHint(HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private List<Predicate> filters(CriteriaBuilder cb, Root<Order> order, OrderSearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>(5);
+        if (criteria.getStatus() != null) {
+            predicates.add(cb.equal(order.get("status"), criteria.getStatus()));
+        }
+        if (criteria.getCustomerEmail() != null) {
+            predicates.add(cb.equal(order.get("customerEmail"), criteria.getCustomerEmail()));
+        }
+        if (criteria.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.get("orderDate"), criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            predicates.add(cb.lessThan(order.get("orderDate"), criteria.getTo()));
+        }
+        return predicates;
+    }
+}
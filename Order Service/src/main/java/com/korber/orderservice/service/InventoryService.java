@@ -2,10 +2,38 @@ package com.korber.orderservice.service;
 
 import com.korber.orderservice.dto.InventoryResponse;
 import com.korber.orderservice.dto.InventoryUpdateRequest;
+import com.korber.orderservice.dto.InventoryUpdateResponse;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 public interface InventoryService {
     List<InventoryResponse> checkInventory(Long productId);
-    void updateInventory(InventoryUpdateRequest request);
+    List<InventoryResponse> refreshInventory(Long productId);
+    InventoryUpdateResponse updateInventory(InventoryUpdateRequest request);
+    List<InventoryUpdateResponse> updateInventoryBatch(List<InventoryUpdateRequest> requests, String idempotencyKey);
+
+    // Asynchronous variants; implementations backed by a blocking client complete them before returning
+
+    default CompletableFuture<List<InventoryResponse>> checkInventoryAsync(Long productId) {
+        return completed(() -> checkInventory(productId));
+    }
+
+    default CompletableFuture<List<InventoryResponse>> refreshInventoryAsync(Long productId) {
+        return completed(() -> refreshInventory(productId));
+    }
+
+    default CompletableFuture<List<InventoryUpdateResponse>> updateInventoryBatchAsync(List<InventoryUpdateRequest> requests,
+                                                                                       String idempotencyKey) {
+        return completed(() -> updateInventoryBatch(requests, idempotencyKey));
+    }
+
+    private static <T> CompletableFuture<T> completed(Supplier<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
@@ -1,12 +1,17 @@
 package com.korber.orderservice.service;
 
+import com.korber.orderservice.dto.OrderPageResponse;
 import com.korber.orderservice.dto.OrderRequest;
 import com.korber.orderservice.dto.OrderResponse;
+import com.korber.orderservice.dto.OrderSearchCriteria;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 public interface OrderService {
-    OrderResponse createOrder(OrderRequest orderRequest);
+    OrderResponse createOrder(OrderRequest orderRequest, String idempotencyKey);
+    CompletableFuture<OrderResponse> createOrderAsync(OrderRequest orderRequest, String idempotencyKey);
     OrderResponse getOrderById(Long id);
-    List<OrderResponse> getAllOrders();
+    OrderPageResponse getOrders(OrderSearchCriteria criteria, Long cursor, int limit);
+    long exportOrders(OrderSearchCriteria criteria, Consumer<OrderResponse> sink);
 }
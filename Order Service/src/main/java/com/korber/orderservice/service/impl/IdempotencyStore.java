@@ -0,0 +1,136 @@
+package com.korber.orderservice.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.korber.orderservice.exception.IdempotencyKeyReusedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of orders placed with an Idempotency-Key, so a client retry is answered with the original
+ * order instead of placing it again. A duplicate that arrives while the original is still running waits for it.
+ * A request that fails with an exception saved no order and is forgotten, so its retry runs again; its inventory
+ * deduction is keyed from the same Idempotency-Key, so the Inventory Service does not deduct twice either.
+ * Entries expire after order.idempotency.ttl-ms and the store is bounded by order.idempotency.maximum-size.
+ */
+@Component
+public class IdempotencyStore {
+    
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYS_METRIC = "order.idempotency.replays";
+    
+    private final Cache<String, Entry> entries;
+    private final Counter replays;
+    
+    public IdempotencyStore(
+            MeterRegistry meterRegistry,
+            @Value("${order.idempotency.ttl-ms:3600000}") long ttlMillis,
+            @Value("${order.idempotency.maximum-size:100000}") long maximumSize) {
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(maximumSize)
+                .build();
+        this.replays = Counter.builder(REPLAYS_METRIC)
+                .description("Orders answered with the response of an earlier request with the same Idempotency-Key")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Run a request at most once per idempotency key
+     * @param scope The endpoint the key belongs to; the same key may be used on different endpoints
+     * @param key The idempotency key, or null to always run the request
+     * @param request The request body; a key may only be sent again with an equal body
+     * @param action Runs the request
+     * @return The response of the first request with this key
+     * @throws IdempotencyKeyReusedException if the key was already used for a different request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object request, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String scopedKey = scope + ":" + key;
+        Entry entry = new Entry(request, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(scopedKey, entry);
+        if (existing != null) {
+            if (!existing.request().equals(request)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            replays.increment();
+            return (T) await(existing.response());
+        }
+        
+        try {
+            T response = action.get();
+            entry.response().complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            entries.asMap().remove(scopedKey, entry);
+            entry.response().completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Run an asynchronous request at most once per idempotency key, without blocking while it or a duplicate runs
+     * @param scope The endpoint the key belongs to; the same key may be used on different endpoints
+     * @param key The idempotency key, or null to always run the request
+     * @param request The request body; a key may only be sent again with an equal body
+     * @param action Starts the request
+     * @return The response of the first request with this key
+     * @throws IdempotencyKeyReusedException if the key was already used for a different request
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String scope, String key, Object request,
+                                                 Supplier<CompletableFuture<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String scopedKey = scope + ":" + key;
+        Entry entry = new Entry(request, new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(scopedKey, entry);
+        if (existing != null) {
+            if (!existing.request().equals(request)) {
+                throw new IdempotencyKeyReusedException(key);
+            }
+            replays.increment();
+            return (CompletableFuture<T>) (CompletableFuture<?>) existing.response().copy();
+        }
+        
+        CompletableFuture<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.whenComplete((value, failure) -> {
+            if (failure != null) {
+                entries.asMap().remove(scopedKey, entry);
+                entry.response().completeExceptionally(failure);
+            } else {
+                entry.response().complete(value);
+            }
+        });
+    }
+    
+    private static Object await(CompletableFuture<Object> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private record Entry(Object request, CompletableFuture<Object> response) {
+    }
+}
@@ -0,0 +1,233 @@
+package com.korber.orderservice.service.impl;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.korber.orderservice.dto.InventoryResponse;
+import com.korber.orderservice.exception.ResourceNotFoundException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Short-lived near-cache of per-product availability fetched from the Inventory Service.
+ * Concurrent misses on the same product share one remote call, and unknown products are
+ * cached as such. When disabled, every lookup goes to the loader.
+ * Remote calls run outside the cache's internal locks, and callers waiting on a call in progress
+ * block on a future rather than a monitor, so neither pins a virtual thread.
+ */
+@Component
+public class InventoryAvailabilityCache {
+
+    public static final String CACHE_NAME = "inventoryAvailability";
+    public static final String STALENESS_METRIC = "inventory.availability.cache.staleness";
+    public static final String HIT_RATIO_METRIC = "inventory.availability.cache.hit.ratio";
+
+    private final boolean enabled;
+    private final AsyncCache<Long, Availability> cache;
+    private final Timer staleness;
+
+    public InventoryAvailabilityCache(
+            MeterRegistry meterRegistry,
+            @Value("${order.inventory.availability-cache.enabled:false}") boolean enabled,
+            @Value("${order.inventory.availability-cache.ttl-ms:1000}") long ttlMillis,
+            @Value("${order.inventory.availability-cache.negative-ttl-ms:5000}") long negativeTtlMillis,
+            @Value("${order.inventory.availability-cache.maximum-size:10000}") long maximumSize) {
+        this.enabled = enabled;
+        long ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        long negativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(negativeTtlMillis);
+
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Availability>() {
+                    @Override
+                    public long expireAfterCreate(Long productId, Availability availability, long currentTime) {
+                        return availability.isKnown() ? ttlNanos : negativeTtlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long productId, Availability availability, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(productId, availability, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long productId, Availability availability, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+        Gauge.builder(HIT_RATIO_METRIC, cache, c -> c.synchronous().stats().hitRate())
+                .description("Share of availability lookups answered from the near-cache")
+                .register(meterRegistry);
+        this.staleness = Timer.builder(STALENESS_METRIC)
+                .description("Age of the cached availability returned by a cache hit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the live batches of a product, from the cache if present
+     * @param productId The product ID
+     * @param loader Fetches the live batches remotely; throws ResourceNotFoundException for unknown products
+     * @return The live batches
+     * @throws ResourceNotFoundException if the product is unknown
+     */
+    public List<InventoryResponse> get(Long productId, Function<Long, List<InventoryResponse>> loader) {
+        return join(getAsync(productId, blocking(loader)));
+    }
+
+    /**
+     * Get the live batches of a product, from the cache if present, without blocking
+     * @param productId The product ID
+     * @param loader Fetches the live batches remotely; fails with ResourceNotFoundException for unknown products
+     * @return The live batches, failing with ResourceNotFoundException if the product is unknown
+     */
+    public CompletableFuture<List<InventoryResponse>> getAsync(
+            Long productId, Function<Long, CompletableFuture<List<InventoryResponse>>> loader) {
+        if (!enabled) {
+            return loader.apply(productId);
+        }
+
+        CompletableFuture<Availability> loading = new CompletableFuture<>();
+        CompletableFuture<Availability> cached = cache.get(productId, (id, executor) -> loading);
+        if (cached != loading) {
+            return cached.thenApply(availability -> {
+                staleness.record(System.nanoTime() - availability.fetchedAtNanos(), TimeUnit.NANOSECONDS);
+                return availability.batchesOrThrow(productId);
+            });
+        }
+
+        // This caller won the miss; concurrent callers wait on the future until the load completes.
+        // A failed future is dropped from the cache, so failures are not cached.
+        load(productId, loader).whenComplete((availability, failure) -> {
+            if (failure != null) {
+                loading.completeExceptionally(unwrap(failure));
+            } else {
+                loading.complete(availability);
+            }
+        });
+        return loading.thenApply(availability -> availability.batchesOrThrow(productId));
+    }
+
+    /**
+     * Fetch the live batches of a product remotely, ignoring and replacing any cached value
+     * @param productId The product ID
+     * @param loader Fetches the live batches remotely
+     * @return The live batches
+     * @throws ResourceNotFoundException if the product is unknown
+     */
+    public List<InventoryResponse> refresh(Long productId, Function<Long, List<InventoryResponse>> loader) {
+        return join(refreshAsync(productId, blocking(loader)));
+    }
+
+    /**
+     * Fetch the live batches of a product remotely without blocking, ignoring and replacing any cached value
+     * @param productId The product ID
+     * @param loader Fetches the live batches remotely
+     * @return The live batches, failing with ResourceNotFoundException if the product is unknown
+     */
+    public CompletableFuture<List<InventoryResponse>> refreshAsync(
+            Long productId, Function<Long, CompletableFuture<List<InventoryResponse>>> loader) {
+        if (!enabled) {
+            return loader.apply(productId);
+        }
+
+        return load(productId, loader).thenApply(availability -> {
+            cache.put(productId, CompletableFuture.completedFuture(availability));
+            return availability.batchesOrThrow(productId);
+        });
+    }
+
+    /**
+     * Drop cached availability of products whose stock has changed
+     * @param productIds The product IDs
+     */
+    public void evict(Collection<Long> productIds) {
+        if (enabled) {
+            cache.synchronous().invalidateAll(productIds);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+    }
+
+    /**
+     * Adapt a blocking loader; it runs on the calling thread, and its failures complete the future
+     */
+    private static Function<Long, CompletableFuture<List<InventoryResponse>>> blocking(
+            Function<Long, List<InventoryResponse>> loader) {
+        return productId -> {
+            try {
+                return CompletableFuture.completedFuture(loader.apply(productId));
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        };
+    }
+
+    private CompletableFuture<Availability> load(
+            Long productId, Function<Long, CompletableFuture<List<InventoryResponse>>> loader) {
+        CompletableFuture<List<InventoryResponse>> batches;
+        try {
+            batches = loader.apply(productId);
+        } catch (RuntimeException e) {
+            batches = CompletableFuture.failedFuture(e);
+        }
+        return batches.handle((loaded, failure) -> {
+            if (failure == null) {
+                return new Availability(loaded == null ? List.of() : List.copyOf(loaded), System.nanoTime());
+            }
+            Throwable cause = unwrap(failure);
+            if (cause instanceof ResourceNotFoundException) {
+                return new Availability(null, System.nanoTime());
+            }
+            throw cause instanceof RuntimeException runtimeException
+                    ? runtimeException : new CompletionException(cause);
+        });
+    }
+
+    /**
+     * Cached availability of one product
+     * @param batches The live batches, or null if the product is unknown
+     * @param fetchedAtNanos When the batches were fetched, from System.nanoTime()
+     */
+    private record Availability(List<InventoryResponse> batches, long fetchedAtNanos) {
+
+        private boolean isKnown() {
+            return batches != null;
+        }
+
+        private List<InventoryResponse> batchesOrThrow(Long productId) {
+            if (batches == null) {
+                throw new ResourceNotFoundException("Product", "id", productId);
+            }
+            return batches;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.korber.orderservice.service.impl;
+
+import com.korber.orderservice.exception.InventoryRequestRejectedException;
+import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.exception.ResourceNotFoundException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker and concurrency bulkhead around remote calls to the Inventory Service.
+ * A failing or slow Inventory Service opens the circuit so calls fail fast with InventoryServiceException
+ * until a half-open probe succeeds, and no more than a fixed number of calls may be in flight at once.
+ */
+@Component
+@Slf4j
+public class InventoryCallGuard {
+
+    public static final String NAME = "inventory-service";
+    public static final String TRANSITIONS_METRIC = "inventory.client.circuit.transitions";
+    public static final String REJECTED_METRIC = "inventory.client.rejected";
+
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    public InventoryCallGuard(
+            MeterRegistry meterRegistry,
+            @Value("${inventory.client.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${inventory.client.circuit-breaker.slow-call-duration-ms:2000}") long slowCallDurationMillis,
+            @Value("${inventory.client.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+            @Value("${inventory.client.circuit-breaker.sliding-window-size:20}") int slidingWindowSize,
+            @Value("${inventory.client.circuit-breaker.minimum-number-of-calls:10}") int minimumNumberOfCalls,
+            @Value("${inventory.client.circuit-breaker.wait-in-open-ms:5000}") long waitInOpenMillis,
+            @Value("${inventory.client.circuit-breaker.permitted-calls-in-half-open:3}") int permittedCallsInHalfOpen,
+            @Value("${inventory.client.bulkhead.max-concurrent-calls:50}") int maxConcurrentCalls,
+            @Value("${inventory.client.bulkhead.max-wait-ms:0}") long maxWaitMillis) {
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .slowCallDurationThreshold(Duration.ofMillis(slowCallDurationMillis))
+                .slowCallRateThreshold(slowCallRateThreshold)
+                .slidingWindowSize(slidingWindowSize)
+                .minimumNumberOfCalls(minimumNumberOfCalls)
+                .waitDurationInOpenState(Duration.ofMillis(waitInOpenMillis))
+                .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpen)
+                // Only failures to reach the Inventory Service count; an unknown product or a refused request
+                // is a valid answer
+                .recordExceptions(InventoryServiceException.class)
+                .ignoreExceptions(ResourceNotFoundException.class, InventoryRequestRejectedException.class)
+                .build());
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(maxConcurrentCalls)
+                .maxWaitDuration(Duration.ofMillis(maxWaitMillis))
+                .build());
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+
+        // State, call outcomes and not-permitted calls of the breaker; available and maximum bulkhead permits
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+
+        this.circuitOpenRejections = rejectedCounter(meterRegistry, "circuit_open");
+        this.bulkheadFullRejections = rejectedCounter(meterRegistry, "bulkhead_full");
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.StateTransition transition = event.getStateTransition();
+            log.warn("Inventory Service circuit breaker moved from {} to {}",
+                    transition.getFromState(), transition.getToState());
+            Counter.builder(TRANSITIONS_METRIC)
+                    .description("Circuit breaker state transitions of the Inventory Service client")
+                    .tag("name", NAME)
+                    .tag("from", transition.getFromState().name())
+                    .tag("to", transition.getToState().name())
+                    .register(meterRegistry)
+                    .increment();
+        });
+    }
+
+    /**
+     * Run a remote call to the Inventory Service through the bulkhead and the circuit breaker
+     * @param call The remote call; signals an unreachable Inventory Service with InventoryServiceException
+     * @return The result of the call
+     * @throws InventoryServiceException if the call fails, the circuit is open, or too many calls are in flight
+     */
+    public <T> T call(Supplier<T> call) {
+        try {
+            return Bulkhead.decorateSupplier(bulkhead, CircuitBreaker.decorateSupplier(circuitBreaker, call)).get();
+        } catch (CallNotPermittedException e) {
+            circuitOpenRejections.increment();
+            throw new InventoryServiceException("Inventory Service is unavailable; circuit breaker is open", e);
+        } catch (BulkheadFullException e) {
+            bulkheadFullRejections.increment();
+            throw new InventoryServiceException("Inventory Service is busy; too many calls in flight", e);
+        }
+    }
+
+    /**
+     * Run a non-blocking remote call to the Inventory Service through the bulkhead and the circuit breaker.
+     * The bulkhead permit is held until the returned future completes.
+     * @param call Starts the remote call; signals an unreachable Inventory Service with InventoryServiceException
+     * @return The result of the call, failing with InventoryServiceException if the call fails, the circuit is open,
+     * or too many calls are in flight
+     */
+    public <T> CompletableFuture<T> callAsync(Supplier<CompletableFuture<T>> call) {
+        return Bulkhead.decorateCompletionStage(bulkhead, CircuitBreaker.decorateCompletionStage(circuitBreaker, call::get))
+                .get()
+                .toCompletableFuture()
+                .exceptionallyCompose(failure -> CompletableFuture.failedFuture(translate(failure)));
+    }
+
+    /**
+     * Get the current circuit breaker state
+     * @return The state
+     */
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    private Throwable translate(Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        if (cause instanceof CallNotPermittedException) {
+            circuitOpenRejections.increment();
+            return new InventoryServiceException("Inventory Service is unavailable; circuit breaker is open", cause);
+        }
+        if (cause instanceof BulkheadFullException) {
+            bulkheadFullRejections.increment();
+            return new InventoryServiceException("Inventory Service is busy; too many calls in flight", cause);
+        }
+        return cause;
+    }
+
+    private Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder(REJECTED_METRIC)
+                .description("Inventory Service calls rejected without being attempted")
+                .tag("name", NAME)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -2,33 +2,56 @@ package com.korber.orderservice.service.impl;
 
 import com.korber.orderservice.dto.InventoryResponse;
 import com.korber.orderservice.dto.InventoryUpdateRequest;
+import com.korber.orderservice.dto.InventoryUpdateResponse;
+import com.korber.orderservice.exception.InventoryRequestRejectedException;
 import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.exception.ResourceNotFoundException;
 import com.korber.orderservice.service.InventoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
+@ConditionalOnProperty(name = "order.inventory.client", havingValue = "blocking", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class InventoryServiceImpl implements InventoryService {
 
     private final RestTemplate restTemplate;
+    private final InventoryAvailabilityCache availabilityCache;
+    private final InventoryCallGuard callGuard;
 
     @Value("${inventory.service.url}")
     private String inventoryServiceUrl;
 
     @Override
     public List<InventoryResponse> checkInventory(Long productId) {
+        return availabilityCache.get(productId, this::fetchInventory);
+    }
+
+    @Override
+    public List<InventoryResponse> refreshInventory(Long productId) {
+        return availabilityCache.refresh(productId, this::fetchInventory);
+    }
+
+    private List<InventoryResponse> fetchInventory(Long productId) {
+        return callGuard.call(() -> doFetchInventory(productId));
+    }
+
+    private List<InventoryResponse> doFetchInventory(Long productId) {
         try {
             String url = inventoryServiceUrl + "/inventory/" + productId;
             ResponseEntity<List<InventoryResponse>> response = restTemplate.exchange(
@@ -39,6 +62,8 @@ public class InventoryServiceImpl implements InventoryService {
             );
             
             return response.getBody();
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ResourceNotFoundException("Product", "id", productId);
         } catch (RestClientException e) {
             log.error("Error checking inventory for product ID {}: {}", productId, e.getMessage());
             throw new InventoryServiceException("Failed to check inventory for product ID " + productId, e);
@@ -46,13 +71,74 @@ public class InventoryServiceImpl implements InventoryService {
     }
 
     @Override
-    public void updateInventory(InventoryUpdateRequest request) {
+    public InventoryUpdateResponse updateInventory(InventoryUpdateRequest request) {
+        return callGuard.call(() -> doUpdateInventory(request));
+    }
+
+    private InventoryUpdateResponse doUpdateInventory(InventoryUpdateRequest request) {
         try {
             String url = inventoryServiceUrl + "/inventory/update";
-            restTemplate.postForEntity(url, request, Void.class);
+            InventoryUpdateResponse response = restTemplate.postForEntity(url, request, InventoryUpdateResponse.class).getBody();
+            // The deduction has committed, so cached availability of the product is out of date
+            availabilityCache.evict(List.of(request.getProductId()));
+            return response;
+        } catch (HttpClientErrorException.BadRequest e) {
+            // The deduction was denied; the body carries the stock that is actually available
+            InventoryUpdateResponse response = e.getResponseBodyAs(InventoryUpdateResponse.class);
+            if (response == null) {
+                throw new InventoryRequestRejectedException("Inventory update rejected: " + e.getMessage(), e);
+            }
+            return response;
+        } catch (HttpClientErrorException e) {
+            throw new InventoryRequestRejectedException("Inventory update rejected: " + e.getMessage(), e);
         } catch (RestClientException e) {
             log.error("Error updating inventory for product ID {}: {}", request.getProductId(), e.getMessage());
             throw new InventoryServiceException("Failed to update inventory for product ID " + request.getProductId(), e);
         }
     }
+
+    @Override
+    public List<InventoryUpdateResponse> updateInventoryBatch(List<InventoryUpdateRequest> requests, String idempotencyKey) {
+        return callGuard.call(() -> doUpdateInventoryBatch(requests, idempotencyKey));
+    }
+
+    private List<InventoryUpdateResponse> doUpdateInventoryBatch(List<InventoryUpdateRequest> requests, String idempotencyKey) {
+        ParameterizedTypeReference<List<InventoryUpdateResponse>> responseType =
+                new ParameterizedTypeReference<List<InventoryUpdateResponse>>() {};
+        try {
+            String url = inventoryServiceUrl + "/inventory/update/batch";
+            ResponseEntity<List<InventoryUpdateResponse>> response = restTemplate.exchange(
+                    url,
+                    HttpMethod.POST,
+                    new HttpEntity<>(requests, idempotencyHeaders(idempotencyKey)),
+                    responseType
+            );
+            
+            // The whole batch has committed, so cached availability of its products is out of date
+            availabilityCache.evict(requests.stream()
+                    .map(InventoryUpdateRequest::getProductId)
+                    .collect(Collectors.toSet()));
+            return response.getBody();
+        } catch (HttpClientErrorException.BadRequest e) {
+            // The batch was rejected and rolled back; the body tells us which line failed
+            List<InventoryUpdateResponse> responses = e.getResponseBodyAs(responseType);
+            if (responses == null) {
+                throw new InventoryRequestRejectedException("Batch inventory update rejected: " + e.getMessage(), e);
+            }
+            return responses;
+        } catch (HttpClientErrorException e) {
+            throw new InventoryRequestRejectedException("Batch inventory update rejected: " + e.getMessage(), e);
+        } catch (RestClientException e) {
+            log.error("Error updating inventory in batch for {} lines: {}", requests.size(), e.getMessage());
+            throw new InventoryServiceException("Failed to update inventory for " + requests.size() + " order lines", e);
+        }
+    }
+
+    private static HttpHeaders idempotencyHeaders(String idempotencyKey) {
+        HttpHeaders headers = new HttpHeaders();
+        if (idempotencyKey != null) {
+            headers.set(IdempotencyStore.HEADER, idempotencyKey);
+        }
+        return headers;
+    }
 }
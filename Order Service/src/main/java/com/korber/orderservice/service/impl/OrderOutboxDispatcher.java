@@ -0,0 +1,237 @@
+package com.korber.orderservice.service.impl;
+
+import com.korber.orderservice.dto.InventoryUpdateRequest;
+import com.korber.orderservice.dto.InventoryUpdateResponse;
+import com.korber.orderservice.exception.InventoryRequestRejectedException;
+import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.model.OrderOutboxEntry;
+import com.korber.orderservice.repository.OrderOutboxRepository;
+import com.korber.orderservice.repository.OrderRepository;
+import com.korber.orderservice.service.InventoryService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Drains the order outbox in async acceptance mode. Each pending order is sent to the Inventory Service as one
+ * all-or-nothing batch deduction and then moved to PLACED or REJECTED. The order update and the deletion of the
+ * outbox entry commit together; no database connection is held during the remote call.
+ * When the Inventory Service refuses the request outright (a 4xx such as an unknown product), the order is REJECTED.
+ * When it cannot be reached, the entry stays in the outbox and is retried on the next poll; after max-attempts
+ * failed attempts the order is marked FAILED and its entry removed, so it cannot hold up the rest of the outbox.
+ * Several instances can dispatch the same outbox: each batch of entries is claimed with a compare-and-set update
+ * before it is sent, and entries claimed by another instance are skipped until that claim expires.
+ */
+@Service
+@ConditionalOnProperty(name = "order.acceptance.mode", havingValue = "async")
+@Slf4j
+public class OrderOutboxDispatcher {
+
+    public static final String DISPATCHED_METRIC = "order.outbox.dispatched";
+    public static final String PENDING_METRIC = "order.outbox.pending";
+
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderRepository orderRepository;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService orderOutboxExecutor;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration claimTimeout;
+    private final Counter placed;
+    private final Counter rejected;
+    private final Counter retried;
+    private final Counter failed;
+
+    public OrderOutboxDispatcher(
+            OrderOutboxRepository orderOutboxRepository,
+            OrderRepository orderRepository,
+            InventoryService inventoryService,
+            TransactionTemplate transactionTemplate,
+            ExecutorService orderOutboxExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${order.outbox.batch-size:50}") int batchSize,
+            @Value("${order.outbox.max-attempts:20}") int maxAttempts,
+            @Value("${order.outbox.claim-timeout-ms:60000}") long claimTimeoutMillis) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderRepository = orderRepository;
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = transactionTemplate;
+        this.orderOutboxExecutor = orderOutboxExecutor;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMillis);
+        this.placed = dispatchedCounter(meterRegistry, "placed");
+        this.rejected = dispatchedCounter(meterRegistry, "rejected");
+        this.retried = dispatchedCounter(meterRegistry, "retried");
+        this.failed = dispatchedCounter(meterRegistry, "failed");
+        Gauge.builder(PENDING_METRIC, orderOutboxRepository, OrderOutboxRepository::count)
+                .description("Accepted orders not yet sent to the Inventory Service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scheduled entry point for the outbox dispatcher
+     */
+    @Scheduled(fixedDelayString = "${order.outbox.poll-interval-ms:200}")
+    public void scheduledDispatch() {
+        int settled = dispatchPending();
+        if (settled > 0) {
+            log.debug("Settled {} pending orders", settled);
+        }
+    }
+
+    /**
+     * Send pending orders to the Inventory Service, one batch of outbox entries at a time, until the outbox is empty
+     * or the Inventory Service cannot be reached
+     * @return The number of orders moved to PLACED, REJECTED or FAILED
+     */
+    public int dispatchPending() {
+        int total = 0;
+        List<OrderOutboxEntry> entries;
+        do {
+            entries = claimOldest();
+            List<CompletableFuture<Boolean>> dispatches = new ArrayList<>(entries.size());
+            for (OrderOutboxEntry entry : entries) {
+                // A failure of one entry is settled on its own, so it cannot drop the results of the others
+                dispatches.add(CompletableFuture.supplyAsync(() -> dispatch(entry), orderOutboxExecutor)
+                        .exceptionally(failure -> unexpectedFailure(entry, failure)));
+            }
+            boolean reachable = true;
+            for (CompletableFuture<Boolean> dispatch : dispatches) {
+                if (dispatch.join()) {
+                    total++;
+                } else {
+                    reachable = false;
+                }
+            }
+            if (!reachable) {
+                break;
+            }
+        } while (entries.size() == batchSize);
+        return total;
+    }
+
+    /**
+     * Claim up to batch-size of the oldest entries that no other dispatcher holds
+     * @return The claimed entries, oldest first
+     */
+    private List<OrderOutboxEntry> claimOldest() {
+        String claimToken = UUID.randomUUID().toString();
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = orderOutboxRepository.findClaimableIds(now, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            orderOutboxRepository.claim(ids, claimToken, now.plus(claimTimeout), now);
+            return orderOutboxRepository.findClaimed(claimToken);
+        });
+    }
+
+    /**
+     * Send one pending order to the Inventory Service and settle it
+     * @return false if the Inventory Service could not be reached and the entry was left for a retry
+     */
+    private boolean dispatch(OrderOutboxEntry entry) {
+        List<InventoryUpdateRequest> updateRequests = transactionTemplate.execute(status ->
+                orderRepository.findWithItemsById(entry.getOrderId())
+                        .map(order -> order.getOrderItems().stream()
+                                .map(item -> InventoryUpdateRequest.builder()
+                                        .productId(item.getProductId())
+                                        .quantity(item.getQuantity())
+                                        .handlerType(item.getHandlerType())
+                                        .build())
+                                .toList())
+                        .orElse(null));
+        if (updateRequests == null) {
+            log.warn("Dropping outbox entry {} for missing order {}", entry.getId(), entry.getOrderId());
+            orderOutboxRepository.deleteById(entry.getId());
+            return true;
+        }
+
+        List<InventoryUpdateResponse> updateResponses;
+        try {
+            // Keyed by order, so a retry after a lost response is answered with the original deduction
+            updateResponses = inventoryService.updateInventoryBatch(updateRequests, "order-" + entry.getOrderId());
+        } catch (InventoryRequestRejectedException e) {
+            // Nothing was deducted, and sending the order again would be refused the same way
+            log.warn("Inventory Service refused order {}: {}", entry.getOrderId(), e.getMessage());
+            settle(entry, "REJECTED");
+            rejected.increment();
+            return true;
+        } catch (InventoryServiceException e) {
+            log.warn("Could not send order {} to the Inventory Service (attempt {}): {}",
+                    entry.getOrderId(), entry.getAttempts() + 1, e.getMessage());
+            return failedAttempt(entry);
+        }
+
+        boolean deducted = updateResponses.stream().allMatch(InventoryUpdateResponse::isSuccess);
+        settle(entry, deducted ? "PLACED" : "REJECTED");
+        (deducted ? placed : rejected).increment();
+        return true;
+    }
+
+    /**
+     * Count a failed attempt to send an entry, and give up on its order once max-attempts is reached.
+     * A FAILED order may still have been deducted if the response to its last attempt was lost
+     * @return true if the order was marked FAILED, false if the entry was left for a retry
+     */
+    private boolean failedAttempt(OrderOutboxEntry entry) {
+        if (entry.getAttempts() + 1 >= maxAttempts) {
+            log.error("Giving up on order {} after {} attempts", entry.getOrderId(), maxAttempts);
+            settle(entry, "FAILED");
+            failed.increment();
+            return true;
+        }
+        transactionTemplate.executeWithoutResult(status -> orderOutboxRepository.incrementAttempts(entry.getId()));
+        retried.increment();
+        return false;
+    }
+
+    /**
+     * Count a failure that is not a failed call, such as a database error, as a failed attempt
+     * @return false if the entry was left for a retry, or could not be updated at all
+     */
+    private boolean unexpectedFailure(OrderOutboxEntry entry, Throwable failure) {
+        log.error("Dispatching outbox entry {} for order {} failed", entry.getId(), entry.getOrderId(), failure);
+        try {
+            return failedAttempt(entry);
+        } catch (RuntimeException e) {
+            log.error("Could not record the failed attempt of outbox entry {}", entry.getId(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Move an order to its final status and delete its outbox entry, in one transaction
+     */
+    private void settle(OrderOutboxEntry entry, String status) {
+        transactionTemplate.executeWithoutResult(transaction -> {
+            orderRepository.findById(entry.getOrderId()).ifPresent(order -> order.setStatus(status));
+            orderOutboxRepository.deleteById(entry.getId());
+        });
+    }
+
+    private Counter dispatchedCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder(DISPATCHED_METRIC)
+                .description("Outbox entries sent to the Inventory Service, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
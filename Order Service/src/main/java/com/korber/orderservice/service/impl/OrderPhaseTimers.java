@@ -0,0 +1,100 @@
+package com.korber.orderservice.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Times the phases of placing an order on POST /order and POST /order/async, so the phase behind a slow order
+ * can be told apart from the end-to-end request latency. A phase that fails is still timed.
+ * SLO buckets are configured under management.metrics.distribution.slo.
+ * Each phase is also a span, such as order.create.deduction, so inventory calls appear under their phase in a trace.
+ */
+@Component
+public class OrderPhaseTimers {
+
+    public static final String PHASE_METRIC = "order.create.phase";
+    public static final String PHASE_SPAN_PREFIX = "order.create.";
+
+    /**
+     * Phases of placing an order, used as the phase tag
+     */
+    public enum Phase {
+        AVAILABILITY, DEDUCTION, PERSISTENCE
+    }
+
+    private final Map<Phase, Timer> timers = new EnumMap<>(Phase.class);
+    private final Tracer tracer;
+
+    public OrderPhaseTimers(MeterRegistry meterRegistry, Tracer tracer) {
+        this.tracer = tracer;
+        for (Phase phase : Phase.values()) {
+            timers.put(phase, Timer.builder(PHASE_METRIC)
+                    .description("Time spent in one phase of placing an order")
+                    .tag("phase", phase.name().toLowerCase())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Run a phase that produces a value and time it
+     * @param phase The phase
+     * @param step The work of the phase
+     * @return The value produced by the phase
+     */
+    public <T> T record(Phase phase, Supplier<T> step) {
+        Span span = tracer.nextSpan().name(PHASE_SPAN_PREFIX + phase.name().toLowerCase());
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span.start())) {
+            return timers.get(phase).record(step);
+        } catch (RuntimeException e) {
+            span.error(e);
+            throw e;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * Start a non-blocking phase and time it until the future it returns completes
+     * @param phase The phase
+     * @param step Starts the work of the phase; an exception it throws fails the returned future
+     * @return A future completing with the result of the phase once it has been timed
+     */
+    public <T> CompletableFuture<T> recordAsync(Phase phase, Supplier<CompletableFuture<T>> step) {
+        Span span = tracer.nextSpan().name(PHASE_SPAN_PREFIX + phase.name().toLowerCase());
+        Timer.Sample sample = Timer.start();
+        CompletableFuture<T> result;
+        try (Tracer.SpanInScope ignored = tracer.withSpan(span.start())) {
+            result = step.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        return result.whenComplete((value, failure) -> {
+            sample.stop(timers.get(phase));
+            if (failure != null) {
+                span.error(failure);
+            }
+            span.end();
+        });
+    }
+
+    /**
+     * Run a phase and time it
+     * @param phase The phase
+     * @param step The work of the phase
+     */
+    public void record(Phase phase, Runnable step) {
+        record(phase, () -> {
+            step.run();
+            return null;
+        });
+    }
+}
@@ -2,20 +2,42 @@ package com.korber.orderservice.service.impl;
 
 import com.korber.orderservice.dto.*;
 import com.korber.orderservice.exception.InsufficientInventoryException;
+import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.exception.OrderPersistenceException;
 import com.korber.orderservice.exception.ResourceNotFoundException;
 import com.korber.orderservice.model.Order;
 import com.korber.orderservice.model.OrderItem;
+import com.korber.orderservice.model.OrderOutboxEntry;
+import com.korber.orderservice.repository.OrderOutboxRepository;
 import com.korber.orderservice.repository.OrderRepository;
 import com.korber.orderservice.service.InventoryService;
 import com.korber.orderservice.service.OrderService;
+import com.korber.orderservice.service.impl.OrderPhaseTimers.Phase;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -23,29 +45,265 @@ import java.util.stream.Collectors;
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderOutboxRepository orderOutboxRepository;
     private final InventoryService inventoryService;
+    private final Executor inventoryCheckExecutor;
+    private final Executor orderPersistenceExecutor;
+    private final Semaphore orderPersistencePermits;
+    private final OrderPhaseTimers orderPhaseTimers;
+    private final TransactionTemplate transactionTemplate;
 
+    @Value("${order.inventory.precheck.enabled:false}")
+    private boolean availabilityPrecheckEnabled;
+
+    @Value("${order.acceptance.mode:sync}")
+    private String acceptanceMode;
+
+    @Value("${order.listing.max-page-size:500}")
+    private int maxPageSize;
+
+    /**
+     * Not transactional as a whole: a transaction, and with it a pooled connection, is only taken to save the order
+     * once the inventory calls have returned
+     */
     @Override
-    @Transactional
-    public OrderResponse createOrder(OrderRequest orderRequest) {
-        // Check inventory for all products
-        for (OrderItemRequest itemRequest : orderRequest.getOrderItems()) {
-            List<InventoryResponse> inventoryItems = inventoryService.checkInventory(itemRequest.getProductId());
-            
-            // Calculate total available quantity
-            int availableQuantity = inventoryItems.stream()
-                    .mapToInt(InventoryResponse::getQuantity)
-                    .sum();
-            
-            if (availableQuantity < itemRequest.getQuantity()) {
-                throw new InsufficientInventoryException(
-                        itemRequest.getProductId(), 
-                        itemRequest.getQuantity(), 
-                        availableQuantity
-                );
+    public OrderResponse createOrder(OrderRequest orderRequest, String idempotencyKey) {
+        List<InventoryUpdateRequest> updateRequests = new ArrayList<>(orderRequest.getOrderItems().size());
+        Order order = newOrder(orderRequest, updateRequests);
+        
+        if ("async".equals(acceptanceMode)) {
+            return transactionTemplate.execute(status -> acceptOrder(order));
+        }
+        
+        if (availabilityPrecheckEnabled) {
+            orderPhaseTimers.record(Phase.AVAILABILITY, () -> checkAvailability(updateRequests));
+        }
+        
+        // Deduct inventory for all lines in a single all-or-nothing call.
+        // The Inventory Service checks availability and deducts atomically, so no separate check is needed.
+        // A retried request forwards the same key, so a deduction that committed before the save failed is not repeated
+        String deductionKey = idempotencyKey != null ? "checkout-" + idempotencyKey : null;
+        orderPhaseTimers.record(Phase.DEDUCTION, () -> verifyDeduction(updateRequests,
+                inventoryService.updateInventoryBatch(updateRequests, deductionKey)));
+        
+        // The INSERTs run at commit, which is timed with this phase and covered by the same failure handling
+        Order savedOrder = orderPhaseTimers.record(Phase.PERSISTENCE, () -> {
+            try {
+                return transactionTemplate.execute(status -> orderRepository.save(order));
+            } catch (RuntimeException e) {
+                throw persistenceFailure(idempotencyKey, e);
             }
+        });
+        
+        return mapToOrderResponse(savedOrder);
+    }
+
+    @Override
+    public CompletableFuture<OrderResponse> createOrderAsync(OrderRequest orderRequest, String idempotencyKey) {
+        List<InventoryUpdateRequest> updateRequests = new ArrayList<>(orderRequest.getOrderItems().size());
+        Order order = newOrder(orderRequest, updateRequests);
+        
+        // Reserved before anything is deducted, so the persistence executor cannot reject an order whose stock
+        // is already taken
+        if (!orderPersistencePermits.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("No capacity left to save asynchronous orders"));
         }
         
+        CompletableFuture<Void> precheck = availabilityPrecheckEnabled
+                ? orderPhaseTimers.recordAsync(Phase.AVAILABILITY, () -> checkAvailabilityAsync(updateRequests))
+                : CompletableFuture.completedFuture(null);
+        String deductionKey = idempotencyKey != null ? "checkout-" + idempotencyKey : null;
+        // Only reached when the executor is shutting down, since a place in it is reserved
+        Executor persistence = task -> {
+            try {
+                orderPersistenceExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                throw persistenceFailure(idempotencyKey, e);
+            }
+        };
+        // No thread is held while the inventory calls are in flight; saving the order is blocking JPA work,
+        // so it runs on the persistence executor rather than on the thread that completed the deduction
+        // Phases are timed as in createOrder; persistence starts once the executor runs the save, so time spent
+        // queued for it shows in neither phase
+        CompletableFuture<OrderResponse> result = precheck
+                .thenCompose(ignored -> orderPhaseTimers.recordAsync(Phase.DEDUCTION,
+                        () -> inventoryService.updateInventoryBatchAsync(updateRequests, deductionKey)
+                                .thenAccept(updateResponses -> verifyDeduction(updateRequests, updateResponses))))
+                .thenApplyAsync(ignored -> mapToOrderResponse(orderPhaseTimers.record(Phase.PERSISTENCE,
+                        () -> saveDeductedOrder(order, idempotencyKey))), persistence);
+        result.whenComplete((ignored, failure) -> orderPersistencePermits.release());
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderResponse getOrderById(Long id) {
+        List<OrderResponse> orders = new ArrayList<>(1);
+        assembleOrders(orderRepository.findRowsById(id).iterator(), orders::add);
+        if (orders.isEmpty()) {
+            throw new ResourceNotFoundException("Order", "id", id);
+        }
+        
+        return orders.get(0);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPageResponse getOrders(OrderSearchCriteria criteria, Long cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        // The page is picked first, on the order indexes alone; one extra ID tells whether there is a next page
+        List<Long> ids = orderRepository.findPageIds(criteria, cursor, pageSize + 1);
+        boolean hasNext = ids.size() > pageSize;
+        List<Long> pageIds = hasNext ? ids.subList(0, pageSize) : ids;
+        if (pageIds.isEmpty()) {
+            return new OrderPageResponse(new ArrayList<>(), null);
+        }
+        
+        List<OrderResponse> page = new ArrayList<>(pageIds.size());
+        assembleOrders(orderRepository.findRowsByIdIn(pageIds).iterator(), page::add);
+        Long nextCursor = hasNext ? pageIds.get(pageIds.size() - 1) : null;
+        return new OrderPageResponse(page, nextCursor);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public long exportOrders(OrderSearchCriteria criteria, Consumer<OrderResponse> sink) {
+        try (Stream<OrderRow> rows = orderRepository.streamForExport(criteria)) {
+            return assembleOrders(rows.iterator(), sink);
+        }
+    }
+    
+    /**
+     * Reject orders that clearly cannot be fulfilled before asking for a deduction.
+     * Quantities of repeated products are summed and each product is checked once; the checks run
+     * concurrently and the first shortage or failure cancels the checks still pending.
+     * Availability may come from the near-cache, so it is advisory only: a line that looks short
+     * is re-checked remotely before the order is rejected, and the deduction remains the
+     * authoritative check for lines that look available.
+     */
+    private void checkAvailability(List<InventoryUpdateRequest> updateRequests) {
+        Map<Long, Integer> requestedByProduct = requestedByProduct(updateRequests);
+        if (requestedByProduct.size() == 1) {
+            requestedByProduct.forEach(this::checkAvailability);
+            return;
+        }
+
+        CompletionService<Void> checks = new ExecutorCompletionService<>(inventoryCheckExecutor);
+        List<Future<Void>> pending = new ArrayList<>(requestedByProduct.size());
+        try {
+            requestedByProduct.forEach((productId, requested) -> pending.add(checks.submit(() -> {
+                checkAvailability(productId, requested);
+                return null;
+            })));
+            for (int i = 0; i < pending.size(); i++) {
+                checks.take().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new InventoryServiceException("Failed to check inventory", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InventoryServiceException("Interrupted while checking inventory", e);
+        } finally {
+            // No-op once every check has completed
+            pending.forEach(check -> check.cancel(true));
+        }
+    }
+    
+    private void checkAvailability(Long productId, int requested) {
+        int available = availableQuantity(inventoryService.checkInventory(productId));
+        if (available < requested) {
+            available = availableQuantity(inventoryService.refreshInventory(productId));
+            if (available < requested) {
+                throw new InsufficientInventoryException(productId, requested, available);
+            }
+        }
+    }
+    
+    /**
+     * Non-blocking variant of the availability pre-check. All products are checked at once; the result fails
+     * as soon as one check fails, without waiting for the others.
+     */
+    private CompletableFuture<Void> checkAvailabilityAsync(List<InventoryUpdateRequest> updateRequests) {
+        List<CompletableFuture<Void>> checks = requestedByProduct(updateRequests).entrySet().stream()
+                .map(entry -> checkAvailabilityAsync(entry.getKey(), entry.getValue()))
+                .toList();
+        
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        checks.forEach(check -> check.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                result.completeExceptionally(failure instanceof CompletionException ? failure.getCause() : failure);
+            }
+        }));
+        CompletableFuture.allOf(checks.toArray(CompletableFuture[]::new)).thenRun(() -> result.complete(null));
+        // Checks still waiting for a refresh do not start it once the order has failed
+        result.whenComplete((ignored, failure) -> checks.forEach(check -> check.cancel(false)));
+        return result;
+    }
+    
+    private CompletableFuture<Void> checkAvailabilityAsync(Long productId, int requested) {
+        return inventoryService.checkInventoryAsync(productId).thenCompose(batches -> {
+            if (availableQuantity(batches) >= requested) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return inventoryService.refreshInventoryAsync(productId).thenAccept(refreshed -> {
+                int available = availableQuantity(refreshed);
+                if (available < requested) {
+                    throw new InsufficientInventoryException(productId, requested, available);
+                }
+            });
+        });
+    }
+    
+    private Map<Long, Integer> requestedByProduct(List<InventoryUpdateRequest> updateRequests) {
+        return updateRequests.stream()
+                .collect(Collectors.toMap(InventoryUpdateRequest::getProductId,
+                        InventoryUpdateRequest::getQuantity, Integer::sum, LinkedHashMap::new));
+    }
+    
+    /**
+     * Save an order whose inventory has already been deducted. A failure is reported as an
+     * OrderPersistenceException, which tells the client whether sending the order again is safe.
+     * The deduction is not compensated: the Inventory Service has no operation that returns stock to its batches.
+     * Replaying the checkout key completes the order with the stock already taken for it, rather than restoring
+     * that stock; without a key, the stock stays deducted until it is corrected in the Inventory Service
+     */
+    private Order saveDeductedOrder(Order order, String idempotencyKey) {
+        try {
+            return orderRepository.save(order);
+        } catch (RuntimeException e) {
+            throw persistenceFailure(idempotencyKey, e);
+        }
+    }
+    
+    private OrderPersistenceException persistenceFailure(String idempotencyKey, RuntimeException cause) {
+        log.error("Order could not be saved after its inventory was deducted", cause);
+        if (idempotencyKey != null) {
+            return new OrderPersistenceException("The order could not be saved after its inventory was deducted. "
+                    + "Sending it again with the same Idempotency-Key saves it without deducting again", true, cause);
+        }
+        return new OrderPersistenceException("The order could not be saved after its inventory was deducted. "
+                + "Do not send it again; the deducted inventory is not released automatically", false, cause);
+    }
+    
+    /**
+     * Save the order as PENDING together with its outbox entry, in the caller's transaction.
+     * No remote call is made; OrderOutboxDispatcher deducts the inventory and settles the order later
+     */
+    private OrderResponse acceptOrder(Order order) {
+        order.setStatus("PENDING");
+        Order savedOrder = orderRepository.save(order);
+        orderOutboxRepository.save(new OrderOutboxEntry(null, savedOrder.getId(), LocalDateTime.now(), 0, null, null));
+        return mapToOrderResponse(savedOrder);
+    }
+    
+    /**
+     * Build the order entity for a request, and collect the inventory deduction for each of its lines
+     */
+    private Order newOrder(OrderRequest orderRequest, List<InventoryUpdateRequest> updateRequests) {
         // Create order entity
         Order order = new Order();
         order.setCustomerName(orderRequest.getCustomerName());
@@ -65,38 +323,42 @@ public class OrderServiceImpl implements OrderService {
             order.addOrderItem(orderItem);
             totalAmount += itemRequest.getPrice() * itemRequest.getQuantity();
             
-            // Update inventory
-            InventoryUpdateRequest updateRequest = InventoryUpdateRequest.builder()
+            updateRequests.add(InventoryUpdateRequest.builder()
                     .productId(itemRequest.getProductId())
                     .quantity(itemRequest.getQuantity())
                     .handlerType(itemRequest.getHandlerType())
-                    .build();
-            
-            inventoryService.updateInventory(updateRequest);
+                    .build());
         }
-        
         order.setTotalAmount(totalAmount);
-        Order savedOrder = orderRepository.save(order);
-        
-        return mapToOrderResponse(savedOrder);
+        return order;
     }
-
-    @Override
-    public OrderResponse getOrderById(Long id) {
-        Order order = orderRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", id));
-        
-        return mapToOrderResponse(order);
+    
+    private void verifyDeduction(List<InventoryUpdateRequest> updateRequests,
+                                 List<InventoryUpdateResponse> updateResponses) {
+        for (int i = 0; i < updateResponses.size(); i++) {
+            InventoryUpdateResponse updateResponse = updateResponses.get(i);
+            // Lines rolled back because of another line carry no remaining quantity
+            if (!updateResponse.isSuccess() && updateResponse.getRemainingQuantity() != null) {
+                throw new InsufficientInventoryException(
+                        updateResponse.getProductId(),
+                        updateRequests.get(i).getQuantity(),
+                        updateResponse.getRemainingQuantity()
+                );
+            }
+        }
+        if (updateResponses.stream().anyMatch(response -> !response.isSuccess())) {
+            throw new InsufficientInventoryException("Inventory update rejected for order");
+        }
     }
-
-    @Override
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(this::mapToOrderResponse)
-                .collect(Collectors.toList());
+    
+    private int availableQuantity(List<InventoryResponse> batches) {
+        return batches.stream()
+                .mapToInt(InventoryResponse::getQuantity)
+                .sum();
     }
     
-    private OrderResponse mapToOrderResponse(Order order) {
+    // Package-private for the mapping benchmark
+    OrderResponse mapToOrderResponse(Order order) {
         List<OrderItemResponse> orderItemResponses = order.getOrderItems().stream()
                 .map(item -> {
                     OrderItemResponse response = new OrderItemResponse();
@@ -119,4 +381,34 @@ public class OrderServiceImpl implements OrderService {
         response.setTotalAmount(order.getTotalAmount());
         return response;
     }
+    
+    /**
+     * Group order rows into responses. Rows of one order are adjacent, so only the order being assembled
+     * is held in memory. Package-private for the mapping benchmark
+     * @return The number of orders passed to the sink
+     */
+    long assembleOrders(Iterator<OrderRow> rows, Consumer<OrderResponse> sink) {
+        long assembled = 0;
+        OrderResponse current = null;
+        while (rows.hasNext()) {
+            OrderRow row = rows.next();
+            if (current == null || !current.getId().equals(row.orderId())) {
+                if (current != null) {
+                    sink.accept(current);
+                    assembled++;
+                }
+                current = new OrderResponse(row.orderId(), row.customerName(), row.customerEmail(),
+                        row.orderDate(), row.status(), new ArrayList<>(), row.totalAmount());
+            }
+            if (row.itemId() != null) {
+                current.getOrderItems().add(new OrderItemResponse(row.itemId(), row.productId(),
+                        row.quantity(), row.price(), row.handlerType()));
+            }
+        }
+        if (current != null) {
+            sink.accept(current);
+            assembled++;
+        }
+        return assembled;
+    }
 }
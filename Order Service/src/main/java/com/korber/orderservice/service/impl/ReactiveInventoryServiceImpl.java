@@ -0,0 +1,155 @@
+package com.korber.orderservice.service.impl;
+
+import com.korber.orderservice.dto.InventoryResponse;
+import com.korber.orderservice.dto.InventoryUpdateRequest;
+import com.korber.orderservice.dto.InventoryUpdateResponse;
+import com.korber.orderservice.exception.InventoryRequestRejectedException;
+import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.exception.ResourceNotFoundException;
+import com.korber.orderservice.service.InventoryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Inventory Service client on a non-blocking WebClient, selected with order.inventory.client=reactive.
+ * The asynchronous methods hold no thread while a call is in flight; the blocking methods wait for them.
+ */
+@Service
+@ConditionalOnProperty(name = "order.inventory.client", havingValue = "reactive")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveInventoryServiceImpl implements InventoryService {
+
+    private static final ParameterizedTypeReference<List<InventoryResponse>> INVENTORY_LIST =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<List<InventoryUpdateResponse>> UPDATE_RESPONSE_LIST =
+            new ParameterizedTypeReference<>() {};
+
+    private final WebClient inventoryWebClient;
+    private final InventoryAvailabilityCache availabilityCache;
+    private final InventoryCallGuard callGuard;
+
+    @Override
+    public List<InventoryResponse> checkInventory(Long productId) {
+        return await(checkInventoryAsync(productId));
+    }
+
+    @Override
+    public List<InventoryResponse> refreshInventory(Long productId) {
+        return await(refreshInventoryAsync(productId));
+    }
+
+    @Override
+    public InventoryUpdateResponse updateInventory(InventoryUpdateRequest request) {
+        return await(callGuard.callAsync(() -> inventoryWebClient.post()
+                .uri("/inventory/update")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(InventoryUpdateResponse.class)
+                // The deduction has committed, so cached availability of the product is out of date
+                .doOnSuccess(response -> availabilityCache.evict(List.of(request.getProductId())))
+                .onErrorResume(WebClientResponseException.BadRequest.class, e ->
+                        // The deduction was denied; the body carries the stock that is actually available
+                        rejected(e.getResponseBodyAs(InventoryUpdateResponse.class), "Inventory update rejected", e))
+                .onErrorMap(ReactiveInventoryServiceImpl::isClientError,
+                        e -> new InventoryRequestRejectedException("Inventory update rejected: " + e.getMessage(), e))
+                .onErrorMap(e -> !(e instanceof InventoryServiceException), e -> {
+                    log.error("Error updating inventory for product ID {}: {}", request.getProductId(), e.getMessage());
+                    return new InventoryServiceException(
+                            "Failed to update inventory for product ID " + request.getProductId(), e);
+                })
+                .toFuture()));
+    }
+
+    @Override
+    public List<InventoryUpdateResponse> updateInventoryBatch(List<InventoryUpdateRequest> requests, String idempotencyKey) {
+        return await(updateInventoryBatchAsync(requests, idempotencyKey));
+    }
+
+    @Override
+    public CompletableFuture<List<InventoryResponse>> checkInventoryAsync(Long productId) {
+        return availabilityCache.getAsync(productId, this::fetchInventory);
+    }
+
+    @Override
+    public CompletableFuture<List<InventoryResponse>> refreshInventoryAsync(Long productId) {
+        return availabilityCache.refreshAsync(productId, this::fetchInventory);
+    }
+
+    @Override
+    public CompletableFuture<List<InventoryUpdateResponse>> updateInventoryBatchAsync(List<InventoryUpdateRequest> requests,
+                                                                                      String idempotencyKey) {
+        return callGuard.callAsync(() -> inventoryWebClient.post()
+                .uri("/inventory/update/batch")
+                .headers(headers -> {
+                    if (idempotencyKey != null) {
+                        headers.set(IdempotencyStore.HEADER, idempotencyKey);
+                    }
+                })
+                .bodyValue(requests)
+                .retrieve()
+                .bodyToMono(UPDATE_RESPONSE_LIST)
+                // The whole batch has committed, so cached availability of its products is out of date
+                .doOnSuccess(responses -> availabilityCache.evict(requests.stream()
+                        .map(InventoryUpdateRequest::getProductId)
+                        .collect(Collectors.toSet())))
+                .onErrorResume(WebClientResponseException.BadRequest.class, e ->
+                        // The batch was rejected and rolled back; the body tells us which line failed
+                        rejected(e.getResponseBodyAs(UPDATE_RESPONSE_LIST), "Batch inventory update rejected", e))
+                .onErrorMap(ReactiveInventoryServiceImpl::isClientError,
+                        e -> new InventoryRequestRejectedException("Batch inventory update rejected: " + e.getMessage(), e))
+                .onErrorMap(e -> !(e instanceof InventoryServiceException), e -> {
+                    log.error("Error updating inventory in batch for {} lines: {}", requests.size(), e.getMessage());
+                    return new InventoryServiceException(
+                            "Failed to update inventory for " + requests.size() + " order lines", e);
+                })
+                .toFuture());
+    }
+
+    private CompletableFuture<List<InventoryResponse>> fetchInventory(Long productId) {
+        return callGuard.callAsync(() -> inventoryWebClient.get()
+                .uri("/inventory/{productId}", productId)
+                .retrieve()
+                .bodyToMono(INVENTORY_LIST)
+                .onErrorMap(WebClientResponseException.NotFound.class,
+                        e -> new ResourceNotFoundException("Product", "id", productId))
+                .onErrorMap(e -> !(e instanceof ResourceNotFoundException), e -> {
+                    log.error("Error checking inventory for product ID {}: {}", productId, e.getMessage());
+                    return new InventoryServiceException("Failed to check inventory for product ID " + productId, e);
+                })
+                .toFuture());
+    }
+
+    private <T> Mono<T> rejected(T body, String message, WebClientResponseException e) {
+        if (body == null) {
+            return Mono.error(new InventoryRequestRejectedException(message + ": " + e.getMessage(), e));
+        }
+        return Mono.just(body);
+    }
+
+    private static boolean isClientError(Throwable e) {
+        return e instanceof WebClientResponseException response && response.getStatusCode().is4xxClientError();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.korber.orderservice.config;
+
+import com.korber.orderservice.dto.InventoryResponse;
+import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.service.InventoryService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "inventory.client.max-connections-per-route=1",
+        "inventory.client.read-timeout-ms=300",
+        "inventory.client.connection-request-timeout-ms=200"
+})
+public class InventoryClientConfigTest {
+
+    private static final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private static HttpServer stubServer;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void inventoryServiceUrl(DynamicPropertyRegistry registry) throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stubServer.createContext("/inventory/1", exchange -> respond(exchange, 0));
+        stubServer.createContext("/inventory/2", exchange -> respond(exchange, 1000));
+        stubServer.setExecutor(Executors.newCachedThreadPool());
+        stubServer.start();
+        registry.add("inventory.service.url", () -> "http://localhost:" + stubServer.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        stubServer.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        clientPorts.clear();
+    }
+
+    @Test
+    @DisplayName("Test client - sequential calls reuse one kept-alive connection")
+    void testSequentialCalls_ReuseConnection() {
+        // When
+        for (int i = 0; i < 5; i++) {
+            List<InventoryResponse> batches = inventoryService.checkInventory(1L);
+            assertEquals(10, batches.get(0).getQuantity());
+        }
+
+        // Then
+        assertEquals(1, clientPorts.size());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+    }
+
+    @Test
+    @DisplayName("Test client - a slow Inventory Service fails the call after the read timeout")
+    void testSlowResponse_TimesOut() {
+        // When
+        long start = System.nanoTime();
+        assertThrows(InventoryServiceException.class, () -> inventoryService.checkInventory(2L));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(elapsedMillis < 900, "Call took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    @DisplayName("Test client - waiting for an exhausted pool is bounded")
+    void testExhaustedPool_FailsFast() throws Exception {
+        // Given - the only connection for the route is held by a slow call
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch started = new CountDownLatch(1);
+        Future<?> slowCall = executor.submit(() -> {
+            started.countDown();
+            return assertThrows(InventoryServiceException.class, () -> inventoryService.checkInventory(2L));
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        Thread.sleep(50);
+
+        // When & Then
+        assertThrows(InventoryServiceException.class, () -> inventoryService.checkInventory(1L));
+        slowCall.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Test client - pool utilisation and lease wait time are exported")
+    void testPoolMetrics_Registered() {
+        // When
+        inventoryService.checkInventory(1L);
+
+        // Then
+        assertEquals(200, meterRegistry.get("httpcomponents.httpclient.pool.total.max")
+                .tag("httpclient", InventoryClientConfig.POOL_NAME)
+                .gauge()
+                .value());
+        assertNotNull(meterRegistry.get("httpcomponents.httpclient.pool.total.pending")
+                .tag("httpclient", InventoryClientConfig.POOL_NAME)
+                .gauge());
+        assertTrue(meterRegistry.get(InventoryClientConfig.LEASE_WAIT_METRIC).timer().count() > 0);
+    }
+
+    private static void respond(HttpExchange exchange, long delayMillis) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = "[{\"id\":1,\"productId\":1,\"quantity\":10,\"batchNumber\":\"BATCH001\"}]"
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        } catch (IOException e) {
+            // The client gave up waiting
+        }
+    }
+}
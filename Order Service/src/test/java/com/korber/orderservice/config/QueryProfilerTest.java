@@ -0,0 +1,95 @@
+package com.korber.orderservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryProfilerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private JdbcDataSource h2;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        meterRegistry = new SimpleMeterRegistry();
+        h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query-profiler-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = h2.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE items (id BIGINT PRIMARY KEY, order_id BIGINT)");
+            statement.execute("INSERT INTO items VALUES (1, 1), (2, 1), (3, 2)");
+        }
+    }
+
+    @Test
+    @DisplayName("Test query profiler - statements of a sampled request are timed, counted and flagged when repeated")
+    void testSampledRequest_RecordsStatementsAndFlagsNPlusOne() throws Exception {
+        // Given
+        QueryProfiler profiler = new QueryProfiler(meterRegistry, 1.0, 5);
+        ProfilingDataSource dataSource = new ProfilingDataSource(h2, profiler);
+
+        // When - one query per order, as a lazy collection loaded in a loop would do
+        assertTrue(profiler.begin());
+        try (Connection connection = dataSource.getConnection()) {
+            for (long orderId = 1; orderId <= 5; orderId++) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "select id from items where order_id = ?")) {
+                    statement.setLong(1, orderId);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            resultSet.getLong(1);
+                        }
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("update items set order_id = ?")) {
+                statement.setLong(1, 3);
+                statement.executeUpdate();
+            }
+        }
+        profiler.end("GET /order/{id}");
+
+        // Then
+        assertEquals(5, meterRegistry.get(QueryProfiler.LATENCY_METRIC)
+                .tags("operation", "select", "table", "items").timer().count());
+        assertEquals(3, meterRegistry.get(QueryProfiler.ROWS_METRIC)
+                .tags("operation", "select", "table", "items").summary().totalAmount());
+        assertEquals(3, meterRegistry.get(QueryProfiler.ROWS_METRIC)
+                .tags("operation", "update", "table", "items").summary().totalAmount());
+        assertEquals(6, meterRegistry.get(QueryProfiler.STATEMENTS_METRIC)
+                .tag("endpoint", "GET /order/{id}").summary().totalAmount());
+        assertEquals(1, meterRegistry.get(QueryProfiler.N_PLUS_ONE_METRIC)
+                .tags("endpoint", "GET /order/{id}", "table", "items").counter().count());
+    }
+
+    @Test
+    @DisplayName("Test query profiler - connections outside a sampled request are neither wrapped nor recorded")
+    void testUnsampledRequest_LeavesStatementsUnwrapped() throws Exception {
+        // Given
+        QueryProfiler profiler = new QueryProfiler(meterRegistry, 0.0, 5);
+        ProfilingDataSource dataSource = new ProfilingDataSource(h2, profiler);
+
+        // When
+        assertFalse(profiler.begin());
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select id from items")) {
+            statement.executeQuery().close();
+
+            // Then
+            assertFalse(Proxy.isProxyClass(connection.getClass()));
+            assertFalse(Proxy.isProxyClass(statement.getClass()));
+        }
+        profiler.end("GET /order");
+        assertTrue(meterRegistry.getMeters().isEmpty());
+    }
+}
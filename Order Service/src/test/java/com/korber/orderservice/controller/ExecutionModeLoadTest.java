@@ -0,0 +1,209 @@
+package com.korber.orderservice.controller;
+
+import com.korber.orderservice.OrderServiceApplication;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Places orders concurrently against a stub Inventory Service with fixed latency, with Tomcat serving requests
+ * on platform threads, on virtual threads, and through the reactive inventory client on POST /order/async,
+ * and compares p99 latency, peak concurrent orders and throughput per core.
+ * All modes get the same Tomcat thread limit; only the execution mode differs.
+ * Tagged "load", so it runs only with the load profile.
+ */
+@Tag("load")
+@Slf4j
+class ExecutionModeLoadTest {
+
+    // Sized to stay I/O bound on a single CPU
+    private static final int CLIENTS = 100;
+    private static final int WARM_UP_ORDERS = 200;
+    private static final int ORDERS = 500;
+    private static final int TOMCAT_THREADS = 20;
+    private static final long INVENTORY_LATENCY_MILLIS = 100;
+
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final AtomicInteger peakInFlight = new AtomicInteger();
+    private static HttpServer stubServer;
+
+    @BeforeAll
+    static void startStubServer() throws IOException {
+        stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), CLIENTS * 2);
+        stubServer.createContext("/inventory/update/batch", ExecutionModeLoadTest::respond);
+        stubServer.setExecutor(Executors.newCachedThreadPool());
+        stubServer.start();
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        stubServer.stop(0);
+    }
+
+    @Test
+    @DisplayName("Should serve at most the Tomcat thread limit of orders at once on platform threads")
+    void platformThreads_BoundedByTomcatThreads() throws Exception {
+        LoadResult platform = run(Mode.PLATFORM);
+
+        log.info("Platform threads: p99 {} ms, peak {} concurrent orders, {} orders/s per core",
+                platform.p99Millis(), platform.peakConcurrentOrders(), platform.ordersPerSecondPerCore());
+        assertEquals(ORDERS, platform.placed());
+        assertTrue(platform.peakConcurrentOrders() <= TOMCAT_THREADS);
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @DisplayName("Should serve more concurrent orders with lower p99 latency on virtual threads")
+    void virtualThreads_OutperformPlatformThreads() throws Exception {
+        LoadResult platform = run(Mode.PLATFORM);
+        LoadResult virtual = run(Mode.VIRTUAL);
+
+        log.info("{} orders from {} clients, inventory latency {} ms: platform p99 {} ms / peak {} concurrent, "
+                        + "virtual p99 {} ms / peak {} concurrent",
+                ORDERS, CLIENTS, INVENTORY_LATENCY_MILLIS, platform.p99Millis(), platform.peakConcurrentOrders(),
+                virtual.p99Millis(), virtual.peakConcurrentOrders());
+        assertEquals(ORDERS, virtual.placed());
+        assertTrue(virtual.peakConcurrentOrders() > platform.peakConcurrentOrders());
+        assertTrue(virtual.p99Millis() < platform.p99Millis());
+    }
+
+    @Test
+    @DisplayName("Should keep more orders in flight than there are Tomcat threads through the reactive client")
+    void reactiveClient_OutperformsBlockingClient() throws Exception {
+        LoadResult blocking = run(Mode.PLATFORM);
+        LoadResult reactive = run(Mode.REACTIVE);
+
+        log.info("{} orders from {} clients, inventory latency {} ms: blocking p99 {} ms / peak {} concurrent / "
+                        + "{} orders/s per core, reactive p99 {} ms / peak {} concurrent / {} orders/s per core",
+                ORDERS, CLIENTS, INVENTORY_LATENCY_MILLIS,
+                blocking.p99Millis(), blocking.peakConcurrentOrders(), blocking.ordersPerSecondPerCore(),
+                reactive.p99Millis(), reactive.peakConcurrentOrders(), reactive.ordersPerSecondPerCore());
+        assertEquals(ORDERS, reactive.placed());
+        // Latency and throughput per core are logged rather than asserted; once the box is CPU bound they depend
+        // on the core count more than on the client, and a single-core build agent shows no difference
+        assertTrue(reactive.peakConcurrentOrders() > TOMCAT_THREADS);
+    }
+
+    private LoadResult run(Mode mode) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(OrderServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + (mode == Mode.VIRTUAL),
+                "--order.inventory.client=" + (mode == Mode.REACTIVE ? "reactive" : "blocking"),
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--spring.datasource.url=jdbc:h2:mem:load-" + mode.name().toLowerCase(),
+                "--spring.datasource.hikari.maximum-pool-size=" + (CLIENTS + 10),
+                "--spring.jpa.show-sql=false",
+                "--inventory.service.url=http://localhost:" + stubServer.getAddress().getPort(),
+                "--inventory.client.max-connections=" + CLIENTS * 2,
+                "--inventory.client.max-connections-per-route=" + CLIENTS * 2,
+                "--inventory.client.bulkhead.max-concurrent-calls=" + CLIENTS * 2,
+                // Queueing on a loaded build agent must not count as slow calls and open the circuit
+                "--inventory.client.circuit-breaker.slow-call-duration-ms=30000",
+                "--inventory.client.connection-request-timeout-ms=5000")) {
+            int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            URI orderUri = URI.create("http://localhost:" + port + (mode == Mode.REACTIVE ? "/order/async" : "/order"));
+            placeOrders(orderUri, WARM_UP_ORDERS);
+            inFlight.set(0);
+            peakInFlight.set(0);
+            return placeOrders(orderUri, ORDERS);
+        }
+    }
+
+    private LoadResult placeOrders(URI orderUri, int orders) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(orderUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"customerName\":\"John Doe\","
+                        + "\"customerEmail\":\"john@example.com\",\"orderItems\":[{\"productId\":1,\"quantity\":1,"
+                        + "\"price\":10.0,\"handlerType\":\"FIFO\"}]}"))
+                .build();
+
+        AtomicInteger remaining = new AtomicInteger(orders);
+        AtomicInteger placed = new AtomicInteger();
+        List<Long> latencies = Collections.synchronizedList(new ArrayList<>(orders));
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        long started = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            futures.add(clients.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    long start = System.nanoTime();
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    if (response.statusCode() == 201) {
+                        placed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        clients.shutdown();
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+        long ordersPerSecondPerCore = placed.get() * TimeUnit.SECONDS.toNanos(1)
+                / elapsedNanos / Runtime.getRuntime().availableProcessors();
+        return new LoadResult(placed.get(), p99, peakInFlight.get(), ordersPerSecondPerCore);
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(INVENTORY_LATENCY_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        byte[] body = ("[{\"success\":true,\"message\":\"Inventory updated successfully\","
+                + "\"productId\":1,\"updatedQuantity\":1,\"remainingQuantity\":100}]")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        }
+    }
+
+    private enum Mode {
+        PLATFORM, VIRTUAL, REACTIVE
+    }
+
+    private record LoadResult(int placed, long p99Millis, int peakConcurrentOrders, long ordersPerSecondPerCore) {
+    }
+}
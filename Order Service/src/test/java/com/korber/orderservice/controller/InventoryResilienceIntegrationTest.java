@@ -0,0 +1,206 @@
+package com.korber.orderservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.korber.orderservice.dto.OrderItemRequest;
+import com.korber.orderservice.dto.OrderRequest;
+import com.korber.orderservice.service.impl.InventoryCallGuard;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Drives POST /order against a stub Inventory Service whose latency is injected per test
+ */
+@SpringBootTest(properties = {
+        "inventory.client.read-timeout-ms=1000",
+        "inventory.client.circuit-breaker.slow-call-duration-ms=200",
+        "inventory.client.circuit-breaker.slow-call-rate-threshold=50",
+        "inventory.client.circuit-breaker.sliding-window-size=4",
+        "inventory.client.circuit-breaker.minimum-number-of-calls=4",
+        "inventory.client.circuit-breaker.wait-in-open-ms=300",
+        "inventory.client.circuit-breaker.permitted-calls-in-half-open=1",
+        "inventory.client.bulkhead.max-concurrent-calls=2"
+})
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class InventoryResilienceIntegrationTest {
+
+    private static final AtomicInteger stubCalls = new AtomicInteger();
+    private static volatile long stubDelayMillis;
+    private static volatile CountDownLatch stubArrivals = new CountDownLatch(0);
+    private static HttpServer stubServer;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InventoryCallGuard callGuard;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private String orderJson;
+
+    @DynamicPropertySource
+    static void inventoryServiceUrl(DynamicPropertyRegistry registry) throws IOException {
+        if (stubServer == null) {
+            stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            stubServer.createContext("/inventory/update/batch", InventoryResilienceIntegrationTest::respond);
+            stubServer.setExecutor(Executors.newCachedThreadPool());
+            stubServer.start();
+        }
+        registry.add("inventory.service.url", () -> "http://localhost:" + stubServer.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        stubServer.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stubCalls.set(0);
+        stubDelayMillis = 0;
+        stubArrivals = new CountDownLatch(0);
+
+        OrderItemRequest itemRequest = OrderItemRequest.builder()
+                .productId(1L)
+                .quantity(5)
+                .price(10.0)
+                .handlerType("FIFO")
+                .build();
+        orderJson = objectMapper.writeValueAsString(OrderRequest.builder()
+                .customerName("John Doe")
+                .customerEmail("john@example.com")
+                .orderItems(Collections.singletonList(itemRequest))
+                .build());
+    }
+
+    @Test
+    @DisplayName("Test resilience - slow inventory calls open the circuit and orders fail fast with 503")
+    void testSlowInventory_OpensCircuit() throws Exception {
+        // Given - every call succeeds but takes longer than the slow-call threshold
+        stubDelayMillis = 400;
+        for (int i = 0; i < 4; i++) {
+            placeOrder(201);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, callGuard.getState());
+
+        // When
+        long start = System.nanoTime();
+        placeOrder(503);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertEquals(4, stubCalls.get());
+        assertTrue(elapsedMillis < 200, "Rejected order took " + elapsedMillis + " ms");
+        assertEquals(1, meterRegistry.get(InventoryCallGuard.REJECTED_METRIC)
+                .tag("reason", "circuit_open").counter().count());
+        assertEquals(1, meterRegistry.get("resilience4j.circuitbreaker.state")
+                .tag("name", InventoryCallGuard.NAME).tag("state", "open").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Test resilience - a half-open probe closes the circuit once the Inventory Service recovers")
+    void testRecoveredInventory_ProbeClosesCircuit() throws Exception {
+        // Given
+        stubDelayMillis = 400;
+        for (int i = 0; i < 4; i++) {
+            placeOrder(201);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, callGuard.getState());
+
+        // When
+        stubDelayMillis = 0;
+        Thread.sleep(400);
+        placeOrder(201);
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, callGuard.getState());
+        assertEquals(1, meterRegistry.get(InventoryCallGuard.TRANSITIONS_METRIC)
+                .tag("from", "HALF_OPEN").tag("to", "CLOSED").counter().count());
+    }
+
+    @Test
+    @DisplayName("Test resilience - orders beyond the concurrency limit are rejected with 503")
+    void testConcurrentOrders_BulkheadRejects() throws Exception {
+        // Given - two orders are waiting on a slow Inventory Service
+        stubDelayMillis = 800;
+        stubArrivals = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> first = executor.submit(() -> placeOrder(201));
+        Future<?> second = executor.submit(() -> placeOrder(201));
+        assertTrue(stubArrivals.await(5, TimeUnit.SECONDS));
+
+        // When
+        placeOrder(503);
+
+        // Then
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertEquals(2, stubCalls.get());
+        assertEquals(1, meterRegistry.get(InventoryCallGuard.REJECTED_METRIC)
+                .tag("reason", "bulkhead_full").counter().count());
+    }
+
+    private Void placeOrder(int expectedStatus) throws Exception {
+        mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson))
+                .andExpect(status().is(expectedStatus));
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        stubCalls.incrementAndGet();
+        stubArrivals.countDown();
+        try {
+            Thread.sleep(stubDelayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = ("[{\"success\":true,\"message\":\"Inventory updated successfully\","
+                + "\"productId\":1,\"updatedQuantity\":5,\"remainingQuantity\":5}]")
+                .getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        } catch (IOException e) {
+            // The client gave up waiting
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.korber.orderservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.korber.orderservice.dto.InventoryUpdateResponse;
+import com.korber.orderservice.dto.OrderItemRequest;
+import com.korber.orderservice.dto.OrderRequest;
+import com.korber.orderservice.exception.InventoryRequestRejectedException;
+import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.model.OrderOutboxEntry;
+import com.korber.orderservice.repository.OrderOutboxRepository;
+import com.korber.orderservice.repository.OrderRepository;
+import com.korber.orderservice.service.InventoryService;
+import com.korber.orderservice.service.impl.OrderOutboxDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Async acceptance mode: orders are accepted as PENDING and settled by the outbox dispatcher.
+ * Scheduling is off so each test drives the dispatcher itself.
+ */
+@SpringBootTest(properties = {
+        "order.acceptance.mode=async",
+        "order.scheduling.enabled=false",
+        "order.outbox.batch-size=2",
+        "order.outbox.max-attempts=3"
+})
+@AutoConfigureMockMvc
+public class OrderAcceptanceIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private OrderOutboxDispatcher orderOutboxDispatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private InventoryService inventoryService;
+
+    private OrderRequest orderRequest;
+
+    @BeforeEach
+    void setUp() {
+        orderOutboxRepository.deleteAll();
+        orderRepository.deleteAll();
+
+        orderRequest = OrderRequest.builder()
+                .customerName("John Doe")
+                .customerEmail("john@example.com")
+                .orderItems(Collections.singletonList(OrderItemRequest.builder()
+                        .productId(1L)
+                        .quantity(5)
+                        .price(10.0)
+                        .handlerType("FIFO")
+                        .build()))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Integration test - Accepted order is PENDING until the dispatcher places it")
+    void testAcceptOrder_ThenPlaced() throws Exception {
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        double placedBefore = dispatchedCount("placed");
+
+        long orderId = acceptOrder();
+        verifyNoInteractions(inventoryService);
+        assertEquals(1, orderOutboxRepository.count());
+
+        assertEquals(1, orderOutboxDispatcher.dispatchPending());
+
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("PLACED")));
+        assertEquals(0, orderOutboxRepository.count());
+        assertEquals(placedBefore + 1, dispatchedCount("placed"));
+    }
+
+    @Test
+    @DisplayName("Integration test - Accepted order is REJECTED when the deduction is denied")
+    void testAcceptOrder_ThenRejected() throws Exception {
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(false, "Insufficient stock", 1L, 5, 3)));
+
+        long orderId = acceptOrder();
+        orderOutboxDispatcher.dispatchPending();
+
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("REJECTED")));
+        assertEquals(0, orderOutboxRepository.count());
+    }
+
+    @Test
+    @DisplayName("Integration test - Outbox entry is kept and retried while the Inventory Service is unreachable")
+    void testAcceptOrder_RetriedAfterOutage() throws Exception {
+        when(inventoryService.updateInventoryBatch(anyList(), any()))
+                .thenThrow(new InventoryServiceException("Inventory Service is unavailable"))
+                .thenReturn(Collections.singletonList(
+                        new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+
+        long orderId = acceptOrder();
+
+        assertEquals(0, orderOutboxDispatcher.dispatchPending());
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+        assertEquals(1, orderOutboxRepository.findAll().get(0).getAttempts());
+
+        assertEquals(1, orderOutboxDispatcher.dispatchPending());
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("PLACED")));
+    }
+
+    @Test
+    @DisplayName("Integration test - Entries claimed by another dispatcher are skipped until the claim expires")
+    void testDispatchPending_SkipsEntriesClaimedElsewhere() throws Exception {
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        long orderId = acceptOrder();
+        OrderOutboxEntry entry = orderOutboxRepository.findAll().get(0);
+        entry.setClaimToken("other-instance");
+        entry.setClaimedUntil(LocalDateTime.now().plusMinutes(1));
+        orderOutboxRepository.save(entry);
+
+        assertEquals(0, orderOutboxDispatcher.dispatchPending());
+        verifyNoInteractions(inventoryService);
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+
+        // The other instance died without settling the entry
+        entry.setClaimedUntil(LocalDateTime.now().minusSeconds(1));
+        orderOutboxRepository.save(entry);
+
+        assertEquals(1, orderOutboxDispatcher.dispatchPending());
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("PLACED")));
+    }
+
+    @Test
+    @DisplayName("Integration test - A failed attempt releases the claim so the next poll retries the entry")
+    void testDispatchPending_FailedAttemptReleasesClaim() throws Exception {
+        when(inventoryService.updateInventoryBatch(anyList(), any()))
+                .thenThrow(new InventoryServiceException("Inventory Service is unavailable"));
+        acceptOrder();
+
+        assertEquals(0, orderOutboxDispatcher.dispatchPending());
+
+        OrderOutboxEntry entry = orderOutboxRepository.findAll().get(0);
+        assertEquals(1, entry.getAttempts());
+        assertNull(entry.getClaimToken());
+        assertNull(entry.getClaimedUntil());
+    }
+
+    @Test
+    @DisplayName("Integration test - Dispatcher drains more orders than one batch")
+    void testDispatchPending_DrainsAllBatches() throws Exception {
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        for (int i = 0; i < 5; i++) {
+            acceptOrder();
+        }
+
+        assertEquals(5, orderOutboxDispatcher.dispatchPending());
+
+        assertEquals(0, orderOutboxRepository.count());
+        verify(inventoryService, times(5)).updateInventoryBatch(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Integration test - Accepted order is REJECTED when the Inventory Service refuses the request")
+    void testAcceptOrder_RefusedRequestRejected() throws Exception {
+        when(inventoryService.updateInventoryBatch(anyList(), any()))
+                .thenThrow(new InventoryRequestRejectedException("Batch inventory update rejected: 404 Not Found", null));
+
+        long orderId = acceptOrder();
+
+        assertEquals(1, orderOutboxDispatcher.dispatchPending());
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("REJECTED")));
+        assertEquals(0, orderOutboxRepository.count());
+    }
+
+    @Test
+    @DisplayName("Integration test - Poison entries are FAILED after max-attempts and stop blocking the outbox")
+    void testDispatchPending_PoisonEntriesFailed() throws Exception {
+        long firstPoisonId = acceptOrder();
+        long secondPoisonId = acceptOrder();
+        long orderId = acceptOrder();
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        when(inventoryService.updateInventoryBatch(anyList(), eq("order-" + firstPoisonId)))
+                .thenThrow(new InventoryServiceException("Inventory Service is unavailable"));
+        when(inventoryService.updateInventoryBatch(anyList(), eq("order-" + secondPoisonId)))
+                .thenThrow(new InventoryServiceException("Inventory Service is unavailable"));
+        double failedBefore = dispatchedCount("failed");
+
+        // The poison entries fill the first batch, so the order behind them waits
+        assertEquals(0, orderOutboxDispatcher.dispatchPending());
+        assertEquals(0, orderOutboxDispatcher.dispatchPending());
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+
+        assertEquals(3, orderOutboxDispatcher.dispatchPending());
+        mockMvc.perform(get("/order/{id}", firstPoisonId))
+                .andExpect(jsonPath("$.status", is("FAILED")));
+        mockMvc.perform(get("/order/{id}", secondPoisonId))
+                .andExpect(jsonPath("$.status", is("FAILED")));
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("PLACED")));
+        assertEquals(0, orderOutboxRepository.count());
+        assertEquals(failedBefore + 2, dispatchedCount("failed"));
+    }
+
+    @Test
+    @DisplayName("Integration test - Unexpected failure of one entry does not drop the others")
+    void testDispatchPending_UnexpectedFailureIsolated() throws Exception {
+        long brokenId = acceptOrder();
+        long orderId = acceptOrder();
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        when(inventoryService.updateInventoryBatch(anyList(), eq("order-" + brokenId)))
+                .thenThrow(new IllegalStateException("Unexpected response"));
+
+        assertEquals(1, orderOutboxDispatcher.dispatchPending());
+
+        mockMvc.perform(get("/order/{id}", orderId))
+                .andExpect(jsonPath("$.status", is("PLACED")));
+        mockMvc.perform(get("/order/{id}", brokenId))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+        assertEquals(1, orderOutboxRepository.findAll().get(0).getAttempts());
+    }
+
+    private long acceptOrder() throws Exception {
+        String body = mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status", is("PENDING")))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private double dispatchedCount(String outcome) {
+        return meterRegistry.get(OrderOutboxDispatcher.DISPATCHED_METRIC).tag("outcome", outcome).counter().count();
+    }
+}
@@ -1,13 +1,15 @@
 package com.korber.orderservice.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.korber.orderservice.dto.InventoryResponse;
+import com.korber.orderservice.dto.InventoryUpdateResponse;
 import com.korber.orderservice.dto.OrderItemRequest;
 import com.korber.orderservice.dto.OrderRequest;
 import com.korber.orderservice.model.Order;
 import com.korber.orderservice.model.OrderItem;
 import com.korber.orderservice.repository.OrderRepository;
 import com.korber.orderservice.service.InventoryService;
+import com.korber.orderservice.service.impl.IdempotencyStore;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -17,15 +19,25 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -43,6 +55,9 @@ public class OrderControllerIntegrationTest {
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private InventoryService inventoryService;
 
@@ -68,17 +83,9 @@ public class OrderControllerIntegrationTest {
                 .orderItems(Collections.singletonList(itemRequest))
                 .build();
 
-        // Setup inventory response
-        InventoryResponse inventoryResponse = InventoryResponse.builder()
-                .id(1L)
-                .productId(1L)
-                .quantity(10)
-                .expiryDate(LocalDate.now().plusMonths(6))
-                .batchNumber("BATCH001")
-                .build();
-
-        when(inventoryService.checkInventory(anyLong()))
-                .thenReturn(Collections.singletonList(inventoryResponse));
+        when(inventoryService.updateInventoryBatch(anyList(), any()))
+                .thenReturn(Collections.singletonList(
+                        new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
 
         // Create a test order in the database
         OrderItem orderItem = new OrderItem();
@@ -113,6 +120,120 @@ public class OrderControllerIntegrationTest {
                 .andExpect(jsonPath("$.totalAmount", is(50.0)));
     }
 
+    @Test
+    @DisplayName("Integration test - Create order holds no transaction or pooled connection during the deduction call")
+    void testCreateOrder_NoConnectionHeldDuringDeduction() throws Exception {
+        AtomicBoolean transactionActive = new AtomicBoolean(true);
+        AtomicReference<Double> activeConnections = new AtomicReference<>();
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenAnswer(invocation -> {
+            transactionActive.set(TransactionSynchronizationManager.isActualTransactionActive());
+            activeConnections.set(meterRegistry.get("hikaricp.connections.active").tag("pool", "order-db")
+                    .gauge().value());
+            return Collections.singletonList(
+                    new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5));
+        });
+
+        mockMvc.perform(post("/order")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated());
+
+        assertFalse(transactionActive.get());
+        assertEquals(0.0, activeConnections.get());
+        assertNotNull(meterRegistry.find("hikaricp.connections.pending").tag("pool", "order-db").gauge());
+    }
+
+    @Test
+    @DisplayName("Integration test - Create order retried with the same Idempotency-Key is placed once")
+    void testCreateOrder_IdempotencyKeyReplay() throws Exception {
+        String first = mockMvc.perform(post("/order")
+                .header(IdempotencyStore.HEADER, "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        String replay = mockMvc.perform(post("/order")
+                .header(IdempotencyStore.HEADER, "retry-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals(objectMapper.readTree(first).get("id"), objectMapper.readTree(replay).get("id"));
+        assertEquals(2, orderRepository.count());
+        verify(inventoryService, times(1)).updateInventoryBatch(anyList(), eq("checkout-retry-1"));
+    }
+
+    @Test
+    @DisplayName("Integration test - Create order with an Idempotency-Key reused for a different order")
+    void testCreateOrder_IdempotencyKeyReused() throws Exception {
+        mockMvc.perform(post("/order")
+                .header(IdempotencyStore.HEADER, "retry-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated());
+
+        orderRequest.setCustomerName("Someone Else");
+        mockMvc.perform(post("/order")
+                .header(IdempotencyStore.HEADER, "retry-2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @DisplayName("Integration test - Create order without blocking the request thread")
+    void testCreateOrderAsync() throws Exception {
+        when(inventoryService.updateInventoryBatchAsync(anyList(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(
+                        new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5))));
+
+        MvcResult result = mockMvc.perform(post("/order/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.customerName", is("John Doe")))
+                .andExpect(jsonPath("$.status", is("PLACED")))
+                .andExpect(jsonPath("$.totalAmount", is(50.0)));
+    }
+
+    @Test
+    @DisplayName("Integration test - Create order without blocking the request thread - retried with the same Idempotency-Key")
+    void testCreateOrderAsync_IdempotencyKeyReplay() throws Exception {
+        when(inventoryService.updateInventoryBatchAsync(anyList(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(
+                        new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5))));
+
+        String first = placeAsync("async-retry-1");
+        String replay = placeAsync("async-retry-1");
+
+        assertEquals(objectMapper.readTree(first).get("id"), objectMapper.readTree(replay).get("id"));
+        assertEquals(2, orderRepository.count());
+        verify(inventoryService, times(1)).updateInventoryBatchAsync(anyList(), eq("checkout-async-retry-1"));
+    }
+
+    @Test
+    @DisplayName("Integration test - Create order without blocking the request thread - insufficient inventory")
+    void testCreateOrderAsync_InsufficientInventory() throws Exception {
+        when(inventoryService.updateInventoryBatchAsync(anyList(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(
+                        new InventoryUpdateResponse(false, "Insufficient stock", 1L, 5, 3))));
+
+        MvcResult result = mockMvc.perform(post("/order/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @DisplayName("Integration test - Get order by ID")
     void testGetOrderById() throws Exception {
@@ -127,12 +248,110 @@ public class OrderControllerIntegrationTest {
     }
 
     @Test
-    @DisplayName("Integration test - Get all orders")
-    void testGetAllOrders() throws Exception {
+    @DisplayName("Integration test - List orders")
+    void testGetOrders() throws Exception {
         mockMvc.perform(get("/order"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$", hasSize(1)))
-                .andExpect(jsonPath("$[0].id", is(testOrder.getId().intValue())))
-                .andExpect(jsonPath("$[0].customerName", is("Jane Smith")));
+                .andExpect(jsonPath("$.orders", hasSize(1)))
+                .andExpect(jsonPath("$.orders[0].id", is(testOrder.getId().intValue())))
+                .andExpect(jsonPath("$.orders[0].customerName", is("Jane Smith")))
+                .andExpect(jsonPath("$.orders[0].orderItems", hasSize(1)))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    @DisplayName("Integration test - List orders page by page with filters")
+    void testGetOrders_KeysetPages() throws Exception {
+        Order second = saveOrder("john@example.com", "PLACED", LocalDateTime.now().minusDays(1));
+        Order third = saveOrder("john@example.com", "PLACED", LocalDateTime.now().minusDays(2));
+        saveOrder("john@example.com", "REJECTED", LocalDateTime.now().minusDays(1));
+
+        mockMvc.perform(get("/order")
+                .param("customerEmail", "john@example.com")
+                .param("status", "PLACED")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(1)))
+                .andExpect(jsonPath("$.orders[0].id", is(third.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor", is(third.getId().intValue())));
+
+        mockMvc.perform(get("/order")
+                .param("customerEmail", "john@example.com")
+                .param("status", "PLACED")
+                .param("limit", "1")
+                .param("cursor", third.getId().toString()))
+                .andExpect(jsonPath("$.orders", hasSize(1)))
+                .andExpect(jsonPath("$.orders[0].id", is(second.getId().intValue())))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+
+        mockMvc.perform(get("/order")
+                .param("from", LocalDateTime.now().minusDays(3).toString())
+                .param("to", LocalDateTime.now().minusHours(36).toString()))
+                .andExpect(jsonPath("$.orders", hasSize(1)))
+                .andExpect(jsonPath("$.orders[0].id", is(third.getId().intValue())));
+    }
+
+    @Test
+    @DisplayName("Integration test - Export orders as NDJSON")
+    void testExportOrders() throws Exception {
+        Order second = saveOrder("john@example.com", "PLACED", LocalDateTime.now());
+
+        String body = mockMvc.perform(get("/order/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(second.getId(), objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals(testOrder.getId(), objectMapper.readTree(lines[1]).get("id").asLong());
+        assertEquals(1, objectMapper.readTree(lines[1]).get("orderItems").size());
+    }
+
+    @Test
+    @DisplayName("Integration test - Export orders as NDJSON with filters")
+    void testExportOrders_Filtered() throws Exception {
+        Order rejected = saveOrder("john@example.com", "REJECTED", LocalDateTime.now());
+        saveOrder("jane@example.com", "REJECTED", LocalDateTime.now());
+
+        String body = mockMvc.perform(get("/order/export")
+                        .param("customerEmail", "john@example.com")
+                        .param("status", "REJECTED"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(1, lines.length);
+        assertEquals(rejected.getId(), objectMapper.readTree(lines[0]).get("id").asLong());
+    }
+
+    private Order saveOrder(String customerEmail, String status, LocalDateTime orderDate) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setProductId(1L);
+        orderItem.setQuantity(1);
+        orderItem.setPrice(10.0);
+        orderItem.setHandlerType("FIFO");
+
+        Order order = new Order();
+        order.setCustomerName("John Doe");
+        order.setCustomerEmail(customerEmail);
+        order.setOrderDate(orderDate);
+        order.setStatus(status);
+        order.setTotalAmount(10.0);
+        order.addOrderItem(orderItem);
+        return orderRepository.save(order);
+    }
+
+    private String placeAsync(String idempotencyKey) throws Exception {
+        MvcResult result = mockMvc.perform(post("/order/async")
+                .header(IdempotencyStore.HEADER, idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
     }
 }
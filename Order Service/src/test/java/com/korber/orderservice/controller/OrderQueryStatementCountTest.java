@@ -0,0 +1,157 @@
+package com.korber.orderservice.controller;
+
+import com.korber.orderservice.model.Order;
+import com.korber.orderservice.model.OrderItem;
+import com.korber.orderservice.repository.OrderOutboxRepository;
+import com.korber.orderservice.repository.OrderRepository;
+import com.korber.orderservice.service.InventoryService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reading orders must not issue a query per order or per item: orders and their items are read
+ * together as projections, without loading entities. Saving an order must not issue an INSERT per item.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureMockMvc
+public class OrderQueryStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private InventoryService inventoryService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        orderOutboxRepository.deleteAll();
+        orderRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Integration test - Listing orders issues the same number of statements regardless of how many orders there are")
+    void testGetOrders_StatementCountIsIndependentOfOrderCount() throws Exception {
+        long statementsFor1Order = statementsForListing(1);
+        long statementsFor20Orders = statementsForListing(20);
+        long statementsFor100Orders = statementsForListing(100);
+
+        // One query picks the IDs of the page, one reads those orders and all their items
+        assertEquals(2, statementsFor1Order);
+        assertEquals(statementsFor1Order, statementsFor20Orders);
+        assertEquals(statementsFor1Order, statementsFor100Orders);
+    }
+
+    @Test
+    @DisplayName("Integration test - Getting an order issues one statement regardless of how many items it has")
+    void testGetOrderById_StatementCountIsIndependentOfItemCount() throws Exception {
+        long statementsFor1Item = statementsForGet(1);
+        long statementsFor50Items = statementsForGet(50);
+
+        assertEquals(1, statementsFor1Item);
+        assertEquals(statementsFor1Item, statementsFor50Items);
+    }
+
+    @Test
+    @DisplayName("Integration test - Getting an unknown order issues one statement")
+    void testGetOrderById_NotFound_SingleStatement() throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(get("/order/{id}", 999999L))
+                .andExpect(status().isNotFound());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Integration test - Saving a 50-line order sends its items as one JDBC batch")
+    void testSaveOrder_ItemsInsertedInOneBatch() {
+        saveOrder(50); // Reserves the first block of sequence values
+        statistics.clear();
+
+        saveOrder(50);
+
+        assertEquals(51, statistics.getEntityInsertCount());
+        // One INSERT for the order, one batched INSERT for its items, at most one sequence call per table;
+        // without batching every item would be its own statement
+        assertTrue(statistics.getPrepareStatementCount() <= 4,
+                "Statements: " + statistics.getPrepareStatementCount());
+    }
+
+    private long statementsForListing(int orderCount) throws Exception {
+        orderRepository.deleteAll();
+        for (int i = 0; i < orderCount; i++) {
+            saveOrder(3);
+        }
+        statistics.clear();
+
+        mockMvc.perform(get("/order").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(orderCount)))
+                .andExpect(jsonPath("$.orders[0].orderItems", hasSize(3)));
+
+        assertEquals(0, statistics.getEntityLoadCount()); // Read as projections, nothing is hydrated
+        assertEquals(0, statistics.getCollectionLoadCount());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long statementsForGet(int itemCount) throws Exception {
+        Order order = saveOrder(itemCount);
+        statistics.clear();
+
+        mockMvc.perform(get("/order/{id}", order.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderItems", hasSize(itemCount)));
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionLoadCount());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Order saveOrder(int itemCount) {
+        Order order = new Order();
+        order.setCustomerName("John Doe");
+        order.setCustomerEmail("john@example.com");
+        order.setOrderDate(LocalDateTime.now());
+        order.setStatus("PLACED");
+        order.setTotalAmount(10.0 * itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProductId((long) i + 1);
+            orderItem.setQuantity(1);
+            orderItem.setPrice(10.0);
+            orderItem.setHandlerType("FIFO");
+            order.addOrderItem(orderItem);
+        }
+        return orderRepository.save(order);
+    }
+}
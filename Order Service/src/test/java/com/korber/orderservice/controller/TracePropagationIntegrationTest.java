@@ -0,0 +1,176 @@
+package com.korber.orderservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.korber.orderservice.dto.OrderItemRequest;
+import com.korber.orderservice.dto.OrderRequest;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Places an order against a stub Inventory Service that records the trace context of every call it receives
+ */
+@SpringBootTest(properties = {
+        "order.inventory.precheck.enabled=true",
+        "tracing.export.file=target/traces/order-service.jsonl"
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability(metrics = false)
+public class TracePropagationIntegrationTest {
+
+    private static final Map<String, String> traceparentByRequest = new ConcurrentHashMap<>();
+    private static HttpServer stubServer;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @Value("${tracing.export.file}")
+    private Path exportFile;
+
+    @DynamicPropertySource
+    static void inventoryServiceUrl(DynamicPropertyRegistry registry) throws IOException {
+        if (stubServer == null) {
+            stubServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            stubServer.createContext("/inventory/", TracePropagationIntegrationTest::respond);
+            stubServer.setExecutor(Executors.newCachedThreadPool());
+            stubServer.start();
+        }
+        registry.add("inventory.service.url", () -> "http://localhost:" + stubServer.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopStubServer() {
+        stubServer.stop(0);
+    }
+
+    @Test
+    @DisplayName("Test tracing - every inventory call of an order continues the caller's trace")
+    void testCreateOrder_PropagatesTraceContext() throws Exception {
+        // Given - two products, so the availability checks run concurrently on the check executor
+        String traceId = randomHex(16);
+        String orderJson = objectMapper.writeValueAsString(OrderRequest.builder()
+                .customerName("John Doe")
+                .customerEmail("john@example.com")
+                .orderItems(List.of(item(1L), item(2L)))
+                .build());
+
+        // When
+        mockMvc.perform(post("/order")
+                        .header("traceparent", "00-" + traceId + "-" + randomHex(8) + "-01")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson))
+                .andExpect(status().isCreated());
+
+        // Then
+        assertEquals(3, traceparentByRequest.size(), traceparentByRequest.toString());
+        traceparentByRequest.forEach((request, traceparent) ->
+                assertTrue(traceparent.startsWith("00-" + traceId + "-"), request + " was sent " + traceparent));
+
+        List<JsonNode> spans = exportedSpans(traceId);
+        JsonNode deduction = span(spans, "order.create.deduction");
+        JsonNode deductionCall = spans.stream()
+                .filter(span -> "CLIENT".equals(span.get("kind").asText()))
+                .filter(span -> span.get("attributes").get("http.url").asText().endsWith("/inventory/update/batch"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No client span for the deduction in " + spans));
+        assertEquals(deduction.get("spanId").asText(), deductionCall.get("parentSpanId").asText());
+        span(spans, "order.create.availability");
+        span(spans, "order.create.persistence");
+    }
+
+    private List<JsonNode> exportedSpans(String traceId) throws Exception {
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+        List<JsonNode> spans = new ArrayList<>();
+        for (String line : Files.readAllLines(exportFile)) {
+            JsonNode span = objectMapper.readTree(line);
+            if (traceId.equals(span.get("traceId").asText())) {
+                spans.add(span);
+            }
+        }
+        return spans;
+    }
+
+    private static JsonNode span(List<JsonNode> spans, String name) {
+        return spans.stream()
+                .filter(span -> name.equals(span.get("name").asText()))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No span named " + name + " in " + spans));
+    }
+
+    private static OrderItemRequest item(Long productId) {
+        return OrderItemRequest.builder()
+                .productId(productId)
+                .quantity(5)
+                .price(10.0)
+                .handlerType("FIFO")
+                .build();
+    }
+
+    private static String randomHex(int bytes) {
+        byte[] random = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(random);
+        return HexFormat.of().formatHex(random);
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        traceparentByRequest.put(exchange.getRequestMethod() + " " + path,
+                String.valueOf(exchange.getRequestHeaders().getFirst("traceparent")));
+
+        String json;
+        if (path.equals("/inventory/update/batch")) {
+            json = "[{\"success\":true,\"message\":\"Inventory updated successfully\","
+                    + "\"productId\":1,\"updatedQuantity\":5,\"remainingQuantity\":95},"
+                    + "{\"success\":true,\"message\":\"Inventory updated successfully\","
+                    + "\"productId\":2,\"updatedQuantity\":5,\"remainingQuantity\":95}]";
+        } else {
+            String productId = path.substring("/inventory/".length());
+            json = "[{\"id\":" + productId + ",\"productId\":" + productId
+                    + ",\"quantity\":100,\"batchNumber\":\"BATCH-001\"}]";
+        }
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        try (OutputStream out = exchange.getResponseBody()) {
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.korber.orderservice.service;
+
+import com.korber.orderservice.dto.InventoryResponse;
+import com.korber.orderservice.exception.ResourceNotFoundException;
+import com.korber.orderservice.service.impl.InventoryAvailabilityCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryAvailabilityCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryAvailabilityCache cache;
+    private AtomicInteger remoteCalls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new InventoryAvailabilityCache(meterRegistry, true, 60000, 60000, 100);
+        remoteCalls = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Test get - repeated lookups are served from the cache and measured")
+    void testGet_RepeatedLookups_Hit() {
+        // When
+        List<InventoryResponse> first = cache.get(1L, batches(10));
+        List<InventoryResponse> second = cache.get(1L, batches(10));
+
+        // Then
+        assertEquals(1, remoteCalls.get());
+        assertEquals(first, second);
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("result", "miss").functionCounter().count());
+        assertEquals(0.5, meterRegistry.get(InventoryAvailabilityCache.HIT_RATIO_METRIC).gauge().value());
+        assertEquals(1, meterRegistry.get(InventoryAvailabilityCache.STALENESS_METRIC).timer().count());
+    }
+
+    @Test
+    @DisplayName("Test get - concurrent misses on one product share a single remote call")
+    void testGet_ConcurrentMisses_Coalesced() throws Exception {
+        // Given
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Function<Long, List<InventoryResponse>> slowLoader = productId -> {
+            remoteCalls.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(batch(productId, 10));
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<List<InventoryResponse>>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> cache.get(1L, slowLoader)));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 7; i++) {
+            futures.add(executor.submit(() -> cache.get(1L, slowLoader)));
+        }
+        release.countDown();
+        for (Future<List<InventoryResponse>> future : futures) {
+            assertEquals(10, future.get(5, TimeUnit.SECONDS).get(0).getQuantity());
+        }
+        executor.shutdown();
+
+        // Then
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    @DisplayName("Test get - unknown products are cached as unknown")
+    void testGet_UnknownProduct_NegativelyCached() {
+        // Given
+        Function<Long, List<InventoryResponse>> notFound = productId -> {
+            remoteCalls.incrementAndGet();
+            throw new ResourceNotFoundException("Product", "id", productId);
+        };
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> cache.get(99L, notFound));
+        assertThrows(ResourceNotFoundException.class, () -> cache.get(99L, notFound));
+        assertEquals(1, remoteCalls.get());
+    }
+
+    @Test
+    @DisplayName("Test get - failures are not cached")
+    void testGet_LoaderFailure_NotCached() {
+        // Given
+        Function<Long, List<InventoryResponse>> failing = productId -> {
+            remoteCalls.incrementAndGet();
+            throw new IllegalStateException("Inventory Service unavailable");
+        };
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, failing));
+        assertEquals(10, cache.get(1L, batches(10)).get(0).getQuantity());
+        assertEquals(2, remoteCalls.get());
+    }
+
+    @Test
+    @DisplayName("Test evict - the next lookup goes remote")
+    void testEvict_NextLookupLoads() {
+        // Given
+        cache.get(1L, batches(10));
+
+        // When
+        cache.evict(List.of(1L));
+        List<InventoryResponse> result = cache.get(1L, batches(4));
+
+        // Then
+        assertEquals(2, remoteCalls.get());
+        assertEquals(4, result.get(0).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Test get - entries expire after the TTL")
+    void testGet_AfterTtl_Reloads() throws InterruptedException {
+        // Given
+        cache = new InventoryAvailabilityCache(meterRegistry, true, 20, 20, 100);
+        cache.get(1L, batches(10));
+
+        // When
+        Thread.sleep(50);
+        cache.get(1L, batches(10));
+
+        // Then
+        assertEquals(2, remoteCalls.get());
+    }
+
+    @Test
+    @DisplayName("Test get - disabled cache always goes remote")
+    void testGet_Disabled_AlwaysLoads() {
+        // Given
+        cache = new InventoryAvailabilityCache(new SimpleMeterRegistry(), false, 60000, 60000, 100);
+
+        // When
+        cache.get(1L, batches(10));
+        cache.get(1L, batches(10));
+
+        // Then
+        assertEquals(2, remoteCalls.get());
+    }
+
+    private Function<Long, List<InventoryResponse>> batches(int quantity) {
+        return productId -> {
+            remoteCalls.incrementAndGet();
+            return List.of(batch(productId, quantity));
+        };
+    }
+
+    private InventoryResponse batch(Long productId, int quantity) {
+        return InventoryResponse.builder()
+                .id(1L)
+                .productId(productId)
+                .quantity(quantity)
+                .batchNumber("BATCH001")
+                .build();
+    }
+}
@@ -0,0 +1,144 @@
+package com.korber.orderservice.service;
+
+import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.exception.ResourceNotFoundException;
+import com.korber.orderservice.service.impl.InventoryCallGuard;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InventoryCallGuardTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryCallGuard callGuard;
+    private AtomicInteger remoteCalls;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Opens after 4 calls with at least half failing, probes with one call after 100 ms, 2 calls in flight
+        callGuard = new InventoryCallGuard(meterRegistry, 50, 2000, 80, 4, 4, 100, 1, 2, 0);
+        remoteCalls = new AtomicInteger();
+    }
+
+    @Test
+    @DisplayName("Test call - repeated failures open the circuit and later calls fail fast")
+    void testCall_RepeatedFailures_OpensCircuit() {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            assertThrows(InventoryServiceException.class, () -> callGuard.call(failing()));
+        }
+
+        // When
+        InventoryServiceException exception =
+                assertThrows(InventoryServiceException.class, () -> callGuard.call(succeeding()));
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, callGuard.getState());
+        assertEquals(4, remoteCalls.get());
+        assertTrue(exception.getMessage().contains("circuit breaker is open"));
+        assertEquals(1, meterRegistry.get(InventoryCallGuard.REJECTED_METRIC)
+                .tag("reason", "circuit_open").counter().count());
+        assertEquals(1, meterRegistry.get(InventoryCallGuard.TRANSITIONS_METRIC)
+                .tag("from", "CLOSED").tag("to", "OPEN").counter().count());
+    }
+
+    @Test
+    @DisplayName("Test call - a successful half-open probe closes the circuit")
+    void testCall_HalfOpenProbe_ClosesCircuit() throws InterruptedException {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            assertThrows(InventoryServiceException.class, () -> callGuard.call(failing()));
+        }
+        Thread.sleep(150);
+
+        // When
+        String result = callGuard.call(succeeding());
+
+        // Then
+        assertEquals("ok", result);
+        assertEquals(CircuitBreaker.State.CLOSED, callGuard.getState());
+        assertEquals(1, meterRegistry.get(InventoryCallGuard.TRANSITIONS_METRIC)
+                .tag("from", "OPEN").tag("to", "HALF_OPEN").counter().count());
+        assertEquals(1, meterRegistry.get(InventoryCallGuard.TRANSITIONS_METRIC)
+                .tag("from", "HALF_OPEN").tag("to", "CLOSED").counter().count());
+    }
+
+    @Test
+    @DisplayName("Test call - unknown products do not count as failures")
+    void testCall_NotFound_DoesNotOpenCircuit() {
+        // When
+        for (int i = 0; i < 10; i++) {
+            assertThrows(ResourceNotFoundException.class, () -> callGuard.call(() -> {
+                remoteCalls.incrementAndGet();
+                throw new ResourceNotFoundException("Product", "id", 99L);
+            }));
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, callGuard.getState());
+        assertEquals(10, remoteCalls.get());
+    }
+
+    @Test
+    @DisplayName("Test call - calls beyond the concurrency limit are rejected")
+    void testCall_BulkheadFull_Rejected() throws Exception {
+        // Given - two calls are in flight
+        CountDownLatch inFlight = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Supplier<String> blocking = () -> {
+            inFlight.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "ok";
+        };
+        Future<String> first = executor.submit(() -> callGuard.call(blocking));
+        Future<String> second = executor.submit(() -> callGuard.call(blocking));
+        assertTrue(inFlight.await(5, TimeUnit.SECONDS));
+
+        // When
+        InventoryServiceException exception =
+                assertThrows(InventoryServiceException.class, () -> callGuard.call(succeeding()));
+        release.countDown();
+
+        // Then
+        assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+        assertEquals("ok", second.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(0, remoteCalls.get());
+        assertTrue(exception.getMessage().contains("too many calls in flight"));
+        assertEquals(1, meterRegistry.get(InventoryCallGuard.REJECTED_METRIC)
+                .tag("reason", "bulkhead_full").counter().count());
+        assertEquals(CircuitBreaker.State.CLOSED, callGuard.getState());
+    }
+
+    private Supplier<String> failing() {
+        return () -> {
+            remoteCalls.incrementAndGet();
+            throw new InventoryServiceException("Inventory Service unavailable");
+        };
+    }
+
+    private Supplier<String> succeeding() {
+        return () -> {
+            remoteCalls.incrementAndGet();
+            return "ok";
+        };
+    }
+}
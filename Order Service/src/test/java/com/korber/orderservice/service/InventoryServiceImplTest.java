@@ -2,20 +2,28 @@ package com.korber.orderservice.service;
 
 import com.korber.orderservice.dto.InventoryResponse;
 import com.korber.orderservice.dto.InventoryUpdateRequest;
+import com.korber.orderservice.dto.InventoryUpdateResponse;
+import com.korber.orderservice.exception.InventoryRequestRejectedException;
 import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.exception.ResourceNotFoundException;
+import com.korber.orderservice.service.impl.InventoryAvailabilityCache;
+import com.korber.orderservice.service.impl.InventoryCallGuard;
+import com.korber.orderservice.service.impl.IdempotencyStore;
 import com.korber.orderservice.service.impl.InventoryServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
@@ -33,7 +41,6 @@ public class InventoryServiceImplTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
     private InventoryServiceImpl inventoryService;
 
     private final String INVENTORY_SERVICE_URL = "http://localhost:8082";
@@ -42,7 +49,7 @@ public class InventoryServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        ReflectionTestUtils.setField(inventoryService, "inventoryServiceUrl", INVENTORY_SERVICE_URL);
+        inventoryService = newInventoryService(false);
 
         inventoryResponse = InventoryResponse.builder()
                 .id(1L)
@@ -118,26 +125,47 @@ public class InventoryServiceImplTest {
     @DisplayName("Test update inventory - success scenario")
     void testUpdateInventory_Success() {
         // Given
-        when(restTemplate.postForEntity(anyString(), any(), eq(Void.class)))
-                .thenReturn(new ResponseEntity<>(HttpStatus.OK));
+        InventoryUpdateResponse expectedResponse = new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5);
+        when(restTemplate.postForEntity(anyString(), any(), eq(InventoryUpdateResponse.class)))
+                .thenReturn(new ResponseEntity<>(expectedResponse, HttpStatus.OK));
 
-        // When & Then (no exception should be thrown)
-        assertDoesNotThrow(() -> {
-            inventoryService.updateInventory(updateRequest);
-        });
+        // When
+        InventoryUpdateResponse result = inventoryService.updateInventory(updateRequest);
+
+        // Then
+        assertTrue(result.isSuccess());
+        assertEquals(5, result.getRemainingQuantity());
 
         verify(restTemplate, times(1)).postForEntity(
                 eq(INVENTORY_SERVICE_URL + "/inventory/update"),
                 eq(updateRequest),
-                eq(Void.class)
+                eq(InventoryUpdateResponse.class)
         );
     }
 
+    @Test
+    @DisplayName("Test update inventory - denied deduction returns the response body")
+    void testUpdateInventory_Denied() {
+        // Given
+        InventoryUpdateResponse deniedResponse = new InventoryUpdateResponse(false, "Insufficient stock", 1L, 5, 3);
+        HttpClientErrorException.BadRequest badRequest = mock(HttpClientErrorException.BadRequest.class);
+        when(badRequest.getResponseBodyAs(InventoryUpdateResponse.class)).thenReturn(deniedResponse);
+        when(restTemplate.postForEntity(anyString(), any(), eq(InventoryUpdateResponse.class)))
+                .thenThrow(badRequest);
+
+        // When
+        InventoryUpdateResponse result = inventoryService.updateInventory(updateRequest);
+
+        // Then
+        assertFalse(result.isSuccess());
+        assertEquals(3, result.getRemainingQuantity());
+    }
+
     @Test
     @DisplayName("Test update inventory - service exception")
     void testUpdateInventory_ServiceException() {
         // Given
-        when(restTemplate.postForEntity(anyString(), any(), eq(Void.class)))
+        when(restTemplate.postForEntity(anyString(), any(), eq(InventoryUpdateResponse.class)))
                 .thenThrow(new RestClientException("Service unavailable"));
 
         // When & Then
@@ -148,7 +176,199 @@ public class InventoryServiceImplTest {
         verify(restTemplate, times(1)).postForEntity(
                 eq(INVENTORY_SERVICE_URL + "/inventory/update"),
                 eq(updateRequest),
-                eq(Void.class)
+                eq(InventoryUpdateResponse.class)
+        );
+    }
+
+    @Test
+    @DisplayName("Test update inventory batch - success scenario")
+    void testUpdateInventoryBatch_Success() {
+        // Given
+        List<InventoryUpdateResponse> expectedResponse = Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5));
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.POST),
+                any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)
+        )).thenReturn(new ResponseEntity<>(expectedResponse, HttpStatus.OK));
+
+        // When
+        List<InventoryUpdateResponse> result = inventoryService.updateInventoryBatch(Collections.singletonList(updateRequest), null);
+
+        // Then
+        assertEquals(1, result.size());
+        assertTrue(result.get(0).isSuccess());
+
+        verify(restTemplate, times(1)).exchange(
+                eq(INVENTORY_SERVICE_URL + "/inventory/update/batch"),
+                eq(HttpMethod.POST),
+                any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)
+        );
+    }
+
+    @Test
+    @DisplayName("Test update inventory batch - forwards the idempotency key as a header")
+    void testUpdateInventoryBatch_SendsIdempotencyKey() {
+        // Given
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.POST),
+                any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)
+        )).thenReturn(new ResponseEntity<>(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)), HttpStatus.OK));
+
+        // When
+        inventoryService.updateInventoryBatch(Collections.singletonList(updateRequest), "order-42");
+
+        // Then
+        verify(restTemplate).exchange(
+                anyString(),
+                eq(HttpMethod.POST),
+                argThat((HttpEntity<?> entity) -> "order-42".equals(entity.getHeaders().getFirst(IdempotencyStore.HEADER))),
+                any(ParameterizedTypeReference.class)
         );
     }
+
+    @Test
+    @DisplayName("Test update inventory batch - rejected batch returns per-line responses")
+    void testUpdateInventoryBatch_Rejected() {
+        // Given
+        List<InventoryUpdateResponse> rejectedResponse = Collections.singletonList(
+                new InventoryUpdateResponse(false, "Insufficient stock", 1L, 5, 3));
+        HttpClientErrorException.BadRequest badRequest = mock(HttpClientErrorException.BadRequest.class);
+        when(badRequest.getResponseBodyAs(any(ParameterizedTypeReference.class))).thenReturn(rejectedResponse);
+
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.POST),
+                any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)
+        )).thenThrow(badRequest);
+
+        // When
+        List<InventoryUpdateResponse> result = inventoryService.updateInventoryBatch(Collections.singletonList(updateRequest), null);
+
+        // Then
+        assertEquals(1, result.size());
+        assertFalse(result.get(0).isSuccess());
+        assertEquals("Insufficient stock", result.get(0).getMessage());
+    }
+
+    @Test
+    @DisplayName("Test update inventory batch - service exception")
+    void testUpdateInventoryBatch_ServiceException() {
+        // Given
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.POST),
+                any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)
+        )).thenThrow(new RestClientException("Service unavailable"));
+
+        // When & Then
+        assertThrows(InventoryServiceException.class, () -> {
+            inventoryService.updateInventoryBatch(Collections.singletonList(updateRequest), null);
+        });
+    }
+
+    @Test
+    @DisplayName("Test update inventory batch - refused request is not reported as an outage")
+    void testUpdateInventoryBatch_RefusedRequest() {
+        // Given
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.POST),
+                any(HttpEntity.class),
+                any(ParameterizedTypeReference.class)
+        )).thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        // When & Then
+        assertThrows(InventoryRequestRejectedException.class, () -> {
+            inventoryService.updateInventoryBatch(Collections.singletonList(updateRequest), null);
+        });
+    }
+
+    @Test
+    @DisplayName("Test check inventory - unknown product")
+    void testCheckInventory_NotFound() {
+        // Given
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                isNull(),
+                any(ParameterizedTypeReference.class)
+        )).thenThrow(mock(HttpClientErrorException.NotFound.class));
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> inventoryService.checkInventory(99L));
+    }
+
+    @Test
+    @DisplayName("Test check inventory - near-cache answers repeated checks until a deduction commits")
+    void testCheckInventory_CachedUntilDeduction() {
+        // Given
+        inventoryService = newInventoryService(true);
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                isNull(),
+                any(ParameterizedTypeReference.class)
+        )).thenReturn(new ResponseEntity<>(Collections.singletonList(inventoryResponse), HttpStatus.OK));
+        when(restTemplate.postForEntity(anyString(), any(), eq(InventoryUpdateResponse.class)))
+                .thenReturn(new ResponseEntity<>(new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5), HttpStatus.OK));
+
+        // When
+        inventoryService.checkInventory(1L);
+        inventoryService.checkInventory(1L);
+        inventoryService.updateInventory(updateRequest);
+        inventoryService.checkInventory(1L);
+
+        // Then - one remote check before the deduction, one after it
+        verify(restTemplate, times(2)).exchange(
+                eq(INVENTORY_SERVICE_URL + "/inventory/1"),
+                eq(HttpMethod.GET),
+                isNull(),
+                any(ParameterizedTypeReference.class)
+        );
+    }
+
+    @Test
+    @DisplayName("Test refresh inventory - bypasses the near-cache")
+    void testRefreshInventory_BypassesCache() {
+        // Given
+        inventoryService = newInventoryService(true);
+        when(restTemplate.exchange(
+                anyString(),
+                eq(HttpMethod.GET),
+                isNull(),
+                any(ParameterizedTypeReference.class)
+        )).thenReturn(new ResponseEntity<>(Collections.singletonList(inventoryResponse), HttpStatus.OK));
+
+        // When
+        inventoryService.checkInventory(1L);
+        inventoryService.refreshInventory(1L);
+        inventoryService.checkInventory(1L);
+
+        // Then
+        verify(restTemplate, times(2)).exchange(
+                eq(INVENTORY_SERVICE_URL + "/inventory/1"),
+                eq(HttpMethod.GET),
+                isNull(),
+                any(ParameterizedTypeReference.class)
+        );
+    }
+
+    private InventoryServiceImpl newInventoryService(boolean cacheEnabled) {
+        InventoryAvailabilityCache cache = new InventoryAvailabilityCache(
+                new SimpleMeterRegistry(), cacheEnabled, 60000, 60000, 100);
+        InventoryCallGuard callGuard = new InventoryCallGuard(
+                new SimpleMeterRegistry(), 50, 2000, 80, 20, 10, 5000, 3, 50, 0);
+        InventoryServiceImpl service = new InventoryServiceImpl(restTemplate, cache, callGuard);
+        ReflectionTestUtils.setField(service, "inventoryServiceUrl", INVENTORY_SERVICE_URL);
+        return service;
+    }
 }
@@ -2,28 +2,54 @@ package com.korber.orderservice.service;
 
 import com.korber.orderservice.dto.*;
 import com.korber.orderservice.exception.InsufficientInventoryException;
+import com.korber.orderservice.exception.OrderPersistenceException;
 import com.korber.orderservice.exception.ResourceNotFoundException;
 import com.korber.orderservice.model.Order;
 import com.korber.orderservice.model.OrderItem;
+import com.korber.orderservice.model.OrderOutboxEntry;
+import com.korber.orderservice.repository.OrderOutboxRepository;
 import com.korber.orderservice.repository.OrderRepository;
+import com.korber.orderservice.service.impl.OrderPhaseTimers;
 import com.korber.orderservice.service.impl.OrderServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.stubbing.Answer;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,18 +58,38 @@ public class OrderServiceImplTest {
     @Mock
     private OrderRepository orderRepository;
 
+    @Mock
+    private OrderOutboxRepository orderOutboxRepository;
+
     @Mock
     private InventoryService inventoryService;
 
-    @InjectMocks
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ExecutorService inventoryCheckExecutor = Executors.newFixedThreadPool(4);
+
+    @Spy
+    private ExecutorService orderPersistenceExecutor = Executors.newSingleThreadExecutor();
+
+    private final Semaphore orderPersistencePermits = new Semaphore(1);
+
+    // Built in setUp; @InjectMocks matches constructor arguments by type and cannot tell the two executors apart
     private OrderServiceImpl orderService;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private OrderRequest orderRequest;
     private Order order;
-    private List<InventoryResponse> inventoryResponses;
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        orderService = new OrderServiceImpl(orderRepository, orderOutboxRepository, inventoryService,
+                inventoryCheckExecutor, orderPersistenceExecutor, orderPersistencePermits, new OrderPhaseTimers(meterRegistry, Tracer.NOOP),
+                new TransactionTemplate(transactionManager));
+
         // Setup order request
         OrderItemRequest itemRequest = OrderItemRequest.builder()
                 .productId(1L)
@@ -74,28 +120,24 @@ public class OrderServiceImplTest {
         order.setStatus("PLACED");
         order.setTotalAmount(50.0);
         order.addOrderItem(orderItem);
+    }
 
-        // Setup inventory response
-        inventoryResponses = Collections.singletonList(
-                InventoryResponse.builder()
-                        .id(1L)
-                        .productId(1L)
-                        .quantity(10)
-                        .expiryDate(LocalDate.now().plusMonths(6))
-                        .batchNumber("BATCH001")
-                        .build()
-        );
+    @AfterEach
+    void tearDown() {
+        inventoryCheckExecutor.shutdownNow();
+        orderPersistenceExecutor.shutdownNow();
     }
 
     @Test
     @DisplayName("Test create order - success scenario")
     void testCreateOrder_Success() {
         // Given
-        when(inventoryService.checkInventory(anyLong())).thenReturn(inventoryResponses);
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
         when(orderRepository.save(any(Order.class))).thenReturn(order);
 
         // When
-        OrderResponse result = orderService.createOrder(orderRequest);
+        OrderResponse result = orderService.createOrder(orderRequest, null);
 
         // Then
         assertNotNull(result);
@@ -104,41 +146,406 @@ public class OrderServiceImplTest {
         assertEquals(50.0, result.getTotalAmount());
         assertEquals(1, result.getOrderItems().size());
 
-        verify(inventoryService, times(1)).checkInventory(1L);
-        verify(inventoryService, times(1)).updateInventory(any(InventoryUpdateRequest.class));
+        verify(inventoryService, never()).checkInventory(anyLong());
+        verify(inventoryService, times(1)).updateInventoryBatch(anyList(), any());
         verify(orderRepository, times(1)).save(any(Order.class));
     }
 
+    @Test
+    @DisplayName("Test create order - deduction and persistence phases are timed, the skipped pre-check is not")
+    void testCreateOrder_RecordsPhaseTimers() {
+        // Given
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+
+        // When
+        orderService.createOrder(orderRequest, null);
+
+        // Then
+        assertEquals(0, phaseCount("availability"));
+        assertEquals(1, phaseCount("deduction"));
+        assertEquals(1, phaseCount("persistence"));
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    @DisplayName("Test create order - the transaction starts only after the inventory calls have returned")
+    void testCreateOrder_NoTransactionDuringInventoryCalls() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        when(inventoryService.checkInventory(1L)).thenReturn(Collections.singletonList(batch(10)));
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+
+        // When
+        orderService.createOrder(orderRequest, null);
+
+        // Then
+        InOrder inOrder = inOrder(inventoryService, transactionManager, orderRepository);
+        inOrder.verify(inventoryService).checkInventory(1L);
+        inOrder.verify(inventoryService).updateInventoryBatch(anyList(), any());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(orderRepository).save(any(Order.class));
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    @DisplayName("Test create order - a failed save after the deduction tells whether a retry is safe")
+    void testCreateOrder_SaveFails() {
+        // Given
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        when(orderRepository.save(any(Order.class))).thenThrow(new IllegalStateException("Database unavailable"));
+
+        // When
+        OrderPersistenceException withKey = assertThrows(OrderPersistenceException.class,
+                () -> orderService.createOrder(orderRequest, "key-1"));
+        OrderPersistenceException withoutKey = assertThrows(OrderPersistenceException.class,
+                () -> orderService.createOrder(orderRequest, null));
+
+        // Then
+        assertTrue(withKey.isRetryable());
+        assertFalse(withoutKey.isRetryable());
+        verify(inventoryService).updateInventoryBatch(anyList(), eq("checkout-key-1"));
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    @DisplayName("Test create order - a rejected deduction is timed and nothing is persisted")
+    void testCreateOrder_RejectedDeductionIsTimed() {
+        // Given
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(false, "Failed to update inventory. Insufficient stock or product not found.", 1L, 5, 3)));
+
+        // When
+        assertThrows(InsufficientInventoryException.class, () -> orderService.createOrder(orderRequest, null));
+
+        // Then
+        assertEquals(1, phaseCount("deduction"));
+        assertEquals(0, phaseCount("persistence"));
+    }
+
     @Test
     @DisplayName("Test create order - insufficient inventory")
     void testCreateOrder_InsufficientInventory() {
         // Given
-        InventoryResponse insufficientInventory = InventoryResponse.builder()
-                .id(1L)
-                .productId(1L)
-                .quantity(3) // Less than requested quantity (5)
-                .expiryDate(LocalDate.now().plusMonths(6))
-                .batchNumber("BATCH001")
-                .build();
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(false, "Failed to update inventory. Insufficient stock or product not found.", 1L, 5, 3)));
+
+        // When & Then
+        InsufficientInventoryException exception = assertThrows(InsufficientInventoryException.class, () -> {
+            orderService.createOrder(orderRequest, null);
+        });
+
+        assertEquals("Insufficient inventory for product ID 1. Requested: 5, Available: 3", exception.getMessage());
+        verify(inventoryService, never()).checkInventory(anyLong());
+        verify(inventoryService, times(1)).updateInventoryBatch(anyList(), any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("Test create order - reports the denied line when other lines were rolled back")
+    void testCreateOrder_InsufficientInventoryOnSecondLine() {
+        // Given
+        orderRequest.setOrderItems(Arrays.asList(
+                OrderItemRequest.builder().productId(1L).quantity(5).price(10.0).handlerType("FIFO").build(),
+                OrderItemRequest.builder().productId(2L).quantity(8).price(20.0).handlerType("FIFO").build()));
+
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Arrays.asList(
+                new InventoryUpdateResponse(false, "Not applied. Another line in the batch could not be fulfilled.", 1L, 5, null),
+                new InventoryUpdateResponse(false, "Failed to update inventory. Insufficient stock or product not found.", 2L, 8, 2)));
+
+        // When & Then
+        InsufficientInventoryException exception = assertThrows(InsufficientInventoryException.class, () -> {
+            orderService.createOrder(orderRequest, null);
+        });
 
-        when(inventoryService.checkInventory(anyLong()))
-                .thenReturn(Collections.singletonList(insufficientInventory));
+        assertEquals("Insufficient inventory for product ID 2. Requested: 8, Available: 2", exception.getMessage());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("Test create order - availability pre-check rejects without a deduction call")
+    void testCreateOrder_PrecheckRejectsEarly() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        when(inventoryService.checkInventory(1L)).thenReturn(Collections.singletonList(batch(3)));
+        when(inventoryService.refreshInventory(1L)).thenReturn(Collections.singletonList(batch(3)));
 
         // When & Then
-        assertThrows(InsufficientInventoryException.class, () -> {
-            orderService.createOrder(orderRequest);
+        InsufficientInventoryException exception = assertThrows(InsufficientInventoryException.class, () -> {
+            orderService.createOrder(orderRequest, null);
         });
 
+        assertEquals("Insufficient inventory for product ID 1. Requested: 5, Available: 3", exception.getMessage());
+        verify(inventoryService, never()).updateInventoryBatch(anyList(), any());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("Test create order - stale cached shortage is re-checked before rejecting")
+    void testCreateOrder_PrecheckRefreshesStaleShortage() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        when(inventoryService.checkInventory(1L)).thenReturn(Collections.singletonList(batch(3)));
+        when(inventoryService.refreshInventory(1L)).thenReturn(Collections.singletonList(batch(10)));
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Collections.singletonList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5)));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+
+        // When
+        OrderResponse result = orderService.createOrder(orderRequest, null);
+
+        // Then
+        assertEquals("PLACED", result.getStatus());
+        verify(inventoryService, times(1)).refreshInventory(1L);
+        verify(inventoryService, times(1)).updateInventoryBatch(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Test create order - repeated products are checked once with summed quantities")
+    void testCreateOrder_PrecheckSumsRepeatedProducts() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        orderRequest.setOrderItems(Arrays.asList(item(1L, 3), item(2L, 1), item(1L, 4)));
+        when(inventoryService.checkInventory(1L)).thenReturn(Collections.singletonList(batch(6)));
+        when(inventoryService.refreshInventory(1L)).thenReturn(Collections.singletonList(batch(6)));
+        lenient().when(inventoryService.checkInventory(2L)).thenReturn(Collections.singletonList(batch(10)));
+
+        // When & Then
+        InsufficientInventoryException exception = assertThrows(InsufficientInventoryException.class, () -> {
+            orderService.createOrder(orderRequest, null);
+        });
+
+        assertEquals("Insufficient inventory for product ID 1. Requested: 7, Available: 6", exception.getMessage());
         verify(inventoryService, times(1)).checkInventory(1L);
-        verify(inventoryService, never()).updateInventory(any(InventoryUpdateRequest.class));
+        verify(inventoryService, never()).updateInventoryBatch(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Test create order - per-product checks run concurrently")
+    void testCreateOrder_PrecheckFansOut() {
+        // Given - each check only returns once all three are in flight
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        orderRequest.setOrderItems(Arrays.asList(item(1L, 5), item(2L, 5), item(3L, 5)));
+        CountDownLatch inFlight = new CountDownLatch(3);
+        when(inventoryService.checkInventory(anyLong())).thenAnswer(invocation -> {
+            inFlight.countDown();
+            assertTrue(inFlight.await(5, TimeUnit.SECONDS), "Checks did not run concurrently");
+            return Collections.singletonList(batch(10));
+        });
+        when(inventoryService.updateInventoryBatch(anyList(), any())).thenReturn(Arrays.asList(
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5),
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 2L, 5, 5),
+                new InventoryUpdateResponse(true, "Inventory updated successfully", 3L, 5, 5)));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+
+        // When
+        OrderResponse result = orderService.createOrder(orderRequest, null);
+
+        // Then
+        assertEquals("PLACED", result.getStatus());
+        verify(inventoryService, times(3)).checkInventory(anyLong());
+    }
+
+    @Test
+    @DisplayName("Test create order - the first shortage fails fast and cancels pending checks")
+    void testCreateOrder_PrecheckFailsFast() {
+        // Given - product 1 is short, products 2 and 3 hang
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        orderRequest.setOrderItems(Arrays.asList(item(1L, 5), item(2L, 5), item(3L, 5)));
+        CountDownLatch hanging = new CountDownLatch(2);
+        AtomicInteger cancelled = new AtomicInteger();
+        when(inventoryService.checkInventory(1L)).thenAnswer(invocation -> {
+            assertTrue(hanging.await(5, TimeUnit.SECONDS));
+            return Collections.singletonList(batch(3));
+        });
+        when(inventoryService.refreshInventory(1L)).thenReturn(Collections.singletonList(batch(3)));
+        Answer<List<InventoryResponse>> hang = invocation -> {
+            hanging.countDown();
+            try {
+                Thread.sleep(5000);
+            } catch (InterruptedException e) {
+                cancelled.incrementAndGet();
+            }
+            return Collections.singletonList(batch(10));
+        };
+        when(inventoryService.checkInventory(2L)).thenAnswer(hang);
+        when(inventoryService.checkInventory(3L)).thenAnswer(hang);
+
+        // When
+        long start = System.nanoTime();
+        assertThrows(InsufficientInventoryException.class, () -> orderService.createOrder(orderRequest, null));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(elapsedMillis < 2000, "Rejection took " + elapsedMillis + " ms");
+        verify(inventoryService, never()).updateInventoryBatch(anyList(), any());
+        inventoryCheckExecutor.shutdown();
+        assertDoesNotThrow(() -> inventoryCheckExecutor.awaitTermination(2, TimeUnit.SECONDS));
+        assertEquals(2, cancelled.get());
+    }
+
+    @Test
+    @DisplayName("Test create order - async acceptance saves a PENDING order and its outbox entry without remote calls")
+    void testCreateOrder_AsyncAcceptance() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "acceptanceMode", "async");
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> {
+            Order saved = invocation.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+
+        // When
+        OrderResponse result = orderService.createOrder(orderRequest, null);
+
+        // Then
+        assertEquals("PENDING", result.getStatus());
+        assertEquals(50.0, result.getTotalAmount());
+        verify(orderOutboxRepository, times(1)).save(argThat((OrderOutboxEntry entry) ->
+                entry.getOrderId().equals(7L) && entry.getAttempts() == 0));
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    @DisplayName("Test create order async - pre-check, deduction and persistence phases are timed")
+    void testCreateOrderAsync_RecordsPhaseTimers() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        when(inventoryService.checkInventoryAsync(1L)).thenReturn(CompletableFuture.completedFuture(
+                Collections.singletonList(batch(10))));
+        when(inventoryService.updateInventoryBatchAsync(anyList(), any())).thenReturn(CompletableFuture.completedFuture(
+                Collections.singletonList(new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5))));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+
+        // When
+        orderService.createOrderAsync(orderRequest, null).join();
+
+        // Then
+        assertEquals(1, phaseCount("availability"));
+        assertEquals(1, phaseCount("deduction"));
+        assertEquals(1, phaseCount("persistence"));
+    }
+
+    @Test
+    @DisplayName("Test create order async - a rejected deduction is timed and the order is not saved")
+    void testCreateOrderAsync_DeductionRejected_TimedWithoutPersistence() {
+        // Given
+        when(inventoryService.updateInventoryBatchAsync(anyList(), any())).thenReturn(CompletableFuture.completedFuture(
+                Collections.singletonList(new InventoryUpdateResponse(false, "Failed to update inventory. Insufficient stock or product not found.", 1L, 5, 3))));
+
+        // When
+        assertThrows(CompletionException.class, () -> orderService.createOrderAsync(orderRequest, null).join());
+
+        // Then
+        assertEquals(1, phaseCount("deduction"));
+        assertEquals(0, phaseCount("persistence"));
         verify(orderRepository, never()).save(any(Order.class));
     }
 
+    @Test
+    @DisplayName("Test create order async - saves the order on the persistence executor")
+    void testCreateOrderAsync_Success() {
+        // Given
+        when(inventoryService.updateInventoryBatchAsync(anyList(), any())).thenReturn(CompletableFuture.completedFuture(
+                Collections.singletonList(new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5))));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+
+        // When
+        OrderResponse result = orderService.createOrderAsync(orderRequest, null).join();
+
+        // Then
+        assertEquals(1L, result.getId());
+        assertEquals(50.0, result.getTotalAmount());
+        verify(orderPersistenceExecutor, times(1)).execute(any(Runnable.class));
+        verify(inventoryService, never()).updateInventoryBatch(anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Test create order async - denied deduction fails the future and saves nothing")
+    void testCreateOrderAsync_InsufficientInventory() {
+        // Given
+        when(inventoryService.updateInventoryBatchAsync(anyList(), any())).thenReturn(CompletableFuture.completedFuture(
+                Collections.singletonList(new InventoryUpdateResponse(false, "Insufficient stock", 1L, 5, 3))));
+
+        // When
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> orderService.createOrderAsync(orderRequest, null).join());
+
+        // Then
+        assertInstanceOf(InsufficientInventoryException.class, exception.getCause());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    @DisplayName("Test create order async - rejected before any deduction when no place is left to save the order")
+    void testCreateOrderAsync_NoPersistenceCapacity() {
+        // Given
+        orderPersistencePermits.acquireUninterruptibly();
+
+        // When
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> orderService.createOrderAsync(orderRequest, "key-1").join());
+
+        // Then
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    @DisplayName("Test create order async - a failed save after the deduction tells whether a retry is safe")
+    void testCreateOrderAsync_SaveFails() {
+        // Given
+        when(inventoryService.updateInventoryBatchAsync(anyList(), any())).thenReturn(CompletableFuture.completedFuture(
+                Collections.singletonList(new InventoryUpdateResponse(true, "Inventory updated successfully", 1L, 5, 5))));
+        when(orderRepository.save(any(Order.class))).thenThrow(new IllegalStateException("Database unavailable"));
+
+        // When
+        CompletionException withKey = assertThrows(CompletionException.class,
+                () -> orderService.createOrderAsync(orderRequest, "key-1").join());
+        CompletionException withoutKey = assertThrows(CompletionException.class,
+                () -> orderService.createOrderAsync(orderRequest, null).join());
+
+        // Then
+        assertTrue(assertInstanceOf(OrderPersistenceException.class, withKey.getCause()).isRetryable());
+        assertFalse(assertInstanceOf(OrderPersistenceException.class, withoutKey.getCause()).isRetryable());
+        verify(inventoryService).updateInventoryBatchAsync(anyList(), eq("checkout-key-1"));
+        verify(inventoryService).updateInventoryBatchAsync(anyList(), isNull());
+        assertEquals(1, orderPersistencePermits.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Test create order async - the first shortage fails fast and cancels pending checks")
+    void testCreateOrderAsync_PrecheckFailsFast() {
+        // Given - product 1 is short, product 2 never answers
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        orderRequest.setOrderItems(Arrays.asList(item(1L, 5), item(2L, 5)));
+        CompletableFuture<List<InventoryResponse>> pending = new CompletableFuture<>();
+        when(inventoryService.checkInventoryAsync(1L))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(batch(3))));
+        when(inventoryService.refreshInventoryAsync(1L))
+                .thenReturn(CompletableFuture.completedFuture(Collections.singletonList(batch(3))));
+        when(inventoryService.checkInventoryAsync(2L)).thenReturn(pending);
+
+        // When
+        CompletableFuture<OrderResponse> result = orderService.createOrderAsync(orderRequest, null);
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(InsufficientInventoryException.class, exception.getCause());
+        verify(inventoryService, never()).updateInventoryBatchAsync(anyList(), any());
+        verify(inventoryService, never()).refreshInventoryAsync(2L);
+    }
+
     @Test
     @DisplayName("Test get order by ID - success scenario")
     void testGetOrderById_Success() {
         // Given
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderRepository.findRowsById(1L)).thenReturn(Collections.singletonList(row(order)));
 
         // When
         OrderResponse result = orderService.getOrderById(1L);
@@ -150,27 +557,29 @@ public class OrderServiceImplTest {
         assertEquals("john@example.com", result.getCustomerEmail());
         assertEquals(1, result.getOrderItems().size());
 
-        verify(orderRepository, times(1)).findById(1L);
+        verify(orderRepository, times(1)).findRowsById(1L);
+        verify(orderRepository, never()).findById(anyLong());
     }
 
     @Test
     @DisplayName("Test get order by ID - not found")
     void testGetOrderById_NotFound() {
         // Given
-        when(orderRepository.findById(999L)).thenReturn(Optional.empty());
+        when(orderRepository.findRowsById(999L)).thenReturn(Collections.emptyList());
 
         // When & Then
         assertThrows(ResourceNotFoundException.class, () -> {
             orderService.getOrderById(999L);
         });
 
-        verify(orderRepository, times(1)).findById(999L);
+        verify(orderRepository, times(1)).findRowsById(999L);
     }
 
     @Test
-    @DisplayName("Test get all orders")
-    void testGetAllOrders() {
-        // Given
+    @DisplayName("Test get orders - returns a page and the cursor of the next one")
+    void testGetOrders_FirstPage() {
+        // Given - one more order than the page size exists
+        ReflectionTestUtils.setField(orderService, "maxPageSize", 500);
         Order order2 = new Order();
         order2.setId(2L);
         order2.setCustomerName("Jane Smith");
@@ -178,18 +587,106 @@ public class OrderServiceImplTest {
         order2.setOrderDate(LocalDateTime.now());
         order2.setStatus("PLACED");
         order2.setTotalAmount(75.0);
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().status("PLACED").build();
+
+        when(orderRepository.findPageIds(criteria, null, 2)).thenReturn(Arrays.asList(2L, 1L));
+        when(orderRepository.findRowsByIdIn(Collections.singletonList(2L)))
+                .thenReturn(Collections.singletonList(row(order2)));
+
+        // When
+        OrderPageResponse result = orderService.getOrders(criteria, null, 1);
+
+        // Then
+        assertEquals(1, result.getOrders().size());
+        assertEquals("Jane Smith", result.getOrders().get(0).getCustomerName());
+        assertEquals(2L, result.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("Test get orders - last page has no cursor and the page size is capped")
+    void testGetOrders_LastPage() {
+        // Given
+        ReflectionTestUtils.setField(orderService, "maxPageSize", 10);
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        when(orderRepository.findPageIds(criteria, 2L, 11)).thenReturn(Collections.singletonList(1L));
+        when(orderRepository.findRowsByIdIn(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(row(order)));
+
+        // When
+        OrderPageResponse result = orderService.getOrders(criteria, 2L, 1000);
+
+        // Then
+        assertEquals(1, result.getOrders().size());
+        assertEquals(1, result.getOrders().get(0).getOrderItems().size());
+        assertNull(result.getNextCursor());
+    }
 
-        when(orderRepository.findAll()).thenReturn(Arrays.asList(order, order2));
+    @Test
+    @DisplayName("Test get orders - an empty page reads no rows")
+    void testGetOrders_EmptyPage() {
+        // Given
+        OrderSearchCriteria criteria = OrderSearchCriteria.builder().customerEmail("nobody@example.com").build();
+        when(orderRepository.findPageIds(criteria, null, 11)).thenReturn(Collections.emptyList());
+        ReflectionTestUtils.setField(orderService, "maxPageSize", 500);
 
         // When
-        List<OrderResponse> results = orderService.getAllOrders();
+        OrderPageResponse result = orderService.getOrders(criteria, null, 10);
 
         // Then
-        assertNotNull(results);
-        assertEquals(2, results.size());
-        assertEquals("John Doe", results.get(0).getCustomerName());
-        assertEquals("Jane Smith", results.get(1).getCustomerName());
+        assertTrue(result.getOrders().isEmpty());
+        assertNull(result.getNextCursor());
+        verify(orderRepository, never()).findRowsByIdIn(any());
+    }
+
+    @Test
+    @DisplayName("Test export orders - groups adjacent rows into one order each")
+    void testExportOrders_GroupsRows() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+        when(orderRepository.streamForExport(criteria)).thenReturn(Stream.of(
+                new OrderRow(2L, "Jane Smith", "jane@example.com", now, "PLACED", 75.0, 3L, 7L, 1, 25.0, "FIFO"),
+                new OrderRow(2L, "Jane Smith", "jane@example.com", now, "PLACED", 75.0, 4L, 8L, 2, 25.0, "FIFO"),
+                new OrderRow(1L, "John Doe", "john@example.com", now, "PENDING", 0.0, null, null, null, null, null)));
+        List<OrderResponse> exported = new ArrayList<>();
+
+        // When
+        long count = orderService.exportOrders(criteria, exported::add);
+
+        // Then
+        assertEquals(2, count);
+        assertEquals(2, exported.get(0).getOrderItems().size());
+        assertEquals(8L, exported.get(0).getOrderItems().get(1).getProductId());
+        assertEquals("PENDING", exported.get(1).getStatus());
+        assertTrue(exported.get(1).getOrderItems().isEmpty());
+    }
+
+    private OrderRow row(Order order) {
+        OrderItem item = order.getOrderItems().isEmpty() ? new OrderItem() : order.getOrderItems().get(0);
+        return new OrderRow(order.getId(), order.getCustomerName(), order.getCustomerEmail(), order.getOrderDate(),
+                order.getStatus(), order.getTotalAmount(), item.getId(), item.getProductId(), item.getQuantity(),
+                item.getPrice(), item.getHandlerType());
+    }
+
+    private OrderItemRequest item(Long productId, int quantity) {
+        return OrderItemRequest.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .price(10.0)
+                .handlerType("FIFO")
+                .build();
+    }
+
+    private InventoryResponse batch(int quantity) {
+        return InventoryResponse.builder()
+                .id(1L)
+                .productId(1L)
+                .quantity(quantity)
+                .batchNumber("BATCH001")
+                .build();
+    }
 
-        verify(orderRepository, times(1)).findAll();
+    private long phaseCount(String phase) {
+        return meterRegistry.get(OrderPhaseTimers.PHASE_METRIC).tag("phase", phase).timer().count();
     }
 }
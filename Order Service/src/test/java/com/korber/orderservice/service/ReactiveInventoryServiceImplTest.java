@@ -0,0 +1,175 @@
+package com.korber.orderservice.service;
+
+import com.korber.orderservice.dto.InventoryResponse;
+import com.korber.orderservice.dto.InventoryUpdateRequest;
+import com.korber.orderservice.dto.InventoryUpdateResponse;
+import com.korber.orderservice.exception.InventoryServiceException;
+import com.korber.orderservice.exception.ResourceNotFoundException;
+import com.korber.orderservice.service.impl.InventoryAvailabilityCache;
+import com.korber.orderservice.service.impl.IdempotencyStore;
+import com.korber.orderservice.service.impl.InventoryCallGuard;
+import com.korber.orderservice.service.impl.ReactiveInventoryServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveInventoryServiceImplTest {
+
+    private final List<ClientRequest> requests = new ArrayList<>();
+    private final List<ClientResponse> responses = new ArrayList<>();
+
+    private ReactiveInventoryServiceImpl inventoryService;
+    private InventoryUpdateRequest updateRequest;
+
+    @BeforeEach
+    void setUp() {
+        inventoryService = newInventoryService(false);
+
+        updateRequest = InventoryUpdateRequest.builder()
+                .productId(1L)
+                .quantity(5)
+                .handlerType("FIFO")
+                .build();
+    }
+
+    @Test
+    @DisplayName("Test check inventory async - success scenario")
+    void testCheckInventoryAsync_Success() {
+        // Given
+        respond(HttpStatus.OK, "[{\"id\":1,\"productId\":1,\"quantity\":10,\"expiryDate\":\"2030-01-01\",\"batchNumber\":\"BATCH001\"}]");
+
+        // When
+        List<InventoryResponse> result = inventoryService.checkInventoryAsync(1L).join();
+
+        // Then
+        assertEquals(1, result.size());
+        assertEquals(10, result.get(0).getQuantity());
+        assertEquals("BATCH001", result.get(0).getBatchNumber());
+        assertEquals("/inventory/1", requests.get(0).url().getPath());
+    }
+
+    @Test
+    @DisplayName("Test check inventory - unknown product")
+    void testCheckInventory_NotFound() {
+        // Given
+        respond(HttpStatus.NOT_FOUND, "");
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> inventoryService.checkInventory(99L));
+    }
+
+    @Test
+    @DisplayName("Test check inventory async - server error fails the future with InventoryServiceException")
+    void testCheckInventoryAsync_ServerError() {
+        // Given
+        respond(HttpStatus.INTERNAL_SERVER_ERROR, "");
+
+        // When
+        CompletableFuture<List<InventoryResponse>> result = inventoryService.checkInventoryAsync(1L);
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(InventoryServiceException.class, exception.getCause());
+    }
+
+    @Test
+    @DisplayName("Test update inventory - rejected deduction returns the response body")
+    void testUpdateInventory_Rejected() {
+        // Given
+        respond(HttpStatus.BAD_REQUEST,
+                "{\"success\":false,\"message\":\"Insufficient stock\",\"productId\":1,\"updatedQuantity\":5,\"remainingQuantity\":3}");
+
+        // When
+        InventoryUpdateResponse result = inventoryService.updateInventory(updateRequest);
+
+        // Then
+        assertFalse(result.isSuccess());
+        assertEquals(3, result.getRemainingQuantity());
+    }
+
+    @Test
+    @DisplayName("Test update inventory batch async - success evicts cached availability")
+    void testUpdateInventoryBatchAsync_EvictsCache() {
+        // Given
+        inventoryService = newInventoryService(true);
+        respond(HttpStatus.OK, "[{\"id\":1,\"productId\":1,\"quantity\":10,\"expiryDate\":\"2030-01-01\",\"batchNumber\":\"BATCH001\"}]");
+        respond(HttpStatus.OK,
+                "[{\"success\":true,\"message\":\"Inventory updated successfully\",\"productId\":1,\"updatedQuantity\":5,\"remainingQuantity\":5}]");
+        respond(HttpStatus.OK, "[{\"id\":1,\"productId\":1,\"quantity\":5,\"expiryDate\":\"2030-01-01\",\"batchNumber\":\"BATCH001\"}]");
+        inventoryService.checkInventory(1L);
+
+        // When
+        List<InventoryUpdateResponse> result =
+                inventoryService.updateInventoryBatchAsync(Collections.singletonList(updateRequest), null).join();
+        List<InventoryResponse> afterUpdate = inventoryService.checkInventory(1L);
+
+        // Then
+        assertTrue(result.get(0).isSuccess());
+        assertEquals("/inventory/update/batch", requests.get(1).url().getPath());
+        assertEquals(3, requests.size());
+        assertEquals(5, afterUpdate.get(0).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Test update inventory batch - forwards the idempotency key as a header")
+    void testUpdateInventoryBatch_SendsIdempotencyKey() {
+        // Given
+        respond(HttpStatus.OK,
+                "[{\"success\":true,\"message\":\"Inventory updated successfully\",\"productId\":1,\"updatedQuantity\":5,\"remainingQuantity\":5}]");
+
+        // When
+        inventoryService.updateInventoryBatch(Collections.singletonList(updateRequest), "order-42");
+
+        // Then
+        assertEquals("order-42", requests.get(0).headers().getFirst(IdempotencyStore.HEADER));
+    }
+
+    @Test
+    @DisplayName("Test update inventory batch - server error")
+    void testUpdateInventoryBatch_ServerError() {
+        // Given
+        respond(HttpStatus.SERVICE_UNAVAILABLE, "");
+
+        // When & Then
+        assertThrows(InventoryServiceException.class,
+                () -> inventoryService.updateInventoryBatch(Collections.singletonList(updateRequest), null));
+    }
+
+    private void respond(HttpStatus status, String body) {
+        responses.add(ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build());
+    }
+
+    private ReactiveInventoryServiceImpl newInventoryService(boolean cacheEnabled) {
+        WebClient webClient = WebClient.builder()
+                .baseUrl("http://localhost:8082")
+                .exchangeFunction(request -> {
+                    requests.add(request);
+                    return Mono.just(responses.remove(0));
+                })
+                .build();
+        InventoryAvailabilityCache cache = new InventoryAvailabilityCache(
+                new SimpleMeterRegistry(), cacheEnabled, 60000, 60000, 100);
+        InventoryCallGuard callGuard = new InventoryCallGuard(
+                new SimpleMeterRegistry(), 50, 2000, 80, 20, 10, 5000, 3, 50, 0);
+        return new ReactiveInventoryServiceImpl(webClient, cache, callGuard);
+    }
+}